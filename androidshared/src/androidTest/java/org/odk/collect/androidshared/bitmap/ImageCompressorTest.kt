@@ -118,6 +118,17 @@ class ImageCompressorTest {
         assertThat(2000, equalTo(image.height))
     }
 
+    @Test
+    fun imageShouldBeCompressedToExactSizeWhenItIsSubsampled() {
+        saveTestBitmap(4000, 3000)
+        imageCompressor.execute(testImagePath, 900)
+
+        val image = ImageFileUtils.getBitmap(testImagePath, BitmapFactory.Options())!!
+
+        assertThat(900, equalTo(image.width))
+        assertThat(675, equalTo(image.height))
+    }
+
     @Test
     fun keepExifAfterScaling() {
         val attributes = mutableMapOf(
@@ -23,54 +23,96 @@ import timber.log.Timber
 object ImageCompressor {
     /**
      * Before proceed with scaling or rotating, make sure existing exif information is stored/restored.
+     * The exif information is kept per call so that images can be processed concurrently.
      * @author Khuong Ninh (khuong.ninh@it-development.com)
      */
     fun execute(imagePath: String, maxPixels: Int) {
-        backupExifData(imagePath)
+        val exifData = backupExifData(imagePath)
         scaleDownImage(imagePath, maxPixels)
-        restoreExifData(imagePath)
+        restoreExifData(imagePath, exifData)
     }
 
     /**
      * This method is used to reduce an original picture size.
      * maxPixels refers to the max pixels of the long edge, the short edge is scaled proportionately.
+     *
+     * The image's size is read first so that it can be decoded subsampled (by the largest power of
+     * 2 that keeps its long edge at least maxPixels) rather than at full resolution which can use
+     * hundreds of MB for photos from high resolution cameras.
      */
     private fun scaleDownImage(imagePath: String, maxPixels: Int) {
         if (maxPixels <= 0) {
             return
         }
 
-        var image = ImageFileUtils.getBitmap(imagePath, BitmapFactory.Options())
+        val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+        BitmapFactory.decodeFile(imagePath, bounds)
+
+        val originalWidth = bounds.outWidth.toDouble()
+        val originalHeight = bounds.outHeight.toDouble()
+        if (originalWidth <= 0 || originalHeight <= 0) {
+            return
+        }
+
+        val newWidth: Int
+        val newHeight: Int
+        if (originalWidth > originalHeight && originalWidth > maxPixels) {
+            newWidth = maxPixels
+            newHeight = (originalHeight / (originalWidth / maxPixels)).toInt()
+        } else if (originalHeight > maxPixels) {
+            newWidth = (originalWidth / (originalHeight / maxPixels)).toInt()
+            newHeight = maxPixels
+        } else {
+            return
+        }
+
+        val options = BitmapFactory.Options().apply {
+            inSampleSize = getSampleSize(maxOf(bounds.outWidth, bounds.outHeight), maxPixels)
+        }
+
+        val image = ImageFileUtils.getBitmap(imagePath, options)
         if (image != null) {
-            val originalWidth = image.width.toDouble()
-            val originalHeight = image.height.toDouble()
-            if (originalWidth > originalHeight && originalWidth > maxPixels) {
-                val newHeight = (originalHeight / (originalWidth / maxPixels)).toInt()
-                image = Bitmap.createScaledBitmap(image, maxPixels, newHeight, false)
-                ImageFileUtils.saveBitmapToFile(image, imagePath)
-            } else if (originalHeight > maxPixels) {
-                val newWidth = (originalWidth / (originalHeight / maxPixels)).toInt()
-                image = Bitmap.createScaledBitmap(image, newWidth, maxPixels, false)
-                ImageFileUtils.saveBitmapToFile(image, imagePath)
+            val scaledImage = Bitmap.createScaledBitmap(image, newWidth, newHeight, false)
+            if (scaledImage != image) {
+                image.recycle()
             }
+
+            ImageFileUtils.saveBitmapToFile(scaledImage, imagePath)
+            scaledImage.recycle()
+        }
+    }
+
+    /**
+     * @return the largest power of 2 the image can be subsampled by while keeping its long edge
+     * at least [maxPixels]
+     */
+    private fun getSampleSize(longEdge: Int, maxPixels: Int): Int {
+        var sampleSize = 1
+        while (longEdge / (sampleSize * 2) >= maxPixels) {
+            sampleSize *= 2
         }
+
+        return sampleSize
     }
 
-    private fun backupExifData(imagePath: String) {
+    private fun backupExifData(imagePath: String): Map<String, String?> {
+        val exifData = mutableMapOf<String, String?>()
         try {
             val exif = ExifInterface(imagePath)
-            for ((key, _) in exifDataBackup) {
-                exifDataBackup[key] = exif.getAttribute(key)
+            for (tag in EXIF_TAGS) {
+                exifData[tag] = exif.getAttribute(tag)
             }
         } catch (e: Throwable) {
             Timber.w(e)
         }
+
+        return exifData
     }
 
-    private fun restoreExifData(imagePath: String) {
+    private fun restoreExifData(imagePath: String, exifData: Map<String, String?>) {
         try {
             val exif = ExifInterface(imagePath)
-            for ((key, value) in exifDataBackup) {
+            for ((key, value) in exifData) {
                 exif.setAttribute(key, value)
             }
             exif.saveAttributes()
@@ -79,37 +121,37 @@ object ImageCompressor {
         }
     }
 
-    private val exifDataBackup = mutableMapOf<String, String?>(
-        ExifInterface.TAG_DATETIME to null,
-        ExifInterface.TAG_DATETIME_ORIGINAL to null,
-        ExifInterface.TAG_DATETIME_DIGITIZED to null,
-        ExifInterface.TAG_OFFSET_TIME to null,
-        ExifInterface.TAG_OFFSET_TIME_ORIGINAL to null,
-        ExifInterface.TAG_OFFSET_TIME_DIGITIZED to null,
-        ExifInterface.TAG_SUBSEC_TIME to null,
-        ExifInterface.TAG_SUBSEC_TIME_ORIGINAL to null,
-        ExifInterface.TAG_SUBSEC_TIME_DIGITIZED to null,
-        ExifInterface.TAG_IMAGE_DESCRIPTION to null,
-        ExifInterface.TAG_MAKE to null,
-        ExifInterface.TAG_MODEL to null,
-        ExifInterface.TAG_SOFTWARE to null,
-        ExifInterface.TAG_ARTIST to null,
-        ExifInterface.TAG_COPYRIGHT to null,
-        ExifInterface.TAG_MAKER_NOTE to null,
-        ExifInterface.TAG_USER_COMMENT to null,
-        ExifInterface.TAG_IMAGE_UNIQUE_ID to null,
-        ExifInterface.TAG_CAMERA_OWNER_NAME to null,
-        ExifInterface.TAG_BODY_SERIAL_NUMBER to null,
-        ExifInterface.TAG_GPS_ALTITUDE to null,
-        ExifInterface.TAG_GPS_ALTITUDE_REF to null,
-        ExifInterface.TAG_GPS_DATESTAMP to null,
-        ExifInterface.TAG_GPS_TIMESTAMP to null,
-        ExifInterface.TAG_GPS_LATITUDE to null,
-        ExifInterface.TAG_GPS_LATITUDE_REF to null,
-        ExifInterface.TAG_GPS_LONGITUDE to null,
-        ExifInterface.TAG_GPS_LONGITUDE_REF to null,
-        ExifInterface.TAG_GPS_SATELLITES to null,
-        ExifInterface.TAG_GPS_STATUS to null,
-        ExifInterface.TAG_ORIENTATION to null
+    private val EXIF_TAGS = listOf(
+        ExifInterface.TAG_DATETIME,
+        ExifInterface.TAG_DATETIME_ORIGINAL,
+        ExifInterface.TAG_DATETIME_DIGITIZED,
+        ExifInterface.TAG_OFFSET_TIME,
+        ExifInterface.TAG_OFFSET_TIME_ORIGINAL,
+        ExifInterface.TAG_OFFSET_TIME_DIGITIZED,
+        ExifInterface.TAG_SUBSEC_TIME,
+        ExifInterface.TAG_SUBSEC_TIME_ORIGINAL,
+        ExifInterface.TAG_SUBSEC_TIME_DIGITIZED,
+        ExifInterface.TAG_IMAGE_DESCRIPTION,
+        ExifInterface.TAG_MAKE,
+        ExifInterface.TAG_MODEL,
+        ExifInterface.TAG_SOFTWARE,
+        ExifInterface.TAG_ARTIST,
+        ExifInterface.TAG_COPYRIGHT,
+        ExifInterface.TAG_MAKER_NOTE,
+        ExifInterface.TAG_USER_COMMENT,
+        ExifInterface.TAG_IMAGE_UNIQUE_ID,
+        ExifInterface.TAG_CAMERA_OWNER_NAME,
+        ExifInterface.TAG_BODY_SERIAL_NUMBER,
+        ExifInterface.TAG_GPS_ALTITUDE,
+        ExifInterface.TAG_GPS_ALTITUDE_REF,
+        ExifInterface.TAG_GPS_DATESTAMP,
+        ExifInterface.TAG_GPS_TIMESTAMP,
+        ExifInterface.TAG_GPS_LATITUDE,
+        ExifInterface.TAG_GPS_LATITUDE_REF,
+        ExifInterface.TAG_GPS_LONGITUDE,
+        ExifInterface.TAG_GPS_LONGITUDE_REF,
+        ExifInterface.TAG_GPS_SATELLITES,
+        ExifInterface.TAG_GPS_STATUS,
+        ExifInterface.TAG_ORIENTATION
     )
 }
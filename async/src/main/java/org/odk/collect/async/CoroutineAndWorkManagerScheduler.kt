@@ -17,6 +17,18 @@ class CoroutineAndWorkManagerScheduler(foregroundContext: CoroutineContext, back
 
     constructor(workManager: WorkManager) : this(Dispatchers.Main, Dispatchers.IO, workManager) // Needed for Java construction
 
+    override fun deferred(tag: String, spec: TaskSpec, inputData: Map<String, String>) {
+        val workManagerInputData = Data.Builder().putAll(inputData).build()
+
+        val worker = spec.getWorkManagerAdapter()
+        val workRequest = OneTimeWorkRequest.Builder(worker)
+            .addTag(tag)
+            .setInputData(workManagerInputData)
+            .build()
+
+        workManager.beginUniqueWork(tag, ExistingWorkPolicy.APPEND_OR_REPLACE, workRequest).enqueue()
+    }
+
     override fun networkDeferred(tag: String, spec: TaskSpec, inputData: Map<String, String>) {
         val constraints = Constraints.Builder()
             .setRequiredNetworkType(NetworkType.CONNECTED)
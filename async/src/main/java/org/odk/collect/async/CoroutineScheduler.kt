@@ -1,17 +1,32 @@
 package org.odk.collect.async
 
+import android.content.Context
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.isActive
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
 import kotlinx.coroutines.withContext
+import java.util.concurrent.ConcurrentHashMap
 import java.util.function.Consumer
 import java.util.function.Supplier
 import kotlin.coroutines.CoroutineContext
 
-open class CoroutineScheduler(private val foregroundContext: CoroutineContext, private val backgroundContext: CoroutineContext) : Scheduler {
+/**
+ * @param context used to run [deferred] tasks. These run on the background context while the app
+ * is running rather than being handed to a job framework, so they aren't retried if they return
+ * `false`.
+ */
+open class CoroutineScheduler @JvmOverloads constructor(
+    private val foregroundContext: CoroutineContext,
+    private val backgroundContext: CoroutineContext,
+    private val context: Context? = null
+) : Scheduler {
+
+    private val deferredLocks = ConcurrentHashMap<String, Mutex>()
 
     override fun <T> immediate(background: Supplier<T>, foreground: Consumer<T>) {
         CoroutineScope(foregroundContext).launch {
@@ -53,6 +68,17 @@ open class CoroutineScheduler(private val foregroundContext: CoroutineContext, p
         throw UnsupportedOperationException()
     }
 
+    override fun deferred(tag: String, spec: TaskSpec, inputData: Map<String, String>) {
+        val context = checkNotNull(context) { "Running deferred tasks requires a Context" }
+        val lock = deferredLocks.computeIfAbsent(tag) { Mutex() }
+
+        CoroutineScope(backgroundContext).launch {
+            lock.withLock {
+                spec.getTask(context, inputData, true).get()
+            }
+        }
+    }
+
     override fun networkDeferred(tag: String, spec: TaskSpec, inputData: Map<String, String>) {
         throw UnsupportedOperationException()
     }
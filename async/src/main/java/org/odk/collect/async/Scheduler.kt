@@ -27,6 +27,16 @@ interface Scheduler {
      */
     fun immediate(background: Boolean = false, runnable: Runnable)
 
+    /**
+     * Schedule a task to run in the background even if the app isn't running.
+     *
+     * @param tag used to identify this task in future. If there is a previously scheduled task
+     * with the same tag then the new task will run after it
+     * @param spec defines the task to be run
+     * @param inputData a map of input data that can be accessed by the task
+     */
+    fun deferred(tag: String, spec: TaskSpec, inputData: Map<String, String>)
+
     /**
      * Schedule a task to run in the background even if the app isn't running. The task
      * will only be run when the network is available.
@@ -0,0 +1,34 @@
+package org.odk.collect.async
+
+import android.content.Context
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import kotlinx.coroutines.Dispatchers
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import java.util.function.Supplier
+
+@RunWith(AndroidJUnit4::class)
+class CoroutineSchedulerTest {
+
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+    private val scheduler = CoroutineScheduler(Dispatchers.Unconfined, Dispatchers.Unconfined, context)
+
+    @Test
+    fun `deferred runs task in the background`() {
+        var ran = false
+        val spec = mock<TaskSpec>()
+        whenever(spec.getTask(context, mapOf("key" to "value"), true)).thenReturn(Supplier { ran = true; true })
+
+        scheduler.deferred("tag", spec, mapOf("key" to "value"))
+
+        assertThat(ran, `is`(true))
+        verify(spec).getTask(eq(context), eq(mapOf("key" to "value")), eq(true))
+    }
+}
@@ -78,6 +78,6 @@ open class AudioRecorderDependencyModule {
 
     @Provides
     open fun providesScheduler(application: Application): Scheduler {
-        return CoroutineScheduler(Dispatchers.Main, Dispatchers.IO)
+        return CoroutineScheduler(Dispatchers.Main, Dispatchers.IO, application)
     }
 }
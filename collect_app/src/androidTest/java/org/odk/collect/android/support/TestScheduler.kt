@@ -49,6 +49,10 @@ class TestScheduler : Scheduler, CoroutineDispatcher() {
         }
     }
 
+    override fun deferred(tag: String, spec: TaskSpec, inputData: Map<String, String>) {
+        deferredTasks.add(DeferredTask(tag, spec, null, inputData))
+    }
+
     override fun networkDeferred(tag: String, spec: TaskSpec, inputData: Map<String, String>) {
         deferredTasks.add(DeferredTask(tag, spec, null, inputData))
     }
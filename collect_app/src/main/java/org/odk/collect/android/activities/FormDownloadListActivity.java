@@ -37,6 +37,7 @@ import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import org.odk.collect.android.R;
 import org.odk.collect.android.activities.viewmodels.FormDownloadListViewModel;
 import org.odk.collect.android.adapters.FormDownloadListAdapter;
+import org.odk.collect.android.backgroundwork.FormUpdateScheduler;
 import org.odk.collect.android.formentry.RefreshFormListDialogFragment;
 import org.odk.collect.android.formlists.sorting.FormListSortingOption;
 import org.odk.collect.android.formmanagement.FormDownloadException;
@@ -46,6 +47,7 @@ import org.odk.collect.android.formmanagement.ServerFormDetails;
 import org.odk.collect.android.formmanagement.ServerFormsDetailsFetcher;
 import org.odk.collect.android.fragments.dialogs.FormsDownloadResultDialog;
 import org.odk.collect.android.injection.DaggerUtils;
+import org.odk.collect.android.projects.ProjectsDataService;
 import org.odk.collect.android.listeners.DownloadFormsTaskListener;
 import org.odk.collect.android.listeners.FormListDownloaderListener;
 import org.odk.collect.android.openrosa.HttpCredentialsInterface;
@@ -130,6 +132,12 @@ public class FormDownloadListActivity extends FormListActivity implements FormLi
     @Inject
     FormDownloader formDownloader;
 
+    @Inject
+    FormUpdateScheduler formUpdateScheduler;
+
+    @Inject
+    ProjectsDataService projectsDataService;
+
     @SuppressWarnings("unchecked")
     @Override
     public void onCreate(Bundle savedInstanceState) {
@@ -651,6 +659,10 @@ public class FormDownloadListActivity extends FormListActivity implements FormLi
 
         DialogFragmentUtils.dismissDialog(RefreshFormListDialogFragment.class, getSupportFragmentManager());
 
+        if (result.containsValue(null)) {
+            formUpdateScheduler.schedulePreWarm(projectsDataService.getCurrentProject().getUuid());
+        }
+
         Bundle args = new Bundle();
         args.putSerializable(FormsDownloadResultDialog.ARG_RESULT, (Serializable) result);
         DialogFragmentUtils.showIfNotShowing(FormsDownloadResultDialog.class, args, getSupportFragmentManager());
@@ -168,6 +168,15 @@ public class InstanceChooserList extends AppListActivity implements AdapterView.
             return dialog;
         });
 
+        bulkFinalizationViewModel.getProgress().observe(this, progress -> {
+            MaterialProgressDialogFragment dialog = (MaterialProgressDialogFragment) getSupportFragmentManager()
+                    .findFragmentByTag(MaterialProgressDialogFragment.class.getName());
+
+            if (progress != null && dialog != null) {
+                dialog.setMessage(getString(org.odk.collect.strings.R.string.bulk_finalize_progress, progress.getProcessedCount(), progress.getTotalCount()));
+            }
+        });
+
         if (bulkFinalizationViewModel.isEnabled() && editMode) {
             DraftsMenuProvider draftsMenuProvider = new DraftsMenuProvider(this, bulkFinalizationViewModel::finalizeAllDrafts);
             addMenuProvider(draftsMenuProvider, this);
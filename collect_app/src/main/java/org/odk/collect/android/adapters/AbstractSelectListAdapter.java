@@ -50,8 +50,9 @@ import org.odk.collect.imageloader.GlideImageLoader;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 
 import timber.log.Timber;
 
@@ -73,6 +74,10 @@ public abstract class AbstractSelectListAdapter extends RecyclerView.Adapter<Abs
     protected boolean noButtonsMode;
     private final MediaUtils mediaUtils;
 
+    private Filter filter;
+    private SelectChoiceLabelIndex labelIndex;
+    private Map<SelectChoice, Integer> positions;
+
     AbstractSelectListAdapter(Context context, List<SelectChoice> items, FormEntryPrompt prompt,
                               ReferenceManager referenceManager, AudioHelper audioHelper,
                               int playColor, int numColumns, boolean noButtonsMode, MediaUtils mediaUtils) {
@@ -98,36 +103,70 @@ public abstract class AbstractSelectListAdapter extends RecyclerView.Adapter<Abs
         return filteredItems.size();
     }
 
+    /**
+     * The same filter is always returned so that a search that hasn't started yet is replaced by
+     * the next one (rather than each keystroke's search being run) while the user is typing.
+     * Searches run on the filter's own thread.
+     */
     @Override
     public Filter getFilter() {
-        return new Filter() {
-            @Override
-            protected FilterResults performFiltering(CharSequence charSequence) {
-                String searchStr = charSequence.toString().toLowerCase(Locale.US);
-                FilterResults filterResults = new FilterResults();
-                if (searchStr.isEmpty()) {
-                    filterResults.values = items;
-                    filterResults.count = items.size();
-                } else {
-                    List<SelectChoice> filteredList = new ArrayList<>();
-                    for (SelectChoice item : items) {
-                        if (prompt.getSelectChoiceText(item).toLowerCase(Locale.US).contains(searchStr)) {
-                            filteredList.add(item);
-                        }
+        if (filter == null) {
+            filter = new Filter() {
+                @Override
+                protected FilterResults performFiltering(CharSequence charSequence) {
+                    FilterResults filterResults = new FilterResults();
+                    if (charSequence == null || charSequence.length() == 0) {
+                        filterResults.values = items;
+                        filterResults.count = items.size();
+                    } else {
+                        List<SelectChoice> filteredList = getLabelIndex().filter(charSequence.toString());
+                        filterResults.values = filteredList;
+                        filterResults.count = filteredList.size();
                     }
-                    filterResults.values = filteredList;
-                    filterResults.count = filteredList.size();
+
+                    return filterResults;
+                }
+
+                @Override
+                protected void publishResults(CharSequence charSequence, FilterResults filterResults) {
+                    filteredItems = (List<SelectChoice>) filterResults.values;
+                    notifyDataSetChanged();
                 }
+            };
+        }
+
+        return filter;
+    }
 
-                return filterResults;
+    /**
+     * Built the first time the choices are filtered so that each choice's label is only looked
+     * up once per question.
+     */
+    private synchronized SelectChoiceLabelIndex getLabelIndex() {
+        if (labelIndex == null) {
+            List<String> labels = new ArrayList<>(items.size());
+            for (SelectChoice item : items) {
+                labels.add(prompt.getSelectChoiceText(item));
             }
 
-            @Override
-            protected void publishResults(CharSequence charSequence, FilterResults filterResults) {
-                filteredItems = (List<SelectChoice>) filterResults.values;
-                notifyDataSetChanged();
+            labelIndex = new SelectChoiceLabelIndex(items, labels);
+        }
+
+        return labelIndex;
+    }
+
+    private int getPosition(SelectChoice item) {
+        if (positions == null) {
+            positions = new HashMap<>();
+            for (int i = 0; i < items.size(); i++) {
+                if (!positions.containsKey(items.get(i))) {
+                    positions.put(items.get(i), i);
+                }
             }
-        };
+        }
+
+        Integer position = positions.get(item);
+        return position != null ? position : -1;
     }
 
     abstract CompoundButton createButton(int index, ViewGroup parent);
@@ -135,7 +174,7 @@ public abstract class AbstractSelectListAdapter extends RecyclerView.Adapter<Abs
     void setUpButton(TextView button, int index) {
         button.setTextSize(TypedValue.COMPLEX_UNIT_DIP, QuestionFontSizeUtils.getQuestionFontSize());
         button.setText(HtmlUtils.textToHtml(prompt.getSelectChoiceText(filteredItems.get(index))));
-        button.setTag(items.indexOf(filteredItems.get(index)));
+        button.setTag(getPosition(filteredItems.get(index)));
     }
 
     boolean isItemSelected(List<Selection> selectedItems, @NonNull Selection item) {
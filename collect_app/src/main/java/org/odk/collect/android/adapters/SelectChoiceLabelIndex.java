@@ -0,0 +1,92 @@
+package org.odk.collect.android.adapters;
+
+import org.javarosa.core.model.SelectChoice;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalized (lower cased with diacritics removed) labels for a question's choices so that
+ * filtering them as the user types doesn't need to look up and convert every choice's label for
+ * every keystroke.
+ * <p>
+ * The matches for the last query are kept so that typing more characters (which can only narrow
+ * the matches down) only needs to search the previous matches.
+ */
+public class SelectChoiceLabelIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final List<SelectChoice> choices;
+    private final String[] labels;
+
+    private String lastQuery;
+    private int[] lastMatches;
+    private int lastMatchCount;
+
+    /**
+     * @param labels the (display) labels of the choices in the same order as the choices
+     */
+    public SelectChoiceLabelIndex(List<SelectChoice> choices, List<String> labels) {
+        this.choices = choices;
+        this.labels = new String[labels.size()];
+
+        for (int i = 0; i < labels.size(); i++) {
+            this.labels[i] = normalize(labels.get(i));
+        }
+    }
+
+    /**
+     * @return the choices whose label contains the query (ignoring case and diacritics) in their
+     * original order
+     */
+    public synchronized List<SelectChoice> filter(String query) {
+        String normalizedQuery = normalize(query);
+        if (normalizedQuery.isEmpty()) {
+            lastQuery = null;
+            return choices;
+        }
+
+        boolean isNarrowing = lastQuery != null && normalizedQuery.contains(lastQuery);
+        int candidateCount = isNarrowing ? lastMatchCount : labels.length;
+
+        int[] matches = new int[candidateCount];
+        int matchCount = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int position = isNarrowing ? lastMatches[i] : i;
+            if (labels[position].contains(normalizedQuery)) {
+                matches[matchCount++] = position;
+            }
+        }
+
+        lastQuery = normalizedQuery;
+        lastMatches = matches;
+        lastMatchCount = matchCount;
+
+        List<SelectChoice> filteredChoices = new ArrayList<>(matchCount);
+        for (int i = 0; i < matchCount; i++) {
+            filteredChoices.add(choices.get(matches[i]));
+        }
+
+        return filteredChoices;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        String lowerCase = text.toLowerCase(Locale.US);
+        for (int i = 0; i < lowerCase.length(); i++) {
+            if (lowerCase.charAt(i) >= 0x80) {
+                // Decompose accented characters so that the accents can be removed
+                return DIACRITICS.matcher(Normalizer.normalize(lowerCase, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+
+        return lowerCase;
+    }
+}
@@ -37,6 +37,7 @@ import org.odk.collect.android.injection.config.CollectOsmDroidDependencyModule;
 import org.odk.collect.android.injection.config.CollectProjectsDependencyModule;
 import org.odk.collect.android.injection.config.CollectSelfieCameraDependencyModule;
 import org.odk.collect.android.injection.config.DaggerAppDependencyComponent;
+import org.odk.collect.android.utilities.FormDefMemoryPool;
 import org.odk.collect.android.utilities.FormsRepositoryProvider;
 import org.odk.collect.android.utilities.LocaleHelper;
 import org.odk.collect.androidshared.data.AppState;
@@ -234,6 +235,14 @@ public class Collect extends Application implements
         defaultSysLanguage = newConfig.locale.getLanguage();
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+
+        boolean critical = level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_CRITICAL;
+        FormDefMemoryPool.getInstance().trimMemory(critical);
+    }
+
     public AppDependencyComponent getComponent() {
         return applicationComponent;
     }
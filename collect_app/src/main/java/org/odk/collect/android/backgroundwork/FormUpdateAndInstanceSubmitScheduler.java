@@ -63,6 +63,14 @@ public class FormUpdateAndInstanceSubmitScheduler implements FormUpdateScheduler
     public void cancelUpdates(String projectId) {
         scheduler.cancelDeferred(getAutoUpdateTag(projectId));
         scheduler.cancelDeferred(getMatchExactlyTag(projectId));
+        scheduler.cancelDeferred(getPreWarmTag(projectId));
+    }
+
+    @Override
+    public void schedulePreWarm(String projectId) {
+        HashMap<String, String> inputData = new HashMap<>();
+        inputData.put(TaskData.DATA_PROJECT_ID, projectId);
+        scheduler.deferred(getPreWarmTag(projectId), new PreWarmFormsTaskSpec(), inputData);
     }
 
     @Override
@@ -87,6 +95,11 @@ public class FormUpdateAndInstanceSubmitScheduler implements FormUpdateScheduler
         return "match_exactly:" + projectId;
     }
 
+    @NotNull
+    private String getPreWarmTag(String projectId) {
+        return "preWarmForms:" + projectId;
+    }
+
     @NotNull
     private String getAutoUpdateTag(String projectId) {
         return "serverPollingJob:" + projectId;
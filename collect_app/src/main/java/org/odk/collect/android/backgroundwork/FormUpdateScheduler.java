@@ -5,4 +5,6 @@ public interface FormUpdateScheduler {
     void scheduleUpdates(String projectId);
 
     void cancelUpdates(String projectId);
+
+    void schedulePreWarm(String projectId);
 }
@@ -0,0 +1,48 @@
+package org.odk.collect.android.backgroundwork
+
+import android.content.Context
+import androidx.work.BackoffPolicy
+import androidx.work.WorkerParameters
+import org.odk.collect.android.formmanagement.FormsDataService
+import org.odk.collect.android.injection.DaggerUtils
+import org.odk.collect.android.projects.ProjectsDataService
+import org.odk.collect.async.TaskSpec
+import org.odk.collect.async.WorkerAdapter
+import java.util.function.Supplier
+import javax.inject.Inject
+
+class PreWarmFormsTaskSpec : TaskSpec {
+    @Inject
+    lateinit var formsDataService: FormsDataService
+
+    @Inject
+    lateinit var projectsDataService: ProjectsDataService
+
+    override val maxRetries: Int? = null
+    override val backoffPolicy: BackoffPolicy? = null
+    override val backoffDelay: Long? = null
+
+    override fun getTask(context: Context, inputData: Map<String, String>, isLastUniqueExecution: Boolean): Supplier<Boolean> {
+        DaggerUtils.getComponent(context).inject(this)
+        return Supplier {
+            val projectId = inputData[TaskData.DATA_PROJECT_ID]
+            if (projectId != null) {
+                // The FormDef cache belongs to the current project
+                if (projectsDataService.getCurrentProject().uuid == projectId) {
+                    formsDataService.preWarmForms(projectId)
+                }
+
+                true
+            } else {
+                throw IllegalArgumentException("No project ID provided!")
+            }
+        }
+    }
+
+    override fun getWorkManagerAdapter(): Class<out WorkerAdapter> {
+        return Adapter::class.java
+    }
+
+    class Adapter(context: Context, workerParams: WorkerParameters) :
+        WorkerAdapter(PreWarmFormsTaskSpec(), context, workerParams)
+}
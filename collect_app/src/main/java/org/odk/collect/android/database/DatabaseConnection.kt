@@ -3,16 +3,30 @@ package org.odk.collect.android.database
 import android.content.Context
 import android.database.sqlite.SQLiteDatabase
 import android.database.sqlite.SQLiteDatabase.CursorFactory
+import android.database.sqlite.SQLiteException
 import android.database.sqlite.SQLiteOpenHelper
 import android.os.StrictMode
+import android.os.SystemClock
 import timber.log.Timber
 import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicLong
 
 /**
  * Allows access to a database file. The actual underlying connection (an instance of
  * [SQLiteOpenHelper] to this database will be reused for different instances of
  * [DatabaseConnection] that refer to the same file.
  *
+ * As databases use write-ahead logging, the [SQLiteDatabase] for a file keeps one connection for
+ * writes and a pool of connections for reads (outside of transactions) so [readableDatabase] and
+ * [writeableDatabase] can be used from any thread at the same time.
+ *
+ * Connections are checked against the file at most once every [FILE_CHECK_INTERVAL] milliseconds
+ * (and whenever opening the database fails) so that a deleted database is recreated. [cleanUp]
+ * can be called after deleting database files (like when a project is deleted) to close their
+ * connections straight away.
+ *
  * @param migrator used to migrate or create the database automatically before access
  */
 open class DatabaseConnection(
@@ -23,33 +37,31 @@ open class DatabaseConnection(
     private val databaseVersion: Int
 ) {
 
+    private val databasePath = path + File.separator + name
+
     val writeableDatabase: SQLiteDatabase
         get() {
             StrictMode.noteSlowCall("Accessing writable DB")
-            return dbHelper.writableDatabase
+            getMetrics(databasePath).writableDatabaseAccesses.incrementAndGet()
+            return openDatabase { it.writableDatabase }
         }
 
     val readableDatabase: SQLiteDatabase
         get() {
-            return dbHelper.readableDatabase
+            getMetrics(databasePath).readableDatabaseAccesses.incrementAndGet()
+            return openDatabase { it.readableDatabase }
         }
 
     private val dbHelper: SQLiteOpenHelper
         get() {
-            val databasePath = path + File.separator + name
-            if (openHelpers.containsKey(databasePath) && !File(databasePath).exists()) {
-                /**
-                 * Ideally we should close the database here as well but it was causing crashes in
-                 * our tests as DB connections seem to be getting used after being closed. These
-                 * "removed" helpers will be closed in [closeAll] rather than when they are
-                 * replaced.
-                 */
-                openHelpers.remove(databasePath)?.let {
-                    toClose.add(it)
-                }
+            val existingHelper = openHelpers[databasePath]
+            if (existingHelper != null && isFileCheckDue() && !File(databasePath).exists()) {
+                forget(existingHelper)
             }
 
-            return openHelpers.getOrPut(databasePath) {
+            return openHelpers.computeIfAbsent(databasePath) {
+                getMetrics(databasePath).opens.incrementAndGet()
+
                 DatabaseMigratorSQLiteOpenHelper(
                     AltDatabasePathContext(path, context),
                     name,
@@ -60,40 +72,108 @@ open class DatabaseConnection(
             }
         }
 
+    private fun openDatabase(open: (SQLiteOpenHelper) -> SQLiteDatabase): SQLiteDatabase {
+        val openHelper = dbHelper
+
+        return try {
+            open(openHelper)
+        } catch (e: SQLiteException) {
+            if (File(databasePath).exists()) {
+                throw e
+            }
+
+            forget(openHelper)
+            open(dbHelper)
+        }
+    }
+
+    /**
+     * The first reuse of a connection is always checked so that a file deleted straight after
+     * being created is still noticed.
+     */
+    private fun isFileCheckDue(): Boolean {
+        val now = SystemClock.elapsedRealtime()
+        val lastCheck = lastFileChecks[databasePath]
+
+        return if (lastCheck == null || now - lastCheck >= FILE_CHECK_INTERVAL) {
+            lastFileChecks[databasePath] = now
+            true
+        } else {
+            false
+        }
+    }
+
+    /**
+     * Ideally we should close the database here as well but it was causing crashes in our tests
+     * as DB connections seem to be getting used after being closed. These "forgotten" helpers
+     * will be closed in [closeAll] rather than when they are replaced.
+     */
+    private fun forget(openHelper: SQLiteOpenHelper) {
+        if (openHelpers.remove(databasePath, openHelper)) {
+            lastFileChecks.remove(databasePath)
+            toClose.add(openHelper)
+        }
+    }
+
+    /**
+     * Counts of how often a database has been opened (or reopened after [cleanUp] or [closeAll])
+     * and how often [readableDatabase] and [writeableDatabase] have been accessed since the app
+     * started.
+     */
+    class Metrics {
+        val opens = AtomicLong()
+        val readableDatabaseAccesses = AtomicLong()
+        val writableDatabaseAccesses = AtomicLong()
+
+        override fun toString(): String {
+            return "opens=$opens, readableDatabaseAccesses=$readableDatabaseAccesses, " +
+                "writableDatabaseAccesses=$writableDatabaseAccesses"
+        }
+    }
+
     companion object {
 
-        private val openHelpers = mutableMapOf<String, SQLiteOpenHelper>()
-        private val toClose = mutableListOf<SQLiteOpenHelper>()
+        private const val FILE_CHECK_INTERVAL = 1000L
 
-        @JvmStatic
-        fun cleanUp() {
-            val openHelpersToClear = mutableListOf<String>()
+        private val openHelpers = ConcurrentHashMap<String, SQLiteOpenHelper>()
+        private val lastFileChecks = ConcurrentHashMap<String, Long>()
+        private val toClose = ConcurrentLinkedQueue<SQLiteOpenHelper>()
+        private val metrics = ConcurrentHashMap<String, Metrics>()
 
-            openHelpers.forEach { (databasePath, openHelper) ->
-                if (!File(databasePath).exists()) {
-                    openHelper.close()
-                    openHelpersToClear.add(databasePath)
-                }
-            }
+        @JvmStatic
+        fun getMetrics(databasePath: String): Metrics {
+            return metrics.computeIfAbsent(databasePath) { Metrics() }
+        }
 
-            openHelpersToClear.forEach {
-                openHelpers.remove(it)
+        /**
+         * Closes connections to databases whose files have been deleted so they are recreated
+         * the next time they're accessed.
+         */
+        @JvmStatic
+        fun cleanUp() {
+            openHelpers.keys.filter { !File(it).exists() }.forEach { databasePath ->
+                lastFileChecks.remove(databasePath)
+                openHelpers.remove(databasePath)?.close()
             }
         }
 
         @JvmStatic
         fun closeAll() {
-            openHelpers.forEach { (_, openHelper) -> openHelper.close() }
-            openHelpers.clear()
+            openHelpers.keys.toList().forEach { databasePath ->
+                openHelpers.remove(databasePath)?.close()
+            }
+            lastFileChecks.clear()
 
-            toClose.forEach(SQLiteOpenHelper::close)
-            toClose.clear()
+            generateSequence { toClose.poll() }.forEach(SQLiteOpenHelper::close)
         }
     }
 }
 
 /**
  * [SQLiteOpenHelper] that delegates `onCreate`, `onUpdate`, `onDowngrade` to a [DatabaseMigrator].
+ *
+ * Databases are opened with write-ahead logging so that reads (from the UI for example) don't
+ * have to wait for writes from background work (like form updates or auto send) to finish.
  */
 private class DatabaseMigratorSQLiteOpenHelper(
     context: Context,
@@ -103,6 +183,10 @@ private class DatabaseMigratorSQLiteOpenHelper(
     private val databaseMigrator: DatabaseMigrator
 ) : SQLiteOpenHelper(context, name, cursorFactory, version) {
 
+    init {
+        setWriteAheadLoggingEnabled(true)
+    }
+
     override fun onCreate(db: SQLiteDatabase?) {
         databaseMigrator.onCreate(db)
     }
@@ -34,6 +34,7 @@ object DatabaseObjectMapper {
         values.put(DatabaseFormColumns.AUTO_DELETE, form.autoDelete)
         values.put(DatabaseFormColumns.GEOMETRY_XPATH, form.geometryXpath)
         values.put(DatabaseFormColumns.LAST_DETECTED_ATTACHMENTS_UPDATE_DATE, form.lastDetectedAttachmentsUpdateDate)
+        values.put(DatabaseFormColumns.PRE_WARMED, if (form.isPreWarmed) 1 else 0)
         return values
     }
 
@@ -71,6 +72,7 @@ object DatabaseObjectMapper {
             .geometryXpath(values.getAsString(DatabaseFormColumns.GEOMETRY_XPATH))
             .deleted(values.getAsLong(DatabaseFormColumns.DELETED_DATE) != null)
             .lastDetectedAttachmentsUpdateDate(values.getAsLong(DatabaseFormColumns.LAST_DETECTED_ATTACHMENTS_UPDATE_DATE))
+            .preWarmed(values.getAsInteger(DatabaseFormColumns.PRE_WARMED) == 1)
             .build()
     }
 
@@ -100,6 +102,7 @@ object DatabaseObjectMapper {
         val geometryXpathColumnIndex = cursor.getColumnIndex(DatabaseFormColumns.GEOMETRY_XPATH)
         val deletedDateColumnIndex = cursor.getColumnIndex(DatabaseFormColumns.DELETED_DATE)
         val lastDetectedAttachmentsUpdateDateColumnIndex = cursor.getColumnIndex(DatabaseFormColumns.LAST_DETECTED_ATTACHMENTS_UPDATE_DATE)
+        val preWarmedColumnIndex = cursor.getColumnIndex(DatabaseFormColumns.PRE_WARMED)
         return Form.Builder()
             .dbId(cursor.getLong(idColumnIndex))
             .displayName(cursor.getString(displayNameColumnIndex))
@@ -134,6 +137,7 @@ object DatabaseObjectMapper {
             .geometryXpath(cursor.getString(geometryXpathColumnIndex))
             .deleted(!cursor.isNull(deletedDateColumnIndex))
             .lastDetectedAttachmentsUpdateDate(if (cursor.isNull(lastDetectedAttachmentsUpdateDateColumnIndex)) null else cursor.getLong(lastDetectedAttachmentsUpdateDateColumnIndex))
+            .preWarmed(cursor.getInt(preWarmedColumnIndex) == 1)
             .build()
     }
 
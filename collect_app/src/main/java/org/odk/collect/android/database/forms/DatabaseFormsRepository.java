@@ -50,6 +50,7 @@ public class DatabaseFormsRepository implements FormsRepository {
     private final String formsPath;
     private final String cachePath;
     private final Supplier<Long> clock;
+    private final ThreadLocal<List<Form>> pendingFileDeletions = new ThreadLocal<>();
 
     public DatabaseFormsRepository(Context context, String dbPath, String formsPath, String cachePath, Supplier<Long> clock) {
         this.formsPath = formsPath;
@@ -204,6 +205,42 @@ public class DatabaseFormsRepository implements FormsRepository {
         updateForm(id, values);
     }
 
+    /**
+     * Files for forms deleted in {@code runnable} are only deleted once the transaction has been
+     * committed so that a rollback doesn't leave rows pointing at missing files.
+     */
+    @Override
+    public void runInTransaction(Runnable runnable) {
+        // Nested transactions leave the files for the outermost one to delete
+        boolean outermost = pendingFileDeletions.get() == null;
+        if (outermost) {
+            pendingFileDeletions.set(new ArrayList<>());
+        }
+
+        List<Form> deletedForms = pendingFileDeletions.get();
+        boolean successful = false;
+
+        SQLiteDatabase writeableDatabase = databaseConnection.getWriteableDatabase();
+        writeableDatabase.beginTransaction();
+        try {
+            runnable.run();
+            writeableDatabase.setTransactionSuccessful();
+            successful = true;
+        } finally {
+            if (outermost) {
+                pendingFileDeletions.remove();
+            }
+
+            writeableDatabase.endTransaction();
+        }
+
+        if (outermost && successful) {
+            for (Form form : deletedForms) {
+                deleteFilesForForm(form);
+            }
+        }
+    }
+
     public Cursor rawQuery(Map<String, String> projectionMap, String[] projection, String selection, String[] selectionArgs, String sortOrder, String groupBy) {
         return queryAndReturnCursor(projectionMap, projection, selection, selectionArgs, sortOrder, groupBy);
     }
@@ -247,8 +284,13 @@ public class DatabaseFormsRepository implements FormsRepository {
         StrictMode.noteSlowCall("Accessing readable DB");
 
         List<Form> forms = queryForForms(selection, selectionArgs);
-        for (Form form : forms) {
-            deleteFilesForForm(form);
+        List<Form> transactionDeletedForms = pendingFileDeletions.get();
+        if (transactionDeletedForms != null) {
+            transactionDeletedForms.addAll(forms);
+        } else {
+            for (Form form : forms) {
+                deleteFilesForForm(form);
+            }
         }
 
         SQLiteDatabase writeableDatabase = databaseConnection.getWriteableDatabase();
@@ -26,6 +26,7 @@ import static org.odk.collect.android.database.forms.DatabaseFormColumns.LANGUAG
 import static org.odk.collect.android.database.forms.DatabaseFormColumns.LAST_DETECTED_ATTACHMENTS_UPDATE_DATE;
 import static org.odk.collect.android.database.forms.DatabaseFormColumns.LAST_DETECTED_FORM_VERSION_HASH;
 import static org.odk.collect.android.database.forms.DatabaseFormColumns.MD5_HASH;
+import static org.odk.collect.android.database.forms.DatabaseFormColumns.PRE_WARMED;
 import static org.odk.collect.android.database.forms.DatabaseFormColumns.SUBMISSION_URI;
 
 import timber.log.Timber;
@@ -42,7 +43,8 @@ public class FormDatabaseMigrator implements DatabaseMigrator {
     private static final String MODEL_VERSION = "modelVersion";
 
     public void onCreate(SQLiteDatabase db) {
-        createFormsTableV12(db);
+        createFormsTableV13(db);
+        upgradeToVersion14(db);
     }
 
     @SuppressWarnings({"checkstyle:FallThrough"})
@@ -70,16 +72,21 @@ public class FormDatabaseMigrator implements DatabaseMigrator {
                 upgradeToVersion11(db);
             case 11:
                 upgradeToVersion12(db);
-                break;
             case 12:
+                upgradeToVersion13(db);
+            case 13:
+                upgradeToVersion14(db);
+                break;
+            case 14:
                 // Remember to bump the database version number in {@link org.odk.collect.android.database.DatabaseConstants}
-                // upgradeToVersion13(db);
+                // upgradeToVersion15(db);
         }
     }
 
     public void onDowngrade(SQLiteDatabase db) throws SQLException {
         SQLiteUtils.dropTable(db, FORMS_TABLE_NAME);
-        createFormsTableV12(db);
+        createFormsTableV13(db);
+        upgradeToVersion14(db);
     }
 
     private void upgradeToVersion2(SQLiteDatabase db) {
@@ -265,6 +272,19 @@ public class FormDatabaseMigrator implements DatabaseMigrator {
         SQLiteUtils.addColumn(db, FORMS_TABLE_NAME, LAST_DETECTED_ATTACHMENTS_UPDATE_DATE, "integer");
     }
 
+    private void upgradeToVersion13(SQLiteDatabase db) {
+        SQLiteUtils.addColumn(db, FORMS_TABLE_NAME, PRE_WARMED, "integer default 0");
+    }
+
+    /**
+     * Indexes the columns that {@link DatabaseFormsRepository} looks forms up by.
+     */
+    private void upgradeToVersion14(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS forms_form_id_version ON " + FORMS_TABLE_NAME + " (" + JR_FORM_ID + ", " + JR_VERSION + ");");
+        db.execSQL("CREATE INDEX IF NOT EXISTS forms_md5_hash ON " + FORMS_TABLE_NAME + " (" + MD5_HASH + ");");
+        db.execSQL("CREATE INDEX IF NOT EXISTS forms_form_file_path ON " + FORMS_TABLE_NAME + " (" + FORM_FILE_PATH + ");");
+    }
+
     private void createFormsTableV4(SQLiteDatabase db, String tableName) {
         db.execSQL("CREATE TABLE IF NOT EXISTS " + tableName + " ("
                 + _ID + " integer primary key, "
@@ -369,7 +389,7 @@ public class FormDatabaseMigrator implements DatabaseMigrator {
                 + DELETED_DATE + " integer);");
     }
 
-    private void createFormsTableV12(SQLiteDatabase db) {
+    private void createFormsTableV13(SQLiteDatabase db) {
         db.execSQL("CREATE TABLE IF NOT EXISTS " + FORMS_TABLE_NAME + " ("
                 + _ID + " integer primary key, "
                 + DISPLAY_NAME + " text not null, "
@@ -388,6 +408,7 @@ public class FormDatabaseMigrator implements DatabaseMigrator {
                 + AUTO_DELETE + " text, "
                 + GEOMETRY_XPATH + " text, "
                 + DELETED_DATE + " integer, "
-                + LAST_DETECTED_ATTACHMENTS_UPDATE_DATE + " integer);"); // milliseconds
+                + LAST_DETECTED_ATTACHMENTS_UPDATE_DATE + " integer, " // milliseconds
+                + PRE_WARMED + " integer default 0);");
     }
 }
@@ -3,19 +3,25 @@ package org.odk.collect.android.database.instances;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteQueryBuilder;
 import android.os.StrictMode;
 
 import org.odk.collect.android.database.DatabaseConnection;
 import org.odk.collect.android.database.DatabaseConstants;
+import org.odk.collect.forms.instances.FormVersion;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.forms.instances.InstancesRepository;
 import org.odk.collect.shared.files.DirectoryUtils;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.function.Supplier;
 
 import static android.provider.BaseColumns._ID;
@@ -40,6 +46,19 @@ import static org.odk.collect.shared.PathUtils.getRelativeFilePath;
  */
 public final class DatabaseInstancesRepository implements InstancesRepository {
 
+    /**
+     * Results of {@link #getLastStatusChangeDates()} for each (open) database. These are shared
+     * between repositories as a new one is created for every access and are cleared whenever
+     * instances are written.
+     */
+    private static final Map<SQLiteDatabase, Map<FormVersion, Long>> LAST_STATUS_CHANGE_DATES = new WeakHashMap<>();
+
+    /**
+     * Results of {@link #getCountsByStatus()} cached in the same way as
+     * {@link #LAST_STATUS_CHANGE_DATES}.
+     */
+    private static final Map<SQLiteDatabase, Map<String, Integer>> COUNTS_BY_STATUS = new WeakHashMap<>();
+
     private final DatabaseConnection databaseConnection;
     private final Supplier<Long> clock;
     private final String instancesPath;
@@ -109,8 +128,26 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
 
     @Override
     public int getCountByStatus(String... status) {
-        try (Cursor cursorForAllByStatus = getCursorForAllByStatus(status)) {
-            return cursorForAllByStatus.getCount();
+        return (int) DatabaseUtils.queryNumEntries(
+                databaseConnection.getReadableDatabase(),
+                INSTANCES_TABLE_NAME,
+                getSelectionForAllByStatus(status),
+                status
+        );
+    }
+
+    @Override
+    public Map<String, Integer> getCountsByStatus() {
+        SQLiteDatabase readableDatabase = databaseConnection.getReadableDatabase();
+
+        synchronized (COUNTS_BY_STATUS) {
+            Map<String, Integer> countsByStatus = COUNTS_BY_STATUS.get(readableDatabase);
+            if (countsByStatus == null) {
+                countsByStatus = Collections.unmodifiableMap(queryCountsByStatus(readableDatabase));
+                COUNTS_BY_STATUS.put(readableDatabase, countsByStatus);
+            }
+
+            return countsByStatus;
         }
     }
 
@@ -139,6 +176,21 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
         }
     }
 
+    @Override
+    public Map<FormVersion, Long> getLastStatusChangeDates() {
+        SQLiteDatabase readableDatabase = databaseConnection.getReadableDatabase();
+
+        synchronized (LAST_STATUS_CHANGE_DATES) {
+            Map<FormVersion, Long> lastStatusChangeDates = LAST_STATUS_CHANGE_DATES.get(readableDatabase);
+            if (lastStatusChangeDates == null) {
+                lastStatusChangeDates = Collections.unmodifiableMap(queryLastStatusChangeDates(readableDatabase));
+                LAST_STATUS_CHANGE_DATES.put(readableDatabase, lastStatusChangeDates);
+            }
+
+            return lastStatusChangeDates;
+        }
+    }
+
     @Override
     public void delete(Long id) {
         Instance instance = get(id);
@@ -148,6 +200,7 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
                 _ID + "=?",
                 new String[]{String.valueOf(id)}
         );
+        onInstancesChanged();
 
         deleteInstanceFiles(instance);
     }
@@ -161,6 +214,7 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
                 null,
                 null
         );
+        onInstancesChanged();
 
         for (Instance instance : instances) {
             deleteInstanceFiles(instance);
@@ -213,12 +267,16 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
     }
 
     private Cursor getCursorForAllByStatus(String[] status) {
+        return query(null, getSelectionForAllByStatus(status), status, null);
+    }
+
+    private static String getSelectionForAllByStatus(String[] status) {
         StringBuilder selection = new StringBuilder(STATUS + "=?");
         for (int i = 1; i < status.length; i++) {
             selection.append(" or ").append(STATUS).append("=?");
         }
 
-        return query(null, selection.toString(), status, null);
+        return selection.toString();
     }
 
     private Cursor query(String[] projection, String selection, String[] selectionArgs, String sortOrder) {
@@ -250,12 +308,51 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
         return qb.query(readableDatabase, projection, selection, selectionArgs, null, null, sortOrder);
     }
 
+    private Map<FormVersion, Long> queryLastStatusChangeDates(SQLiteDatabase readableDatabase) {
+        SQLiteQueryBuilder qb = new SQLiteQueryBuilder();
+        qb.setTables(INSTANCES_TABLE_NAME);
+
+        String[] projection = {JR_FORM_ID, JR_VERSION, "MAX(" + LAST_STATUS_CHANGE_DATE + ")"};
+        String groupBy = JR_FORM_ID + ", " + JR_VERSION;
+
+        Map<FormVersion, Long> lastStatusChangeDates = new HashMap<>();
+        try (Cursor cursor = qb.query(readableDatabase, projection, LAST_STATUS_CHANGE_DATE + " IS NOT NULL", null, groupBy, null, null)) {
+            while (cursor.moveToNext()) {
+                lastStatusChangeDates.put(
+                        new FormVersion(cursor.getString(0), cursor.getString(1)),
+                        cursor.getLong(2)
+                );
+            }
+        }
+
+        return lastStatusChangeDates;
+    }
+
+    private Map<String, Integer> queryCountsByStatus(SQLiteDatabase readableDatabase) {
+        SQLiteQueryBuilder qb = new SQLiteQueryBuilder();
+        qb.setTables(INSTANCES_TABLE_NAME);
+
+        String[] projection = {STATUS, "COUNT(*)"};
+
+        Map<String, Integer> countsByStatus = new HashMap<>();
+        try (Cursor cursor = qb.query(readableDatabase, projection, null, null, STATUS, null, null)) {
+            while (cursor.moveToNext()) {
+                countsByStatus.put(cursor.getString(0), cursor.getInt(1));
+            }
+        }
+
+        return countsByStatus;
+    }
+
     private long insert(ContentValues values) {
-        return databaseConnection.getWriteableDatabase().insertOrThrow(
+        long id = databaseConnection.getWriteableDatabase().insertOrThrow(
                 INSTANCES_TABLE_NAME,
                 null,
                 values
         );
+        onInstancesChanged();
+
+        return id;
     }
 
     private void update(Long instanceId, ContentValues values) {
@@ -265,6 +362,19 @@ public final class DatabaseInstancesRepository implements InstancesRepository {
                 _ID + "=?",
                 new String[]{instanceId.toString()}
         );
+        onInstancesChanged();
+    }
+
+    private void onInstancesChanged() {
+        SQLiteDatabase writeableDatabase = databaseConnection.getWriteableDatabase();
+
+        synchronized (LAST_STATUS_CHANGE_DATES) {
+            LAST_STATUS_CHANGE_DATES.remove(writeableDatabase);
+        }
+
+        synchronized (COUNTS_BY_STATUS) {
+            COUNTS_BY_STATUS.remove(writeableDatabase);
+        }
     }
 
     private void deleteInstanceFiles(Instance instance) {
@@ -0,0 +1,128 @@
+package org.odk.collect.android.dynamicpreload;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+
+import androidx.annotation.Nullable;
+
+import org.odk.collect.android.utilities.SQLiteUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import timber.log.Timber;
+
+/**
+ * Full-text index over an external data set so that search() doesn't have to scan the whole
+ * table for every query. The index is an FTS4 table using the "simple" tokenizer that refers
+ * back to the external data table for its content (so the data isn't stored twice).
+ * <p>
+ * The index is only ever used to narrow down the rows that the original LIKE expression is
+ * evaluated against so that results are exactly the same as without it. Callers build MATCH
+ * queries with {@link #getTokens(String)} that match a superset of the rows the LIKE expression
+ * would.
+ */
+public final class ExternalDataFullTextSearch {
+
+    public static final String FTS_TABLE_NAME = ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME + "_fts";
+
+    /**
+     * Data sets with fewer rows than this are quick enough to scan so don't get an index.
+     */
+    static final int MIN_ROWS_TO_INDEX = 1000;
+
+    private ExternalDataFullTextSearch() {
+
+    }
+
+    /**
+     * Builds the index for the given columns of the data table. Failures are logged rather than
+     * thrown as search still works (more slowly) without the index.
+     */
+    static void createIndex(SQLiteDatabase db, String tableName, List<String> columns) {
+        if (columns.isEmpty()) {
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder()
+                .append("CREATE VIRTUAL TABLE ")
+                .append(FTS_TABLE_NAME)
+                .append(" USING fts4(content=\"")
+                .append(tableName)
+                .append("\", ");
+
+        for (String column : columns) {
+            sql.append(column).append(", ");
+        }
+
+        // Prefix indexes speed up the "term*" queries used for startsWith
+        sql.append("prefix=\"1,2,3\", tokenize=simple);");
+
+        try {
+            db.execSQL("DROP TABLE IF EXISTS " + FTS_TABLE_NAME + ";");
+            db.execSQL(sql.toString());
+            db.execSQL("INSERT INTO " + FTS_TABLE_NAME + "(" + FTS_TABLE_NAME + ") VALUES('rebuild');");
+        } catch (SQLiteException e) {
+            Timber.w(e, "Unable to create full-text index for %s", tableName);
+            db.execSQL("DROP TABLE IF EXISTS " + FTS_TABLE_NAME + ";");
+        }
+    }
+
+    public static boolean isAvailable(SQLiteDatabase db) {
+        return SQLiteUtils.doesTableExist(db, FTS_TABLE_NAME);
+    }
+
+    /**
+     * Splits a value into tokens the same way the index's "simple" tokenizer does: ASCII
+     * characters other than letters and digits separate tokens and ASCII letters are lower
+     * cased (the same case folding LIKE does).
+     *
+     * @return the tokens or null if the value can't be searched using the index (because it
+     * includes LIKE wildcards)
+     */
+    @Nullable
+    public static List<String> getTokens(String value) {
+        if (value == null || value.contains("%") || value.contains("_")) {
+            return null;
+        }
+
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80 && !Character.isLetterOrDigit(c)) {
+                if (token.length() > 0) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                }
+            } else {
+                token.append(c < 0x80 ? Character.toLowerCase(c) : c);
+            }
+        }
+
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+
+        return tokens;
+    }
+
+    /**
+     * @param terms tokens that must be present in the column. Terms ending in "*" match any
+     *              token starting with the rest of the term.
+     * @return a MATCH expression that finds rows where the column contains all the terms
+     */
+    public static String getMatchExpression(String column, List<String> terms) {
+        StringBuilder expression = new StringBuilder();
+        for (String term : terms) {
+            if (expression.length() > 0) {
+                expression.append(' ');
+            }
+
+            expression.append(column.toLowerCase(Locale.ENGLISH)).append(':').append(term);
+        }
+
+        return expression.toString();
+    }
+}
@@ -19,9 +19,9 @@
 package org.odk.collect.android.dynamicpreload;
 
 import android.content.res.Resources;
-import android.database.sqlite.SQLiteDatabase;
 
 import org.apache.commons.io.FileUtils;
+import org.odk.collect.shared.strings.Md5;
 
 import java.io.File;
 import java.io.IOException;
@@ -64,9 +64,12 @@ public class ExternalDataReaderImpl implements ExternalDataReader {
     private boolean doImportDataSetAndContinue(String dataSetName, File dataSetFile) {
         File dbFile = new File(dataSetFile.getParentFile().getAbsolutePath(),
                 dataSetName + ".db");
+        String dataSetMd5 = Md5.getMd5Hash(dataSetFile);
         if (dbFile.exists()) {
             // Determine if we need to reimport
-            if (ExternalSQLiteOpenHelper.shouldUpdateDBforDataSet(dbFile, dataSetFile)) {
+            if (ExternalSQLiteOpenHelper.isImportInProgress(dbFile, dataSetMd5)) {
+                Timber.i("Resuming interrupted import of %s", dataSetFile.getName());
+            } else if (ExternalSQLiteOpenHelper.shouldUpdateDBforDataSet(dbFile, dataSetFile, dataSetMd5)) {
                 boolean deleted = dbFile.delete();
                 if (!deleted) {
                     Timber.e(new Error(dataSetFile.getName() + " has changed but we could not delete the previous DB at " + dbFile.getAbsolutePath()));
@@ -78,22 +81,15 @@ public class ExternalDataReaderImpl implements ExternalDataReader {
         }
         ExternalSQLiteOpenHelper externalSQLiteOpenHelper = new ExternalSQLiteOpenHelper(
                 dbFile);
-        externalSQLiteOpenHelper.importFromCSV(dataSetFile, this, isCancelled, progressReporter);
+        externalSQLiteOpenHelper.importFromCSV(dataSetFile, dataSetMd5, isCancelled, progressReporter);
 
         if (isCancelled.get()) {
             Timber.w(
                     "The import was cancelled, so we need to rollback.");
 
             // we need to drop the database file since it might be partially populated.
-            // It will be re-created next time.
-
-            Timber.w("Closing database to be deleted %s", dbFile.toString());
-
-            // then close the database
-            SQLiteDatabase db = externalSQLiteOpenHelper.getReadableDatabase();
-            db.close();
-
-            // the physically delete the db.
+            // It will be re-created next time. The import closes its connection when it
+            // finishes, so the file can be deleted straight away.
             try {
                 FileUtils.forceDelete(dbFile);
                 Timber.w("Deleted %s", dbFile.getName());
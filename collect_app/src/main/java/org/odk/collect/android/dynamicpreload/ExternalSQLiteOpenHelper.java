@@ -25,6 +25,7 @@ import android.content.res.Resources;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 
 import com.opencsv.CSVParserBuilder;
 import com.opencsv.CSVReader;
@@ -36,8 +37,8 @@ import org.odk.collect.android.exception.ExternalDataException;
 import org.odk.collect.android.utilities.CustomSQLiteQueryBuilder;
 import org.odk.collect.android.utilities.CustomSQLiteQueryExecutor;
 import org.odk.collect.android.utilities.SQLiteUtils;
-import org.odk.collect.shared.strings.Md5;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
@@ -63,63 +64,68 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
     private static final char QUOTE_CHAR = "\"".charAt(0);
     private static final char ESCAPE_CHAR = "\0".charAt(0);
 
+    private static final int READ_BUFFER_SIZE = 256 * 1024;
+    private static final int COMMIT_INTERVAL = 10_000;
+    static final String IMPORT_PROGRESS_TABLE_NAME = "externalDataImport";
+
+    private final File dbFile;
     private File dataSetFile;
-    private ExternalDataReader externalDataReader;
     private Supplier<Boolean> isCancelled;
     private Consumer<Function<Resources, String>> progressReporter;
 
     ExternalSQLiteOpenHelper(File dbFile) {
         super(new AltDatabasePathContext(dbFile.getParentFile().getAbsolutePath(), Collect.getInstance()), dbFile.getName(), null, VERSION);
+        this.dbFile = dbFile;
     }
 
-    void importFromCSV(File dataSetFile, ExternalDataReader externalDataReader,
+    /**
+     * Imports the data set on a connection of its own rather than in {@link #onCreate} so that
+     * rows can be committed in chunks. The database's version is only set once the import has
+     * finished so an interrupted import never looks like a complete one.
+     *
+     * @param dataSetMd5 the MD5 hash of the data set file
+     */
+    void importFromCSV(File dataSetFile, String dataSetMd5,
                        Supplier<Boolean> isCancelled, Consumer<Function<Resources, String>> progressReporter) {
         this.dataSetFile = dataSetFile;
-        this.externalDataReader = externalDataReader;
         this.isCancelled = isCancelled;
         this.progressReporter = progressReporter;
 
-        SQLiteDatabase writableDatabase = null;
-        try {
-            writableDatabase = getWritableDatabase();
-        } finally {
-            if (writableDatabase != null) {
-                writableDatabase.close();
-            }
-        }
-    }
-
-    @Override
-    public void onCreate(SQLiteDatabase db) {
-        if (externalDataReader == null) {
-            // this means that the function handler needed the database through calling
-            // getReadableDatabase() --> getWritableDatabase(),
-            // but this is not allowed, so just return;
-            Timber.e(new Error("The function handler triggered this external data population. This is not good."));
-            return;
-        }
-
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(dbFile, null);
         try {
-            if (shouldUpdateDBforDataSet(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, ExternalDataUtil.EXTERNAL_METADATA_TABLE_NAME, dataSetFile)) {
-                onCreateNamed(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME);
-                createAndPopulateMetadataTable(db, ExternalDataUtil.EXTERNAL_METADATA_TABLE_NAME, dataSetFile);
+            if (shouldUpdateDBforDataSet(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, ExternalDataUtil.EXTERNAL_METADATA_TABLE_NAME, dataSetFile, dataSetMd5)) {
+                onCreateNamed(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, dataSetMd5);
             }
         } catch (Exception e) {
             throw new ExternalDataException(
                     getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.ext_import_generic_error,
                             dataSetFile.getName(), e.getMessage()), e);
+        } finally {
+            db.close();
         }
     }
 
-    private void onCreateNamed(SQLiteDatabase db, String tableName) throws Exception {
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        // The data set's tables are created by importFromCSV, so this means that the function
+        // handler needed the database through calling getReadableDatabase() before it was
+        // imported. This is not allowed, so just return;
+        Timber.e(new Error("The function handler triggered this external data population. This is not good."));
+    }
+
+    private void onCreateNamed(SQLiteDatabase db, String tableName, String dataSetMd5) throws Exception {
         Timber.w("Reading data from '%s", dataSetFile.toString());
 
         onProgress(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.ext_import_progress_message,
                 dataSetFile.getName(), ""));
 
+        int importedRowCount = getImportedRowCount(db, tableName, dataSetMd5);
+
         CSVReader reader = null;
+        SQLiteStatement insertStatement = null;
+        db.beginTransaction();
         try {
-            reader = new CSVReaderBuilder(new FileReader(dataSetFile))
+            reader = new CSVReaderBuilder(new BufferedReader(new FileReader(dataSetFile), READ_BUFFER_SIZE))
                     .withCSVParser(new CSVParserBuilder()
                             .withSeparator(DELIMITING_CHAR)
                             .withQuoteChar(QUOTE_CHAR)
@@ -148,6 +154,11 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
             }
 
             Map<String, String> columnNamesCache = new HashMap<>();
+            List<String> textColumns = new ArrayList<>();
+
+            // the columns the insert statement binds, as indexes into the CSV's rows
+            List<String> insertColumns = new ArrayList<>();
+            List<Integer> insertColumnIndexes = new ArrayList<>();
 
             StringBuilder sb = new StringBuilder();
 
@@ -173,7 +184,11 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
                     sb.append(safeColumnName).append(" real ");
                 } else {
                     sb.append(safeColumnName).append(" text collate nocase ");
+                    textColumns.add(safeColumnName);
                 }
+
+                insertColumns.add(safeColumnName);
+                insertColumnIndexes.add(i);
             }
             if (!sortColumnAlreadyPresent) {
                 sb.append(", ");
@@ -183,8 +198,15 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
             sb.append(" );");
             String sql = sb.toString();
 
-            Timber.w("Creating database for %s with query: %s", dataSetFile, sql);
-            db.execSQL(sql);
+            if (importedRowCount == 0) {
+                Timber.w("Creating database for %s with query: %s", dataSetFile, sql);
+                db.execSQL("DROP TABLE IF EXISTS " + tableName + ";");
+                db.execSQL(sql);
+                db.execSQL("CREATE TABLE IF NOT EXISTS " + IMPORT_PROGRESS_TABLE_NAME + " (md5 text, rows integer);");
+                db.execSQL("DELETE FROM " + IMPORT_PROGRESS_TABLE_NAME + ";");
+            } else {
+                Timber.w("Resuming import of %s after %d rows", dataSetFile, importedRowCount);
+            }
 
             // create the indexes.
             // save the sql for later because inserts will be much faster if we don't have
@@ -192,16 +214,22 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
             List<String> createIndexesCommands = new ArrayList<>();
             for (String header : headerRow) {
                 if (header.endsWith("_key")) {
-                    String indexSQL = "CREATE INDEX " + header + "_idx ON " + tableName + " ("
+                    String indexSQL = "CREATE INDEX IF NOT EXISTS " + header + "_idx ON " + tableName + " ("
                             + ExternalDataUtil.toSafeColumnName(header, columnNamesCache) + ");";
                     createIndexesCommands.add(indexSQL);
                     Timber.w("Will create an index on %s later.", header);
                 }
             }
 
+            if (!sortColumnAlreadyPresent) {
+                insertColumns.add(ExternalDataUtil.SORT_COLUMN_NAME);
+            }
+            insertStatement = compileInsertStatement(db, tableName, insertColumns);
+
             // populate the database
             String[] row = reader.readNext();
             int rowCount = 0;
+            long start = System.currentTimeMillis();
             while (row != null && !isCancelled()) {
                 // SCTO-894 - first we should make sure that this is not an empty line
                 if (!ExternalDataUtil.containsAnyData(row)) {
@@ -210,6 +238,13 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
                     continue;
                 }
 
+                // skip the rows that were imported before the import was interrupted
+                if (rowCount < importedRowCount) {
+                    row = reader.readNext();
+                    rowCount++;
+                    continue;
+                }
+
                 // SCTO-894 - then check if the row contains less values than the header
                 // we should not ignore the existing values in the row,
                 // we will just fill up the rest with empty strings
@@ -217,38 +252,42 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
                     row = ExternalDataUtil.fillUpNullValues(row, headerRow);
                 }
 
-                ContentValues values = new ContentValues();
-                if (!sortColumnAlreadyPresent) {
-                    values.put(ExternalDataUtil.SORT_COLUMN_NAME, rowCount + 1);
-                }
-
-                for (int i = 0; i < row.length && i < headerRow.length; i++) {
-                    String columnName = headerRow[i].trim();
-                    String columnValue = row[i];
-                    if (columnName.length() == 0) {
-                        continue;
-                    }
-                    String safeColumnName = ExternalDataUtil.toSafeColumnName(columnName,
-                            columnNamesCache);
-                    if (safeColumnName.equals(ExternalDataUtil.SORT_COLUMN_NAME)) {
+                insertStatement.clearBindings();
+                for (int i = 0; i < insertColumnIndexes.size(); i++) {
+                    String columnValue = row[insertColumnIndexes.get(i)];
+                    if (insertColumns.get(i).equals(ExternalDataUtil.SORT_COLUMN_NAME)) {
                         try {
-                            values.put(safeColumnName, Double.parseDouble(columnValue));
-                        } catch (NumberFormatException e) {
+                            insertStatement.bindDouble(i + 1, Double.parseDouble(columnValue));
+                        } catch (NumberFormatException | NullPointerException e) {
                             throw new ExternalDataException(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.ext_sortBy_numeric_error, columnValue));
                         }
-                    } else {
-                        values.put(safeColumnName, columnValue);
+                    } else if (columnValue != null) {
+                        insertStatement.bindString(i + 1, columnValue);
                     }
                 }
-                db.insertOrThrow(tableName, null, values);
+                if (!sortColumnAlreadyPresent) {
+                    insertStatement.bindDouble(insertColumns.size(), rowCount + 1);
+                }
+                insertStatement.executeInsert();
+
                 row = reader.readNext();
                 rowCount++;
-                if (rowCount % 100 == 0) {
+
+                if (rowCount % COMMIT_INTERVAL == 0) {
+                    commitImportedRows(db, dataSetMd5, rowCount);
+                }
+
+                if (rowCount % 1000 == 0) {
                     onProgress(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.ext_import_progress_message,
                             dataSetFile.getName(), " (" + rowCount + " records so far)"));
                 }
             }
 
+            long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+            int insertedRowCount = rowCount - importedRowCount;
+            Timber.i("Imported %d rows from %s in %d ms (%d rows/second)", insertedRowCount,
+                    dataSetFile.getName(), elapsed, insertedRowCount * 1000L / elapsed);
+
             if (isCancelled()) {
                 Timber.w("User canceled reading data from %s", dataSetFile.toString());
                 onProgress(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.ext_import_cancelled_message));
@@ -262,10 +301,27 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
                     db.execSQL(createIndexCommand);
                 }
 
+                if (rowCount >= ExternalDataFullTextSearch.MIN_ROWS_TO_INDEX) {
+                    Timber.w("Creating full-text index for %s", dataSetFile.toString());
+                    ExternalDataFullTextSearch.createIndex(db, tableName, textColumns);
+                }
+
+                db.execSQL("DROP TABLE IF EXISTS " + IMPORT_PROGRESS_TABLE_NAME + ";");
+                createAndPopulateMetadataTable(db, ExternalDataUtil.EXTERNAL_METADATA_TABLE_NAME, dataSetFile, dataSetMd5);
+                db.setVersion(VERSION);
+
                 Timber.w("Read all data from %s", dataSetFile.toString());
                 onProgress(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.ext_import_completed_message));
             }
+
+            db.setTransactionSuccessful();
         } finally {
+            db.endTransaction();
+
+            if (insertStatement != null) {
+                insertStatement.close();
+            }
+
             if (reader != null) {
                 try {
                     reader.close();
@@ -276,13 +332,74 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
         }
     }
 
+    private static SQLiteStatement compileInsertStatement(SQLiteDatabase db, String tableName, List<String> columns) {
+        StringBuilder names = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (String column : columns) {
+            if (names.length() > 0) {
+                names.append(", ");
+                values.append(", ");
+            }
+
+            names.append(column);
+            values.append('?');
+        }
+
+        return db.compileStatement("INSERT INTO " + tableName + " (" + names + ") VALUES (" + values + ");");
+    }
+
+    /**
+     * Commits the rows imported so far (along with how many there are) so that an import that is
+     * interrupted (by the app being killed for example) can carry on from there rather than
+     * starting again.
+     */
+    private static void commitImportedRows(SQLiteDatabase db, String dataSetMd5, int rowCount) {
+        ContentValues values = new ContentValues();
+        values.put("md5", dataSetMd5);
+        values.put("rows", rowCount);
+
+        db.delete(IMPORT_PROGRESS_TABLE_NAME, null, null);
+        db.insertOrThrow(IMPORT_PROGRESS_TABLE_NAME, null, values);
+
+        db.setTransactionSuccessful();
+        db.endTransaction();
+        db.beginTransaction();
+    }
+
+    /**
+     * @return the number of rows of the data set that were imported by a previous (interrupted)
+     * import, or 0 if it needs to be imported from the start
+     */
+    private static int getImportedRowCount(SQLiteDatabase db, String tableName, String dataSetMd5) {
+        if (dataSetMd5 == null || !SQLiteUtils.doesTableExist(db, tableName) || !SQLiteUtils.doesTableExist(db, IMPORT_PROGRESS_TABLE_NAME)) {
+            return 0;
+        }
+
+        try (Cursor cursor = db.query(IMPORT_PROGRESS_TABLE_NAME, new String[]{"rows"}, "md5=?", new String[]{dataSetMd5}, null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    /**
+     * @return whether the database contains a partial import of the current version of the data
+     * set that can be resumed
+     */
+    static boolean isImportInProgress(File dbFile, String dataSetMd5) {
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            return getImportedRowCount(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, dataSetMd5) > 0;
+        } finally {
+            db.close();
+        }
+    }
+
     protected boolean isCancelled() {
         return isCancelled.get();
     }
 
     // Create a metadata table with a single column that keeps track of the date of the last import
     // of this data set.
-    static void createAndPopulateMetadataTable(SQLiteDatabase db, String metadataTableName, File dataSetFile) {
+    static void createAndPopulateMetadataTable(SQLiteDatabase db, String metadataTableName, File dataSetFile, String dataSetMd5) {
         final String dataSetFilenameColumn = CustomSQLiteQueryBuilder.quoteIdentifier(ExternalDataUtil.COLUMN_DATASET_FILENAME);
         final String md5HashColumn = CustomSQLiteQueryBuilder.quoteIdentifier(ExternalDataUtil.COLUMN_MD5_HASH);
 
@@ -294,7 +411,7 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
 
         ContentValues metadata = new ContentValues();
         metadata.put(ExternalDataUtil.COLUMN_DATASET_FILENAME, dataSetFile.getName());
-        metadata.put(ExternalDataUtil.COLUMN_MD5_HASH, Md5.getMd5Hash(dataSetFile));
+        metadata.put(ExternalDataUtil.COLUMN_MD5_HASH, dataSetMd5);
         db.insertOrThrow(metadataTableName, null, metadata);
     }
 
@@ -316,12 +433,16 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
         return lastImportMd5;
     }
 
-    static boolean shouldUpdateDBforDataSet(File dbFile, File dataSetFile) {
+    static boolean shouldUpdateDBforDataSet(File dbFile, File dataSetFile, String dataSetMd5) {
         SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getPath(), null, SQLiteDatabase.OPEN_READONLY);
-        return shouldUpdateDBforDataSet(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, ExternalDataUtil.EXTERNAL_METADATA_TABLE_NAME, dataSetFile);
+        try {
+            return shouldUpdateDBforDataSet(db, ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, ExternalDataUtil.EXTERNAL_METADATA_TABLE_NAME, dataSetFile, dataSetMd5);
+        } finally {
+            db.close();
+        }
     }
 
-    static boolean shouldUpdateDBforDataSet(SQLiteDatabase db, String dataTableName, String metadataTableName, File dataSetFile) {
+    static boolean shouldUpdateDBforDataSet(SQLiteDatabase db, String dataTableName, String metadataTableName, File dataSetFile, String dataSetMd5) {
         if (!SQLiteUtils.doesTableExist(db, dataTableName)) {
             return true;
         }
@@ -330,8 +451,7 @@ public class ExternalSQLiteOpenHelper extends SQLiteOpenHelper {
         }
         // Import if the CSV file has been updated
         String priorImportMd5 = getLastMd5Hash(db, metadataTableName, dataSetFile);
-        String newFileMd5 = Md5.getMd5Hash(dataSetFile);
-        return newFileMd5 == null || !newFileMd5.equals(priorImportMd5);
+        return dataSetMd5 == null || !dataSetMd5.equals(priorImportMd5);
     }
 
     @Override
@@ -26,6 +26,7 @@ import org.javarosa.core.model.condition.EvaluationContext;
 import org.javarosa.xpath.expr.XPathFuncExpr;
 import org.odk.collect.android.application.Collect;
 import org.odk.collect.android.exception.ExternalDataException;
+import org.odk.collect.android.dynamicpreload.ExternalDataFullTextSearch;
 import org.odk.collect.android.dynamicpreload.ExternalDataManager;
 import org.odk.collect.android.dynamicpreload.ExternalDataUtil;
 import org.odk.collect.android.dynamicpreload.ExternalSQLiteOpenHelper;
@@ -179,6 +180,26 @@ public class ExternalDataHandlerSearch extends ExternalDataHandlerBase {
                 selectionArgs = null;
             }
 
+            if (searchRows && ExternalDataFullTextSearch.isAvailable(db)) {
+                List<String> terms = externalDataSearchType.constructFullTextTerms(
+                        ExternalDataFullTextSearch.getTokens(queriedValue));
+
+                // Only look at rows the index says could match rather than scanning the table
+                if (terms != null) {
+                    selection = createFullTextExpression(queriedColumns) + " AND ( " + selection + " )";
+
+                    String[] fullTextArgs = new String[queriedColumns.size()];
+                    for (int i = 0; i < queriedColumns.size(); i++) {
+                        fullTextArgs[i] = ExternalDataFullTextSearch.getMatchExpression(queriedColumns.get(i), terms);
+                    }
+
+                    String[] likeArgs = selectionArgs;
+                    selectionArgs = new String[fullTextArgs.length + likeArgs.length];
+                    System.arraycopy(fullTextArgs, 0, selectionArgs, 0, fullTextArgs.length);
+                    System.arraycopy(likeArgs, 0, selectionArgs, fullTextArgs.length, likeArgs.length);
+                }
+            }
+
             try {
                 c = db.query(ExternalDataUtil.EXTERNAL_DATA_TABLE_NAME, sqlColumns, selection,
                         selectionArgs, null, null, ExternalDataUtil.SORT_COLUMN_NAME);
@@ -252,6 +273,18 @@ public class ExternalDataHandlerSearch extends ExternalDataHandlerBase {
         return sb.toString();
     }
 
+    protected String createFullTextExpression(List<String> queriedColumns) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < queriedColumns.size(); i++) {
+            if (sb.length() > 0) {
+                sb.append(" UNION ");
+            }
+            sb.append("SELECT docid FROM ").append(ExternalDataFullTextSearch.FTS_TABLE_NAME)
+                    .append(" WHERE ").append(ExternalDataFullTextSearch.FTS_TABLE_NAME).append(" MATCH ?");
+        }
+        return "rowid IN ( " + sb + " )";
+    }
+
     /**
      * So here are examples of labels with one, two, and three columns:
      * <p/>
@@ -18,6 +18,9 @@
 
 package org.odk.collect.android.dynamicpreload.handler;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Author: Meletis Margaritis
  * Date: 20/05/13
@@ -30,6 +33,17 @@ enum ExternalDataSearchType {
         protected String getSingleLikeArgument(String queriedValue) {
             return '%' + queriedValue + '%';
         }
+
+        @Override
+        protected List<String> getFullTextTerms(List<String> tokens) {
+            // The first token could be the end of a longer one and a single token could be
+            // anywhere within a value so the index can't help
+            if (tokens.size() < 2) {
+                return null;
+            }
+
+            return withLastAsPrefix(tokens.subList(1, tokens.size()));
+        }
     },
 
     MATCHES("matches") {
@@ -37,6 +51,11 @@ enum ExternalDataSearchType {
         protected String getSingleLikeArgument(String queriedValue) {
             return queriedValue;
         }
+
+        @Override
+        protected List<String> getFullTextTerms(List<String> tokens) {
+            return tokens;
+        }
     },
 
     STARTS("startsWith") {
@@ -44,6 +63,11 @@ enum ExternalDataSearchType {
         protected String getSingleLikeArgument(String queriedValue) {
             return queriedValue + '%';
         }
+
+        @Override
+        protected List<String> getFullTextTerms(List<String> tokens) {
+            return withLastAsPrefix(tokens);
+        }
     },
 
     ENDS("endsWith") {
@@ -51,6 +75,15 @@ enum ExternalDataSearchType {
         protected String getSingleLikeArgument(String queriedValue) {
             return '%' + queriedValue;
         }
+
+        @Override
+        protected List<String> getFullTextTerms(List<String> tokens) {
+            if (tokens.size() < 2) {
+                return null;
+            }
+
+            return tokens.subList(1, tokens.size());
+        }
     };
 
     private final String keyword;
@@ -85,5 +118,26 @@ enum ExternalDataSearchType {
         return args;
     }
 
+    /**
+     * @param tokens the queried value split up with {@link org.odk.collect.android.dynamicpreload.ExternalDataFullTextSearch#getTokens(String)}
+     * @return full-text terms that match every value the LIKE argument would (and possibly more)
+     * or null if the full-text index can't narrow down the search
+     */
+    public List<String> constructFullTextTerms(List<String> tokens) {
+        if (tokens == null || tokens.isEmpty()) {
+            return null;
+        }
+
+        return getFullTextTerms(tokens);
+    }
+
     protected abstract String getSingleLikeArgument(String queriedValue);
+
+    protected abstract List<String> getFullTextTerms(List<String> tokens);
+
+    private static List<String> withLastAsPrefix(List<String> tokens) {
+        List<String> terms = new ArrayList<>(tokens);
+        terms.set(terms.size() - 1, terms.get(terms.size() - 1) + "*");
+        return terms;
+    }
 }
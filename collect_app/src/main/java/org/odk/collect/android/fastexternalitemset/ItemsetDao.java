@@ -55,26 +55,7 @@ public class ItemsetDao {
             // name of the itemset table for this form
             String pathHash = ItemsetDbAdapter.getMd5FromString(itemsetFile.getAbsolutePath());
             try {
-                String selection = "name=?";
-                String[] selectionArgs = {itemName};
-
-                Cursor c = adapter.query(pathHash, selection, selectionArgs);
-                if (c != null) {
-                    c.move(-1);
-                    while (c.moveToNext()) {
-                        // apparently you only need the double quotes in the
-                        // column name when creating the column with a : included
-                        String labelLang = "label" + "::" + language;
-                        int langCol = c.getColumnIndex(labelLang);
-                        if (langCol == -1) {
-                            itemLabel = c.getString(c.getColumnIndex("label"));
-                        } else {
-                            itemLabel = c.getString(c.getColumnIndex(labelLang));
-                        }
-
-                    }
-                    c.close();
-                }
+                itemLabel = adapter.getItemLabel(pathHash, itemName, language);
             } catch (SQLiteException e) {
                 Timber.i(e);
             } finally {
@@ -218,31 +199,37 @@ public class ItemsetDao {
     }
 
     private List<SelectChoice> getItemsFromDatabase(String selection, String[] selectionArgs, FormController formController, ItemsetDbAdapter adapter) throws FileNotFoundException {
-        List<SelectChoice> items = new ArrayList<>();
+        List<SelectChoice> items;
 
         File itemsetFile = getItemsetFile(formController.getMediaFolder().getAbsolutePath());
 
         if (itemsetFile.exists()) {
-            adapter.open();
-
             // name of the itemset table for this form
             String pathHash = ItemsetDbAdapter.getMd5FromString(itemsetFile.getAbsolutePath());
+
+            // try to get the value associated with the label:lang
+            // string if that doen't exist, then just use label
+            String lang = "";
+            if (formController.getLanguages() != null && formController.getLanguages().length > 0) {
+                lang = formController.getLanguage();
+            }
+
+            String cacheKey = ItemsetDbAdapter.getItemsCacheKey(pathHash, selection, selectionArgs, lang);
+            List<String[]> cachedItems = ItemsetDbAdapter.getCachedItems(cacheKey);
+            if (cachedItems != null) {
+                return toSelectChoices(cachedItems);
+            }
+
+            List<String[]> labelsAndValues = new ArrayList<>();
+            adapter.open();
             try {
                 Cursor c = adapter.query(pathHash, selection, selectionArgs);
                 if (c != null) {
                     c.move(-1);
-                    int index = 0;
                     while (c.moveToNext()) {
                         String label;
                         String val;
 
-                        // try to get the value associated with the label:lang
-                        // string if that doen't exist, then just use label
-                        String lang = "";
-                        if (formController.getLanguages() != null && formController.getLanguages().length > 0) {
-                            lang = formController.getLanguage();
-                        }
-
                         // apparently you only need the double quotes in the
                         // column name when creating the column with a : included
                         String labelLang = "label" + "::" + lang;
@@ -254,24 +241,37 @@ public class ItemsetDao {
                         }
 
                         val = c.getString(c.getColumnIndex("name"));
-                        SelectChoice selectChoice = new SelectChoice(null, label, val, false);
-                        selectChoice.setIndex(index);
-                        items.add(selectChoice);
-                        index++;
+                        labelsAndValues.add(new String[]{label, val});
                     }
                     c.close();
                 }
+
+                ItemsetDbAdapter.cacheItems(cacheKey, labelsAndValues);
             } catch (SQLiteException e) {
                 Timber.i(e);
             } finally {
                 adapter.close();
             }
+
+            items = toSelectChoices(labelsAndValues);
         } else {
             throw new FileNotFoundException(itemsetFile.getAbsolutePath());
         }
         return items;
     }
 
+    private List<SelectChoice> toSelectChoices(List<String[]> labelsAndValues) {
+        // Choices are created every time as callers are free to modify them
+        List<SelectChoice> items = new ArrayList<>();
+        for (int i = 0; i < labelsAndValues.size(); i++) {
+            String[] labelAndValue = labelsAndValues.get(i);
+            SelectChoice selectChoice = new SelectChoice(null, labelAndValue[0], labelAndValue[1], false);
+            selectChoice.setIndex(i);
+            items.add(selectChoice);
+        }
+        return items;
+    }
+
     public File getItemsetFile(String mediaFolderPath) {
         return new File(mediaFolderPath + "/itemsets.csv");
     }
@@ -4,7 +4,13 @@ import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import org.odk.collect.android.application.Collect;
 import org.odk.collect.android.database.AltDatabasePathContext;
@@ -13,15 +19,36 @@ import org.odk.collect.android.storage.StorageSubdirectory;
 import org.odk.collect.shared.PathUtils;
 
 import java.io.Closeable;
+import java.io.File;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import timber.log.Timber;
 
+/**
+ * Access to the fast external itemsets database. Adapters share a single long-lived connection
+ * per database file (which is reference counted by {@link #open()} and {@link #close()}) so
+ * that lookups from hierarchy views and cascading selects don't pay for opening the database
+ * every time.
+ */
 public class ItemsetDbAdapter implements Closeable {
 
-    private DatabaseHelper dbHelper;
+    /**
+     * Results of recent item queries (keyed by table, selection, arguments and language) so
+     * that screens re-rendering the same cascading select don't need to hit the database again.
+     * Cleared whenever an itemset table changes.
+     */
+    private static final LruCache<String, List<String[]>> ITEMS_CACHE = new LruCache<>(50);
+
+    private static final Map<String, SharedConnection> CONNECTIONS = new HashMap<>();
+
+    private SharedConnection connection;
     private SQLiteDatabase db;
 
     public static final String DATABASE_NAME = "itemsets.db";
@@ -42,8 +69,8 @@ public class ItemsetDbAdapter implements Closeable {
      * This class helps open, create, and upgrade the database file.
      */
     private static class DatabaseHelper extends SQLiteOpenHelper {
-        DatabaseHelper() {
-            super(new AltDatabasePathContext(new StoragePathProvider().getOdkDirPath(StorageSubdirectory.METADATA), Collect.getInstance()), DATABASE_NAME, null, DATABASE_VERSION);
+        DatabaseHelper(String metadataPath) {
+            super(new AltDatabasePathContext(metadataPath, Collect.getInstance()), DATABASE_NAME, null, DATABASE_VERSION);
         }
 
         @Override
@@ -83,14 +110,63 @@ public class ItemsetDbAdapter implements Closeable {
      * @throws SQLException if the database could be neither opened or created
      */
     public ItemsetDbAdapter open() throws SQLException {
-        dbHelper = new DatabaseHelper();
-        db = dbHelper.getWritableDatabase();
+        String metadataPath = new StoragePathProvider().getOdkDirPath(StorageSubdirectory.METADATA);
+        String databasePath = metadataPath + File.separator + DATABASE_NAME;
+
+        synchronized (CONNECTIONS) {
+            connection = CONNECTIONS.get(databasePath);
+            if (connection == null) {
+                connection = new SharedConnection(new DatabaseHelper(metadataPath));
+                CONNECTIONS.put(databasePath, connection);
+            }
+
+            connection.references++;
+        }
+
+        try {
+            db = connection.helper.getWritableDatabase();
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+
         return this;
     }
 
     @Override
     public void close() {
-        dbHelper.close();
+        if (connection == null) {
+            return;
+        }
+
+        synchronized (CONNECTIONS) {
+            connection.references--;
+            if (connection.references == 0 && connection.closeWhenUnused) {
+                connection.close();
+            }
+        }
+
+        connection = null;
+        db = null;
+    }
+
+    /**
+     * Closes the shared connections (once they are no longer in use) so that the database files
+     * can be deleted. Adapters opened after this get a new connection.
+     */
+    public static void closeAll() {
+        synchronized (CONNECTIONS) {
+            for (SharedConnection connection : CONNECTIONS.values()) {
+                connection.closeWhenUnused = true;
+                if (connection.references == 0) {
+                    connection.close();
+                }
+            }
+
+            CONNECTIONS.clear();
+        }
+
+        ITEMS_CACHE.evictAll();
     }
 
     public boolean createTable(String formHash, String pathHash, String[] columns, String path) {
@@ -116,6 +192,8 @@ public class ItemsetDbAdapter implements Closeable {
         }
         sb.append(");");
 
+        clearCaches();
+
         String tableCreate = sb.toString();
         Timber.i("create string: %s", tableCreate);
         db.execSQL(tableCreate);
@@ -128,26 +206,95 @@ public class ItemsetDbAdapter implements Closeable {
         return true;
     }
 
-    public boolean addRow(String tableName, String[] columns, String[] newRow) {
-        ContentValues cv = new ContentValues();
+    /**
+     * @return a statement for inserting rows into the table with {@link #addRow(SQLiteStatement, String[], String[])}
+     */
+    public SQLiteStatement compileInsertStatement(String tableName, String[] columns) {
+        StringBuilder names = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (String column : columns) {
+            if (!column.isEmpty()) {
+                if (names.length() > 0) {
+                    names.append(", ");
+                    values.append(", ");
+                }
 
-        // rows don't necessarily use all the columns
-        // but a column is guaranteed to exist for a row (or else blow up)
-        for (int i = 0; i < newRow.length; i++) {
+                names.append('"').append(column).append('"');
+                values.append('?');
+            }
+        }
+
+        return db.compileStatement("INSERT INTO " + DATABASE_TABLE + tableName
+                + " (" + names + ") VALUES (" + values + ");");
+    }
+
+    public void addRow(SQLiteStatement insertStatement, String[] columns, String[] newRow) {
+        insertStatement.clearBindings();
+
+        // rows don't necessarily use all the columns so any that are missing are left null
+        int index = 1;
+        for (int i = 0; i < columns.length; i++) {
             if (!columns[i].isEmpty()) {
-                cv.put("\"" + columns[i] + "\"", newRow[i]);
+                if (i < newRow.length && newRow[i] != null) {
+                    insertStatement.bindString(index, newRow[i]);
+                }
+
+                index++;
             }
         }
-        db.insert(DATABASE_TABLE + tableName, null, cv);
-        return true;
+
+        insertStatement.executeInsert();
+    }
+
+    /**
+     * Creates an index (if there isn't one already) over the given columns of the table. Columns
+     * that the table doesn't have are left out.
+     */
+    public void createIndex(String tableName, List<String> columns) {
+        List<String> tableColumns = getColumns(tableName);
+
+        StringBuilder indexedColumns = new StringBuilder();
+        for (String column : columns) {
+            if (tableColumns.contains(column)) {
+                if (indexedColumns.length() > 0) {
+                    indexedColumns.append(", ");
+                }
+
+                indexedColumns.append('"').append(column).append('"');
+            }
+        }
+
+        if (indexedColumns.length() == 0) {
+            return;
+        }
+
+        String indexName = DATABASE_TABLE + tableName + "_" + getMd5FromString(indexedColumns.toString());
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + indexName + " ON " + DATABASE_TABLE + tableName
+                + " (" + indexedColumns + ");");
+    }
+
+    @VisibleForTesting
+    SQLiteDatabase getDatabase() {
+        return db;
     }
 
     public void beginTransaction() {
-        db.execSQL("BEGIN");
+        // The connection is shared so use SQLiteDatabase's transactions rather than a raw BEGIN
+        // which would leave other users of the connection inside it
+        db.beginTransaction();
     }
 
     public void commit() {
-        db.execSQL("COMMIT");
+        db.setTransactionSuccessful();
+        db.endTransaction();
+    }
+
+    /**
+     * Ends the transaction started with {@link #beginTransaction()} without keeping any of the
+     * changes made in it.
+     */
+    public void rollback() {
+        db.endTransaction();
     }
 
     public Cursor query(String hash, String selection, String[] selectionArgs) throws SQLException {
@@ -155,7 +302,61 @@ public class ItemsetDbAdapter implements Closeable {
                 null, null, null, null);
     }
 
+    /**
+     * @return the label (in the given language if the itemset has a label for it) of the last
+     * item with the given name or null if there isn't one
+     */
+    @Nullable
+    public String getItemLabel(String hash, String itemName, String language) throws SQLException {
+        String labelColumn = "label" + "::" + language;
+        if (!getColumns(hash).contains(labelColumn)) {
+            labelColumn = "label";
+        }
+
+        String sql = "SELECT \"" + labelColumn + "\" FROM " + DATABASE_TABLE + hash
+                + " WHERE name=? ORDER BY _id DESC LIMIT 1";
+
+        SQLiteStatement statement;
+        synchronized (connection) {
+            statement = connection.statements.get(sql);
+            if (statement == null) {
+                statement = db.compileStatement(sql);
+                connection.statements.put(sql, statement);
+            }
+        }
+
+        synchronized (statement) {
+            try {
+                statement.bindString(1, itemName);
+                return statement.simpleQueryForString();
+            } catch (SQLiteDoneException e) {
+                return null;
+            } finally {
+                statement.clearBindings();
+            }
+        }
+    }
+
+    /**
+     * @return the items previously stored with {@link #cacheItems(String, List)} or null if
+     * they have been evicted or the itemsets have changed since
+     */
+    @Nullable
+    public static List<String[]> getCachedItems(String key) {
+        return ITEMS_CACHE.get(key);
+    }
+
+    public static void cacheItems(String key, List<String[]> items) {
+        ITEMS_CACHE.put(key, items);
+    }
+
+    public static String getItemsCacheKey(String hash, String selection, String[] selectionArgs, String language) {
+        return hash + "|" + selection + "|" + Arrays.toString(selectionArgs) + "|" + language;
+    }
+
     public void dropTable(String pathHash, String path) {
+        clearCaches();
+
         // drop the table
         db.execSQL("DROP TABLE IF EXISTS " + DATABASE_TABLE + pathHash);
 
@@ -184,6 +385,8 @@ public class ItemsetDbAdapter implements Closeable {
     }
 
     public void delete(String path) {
+        clearCaches();
+
         StoragePathProvider storagePathProvider = new StoragePathProvider();
         Cursor c = getItemsets(path);
         if (c != null) {
@@ -202,6 +405,30 @@ public class ItemsetDbAdapter implements Closeable {
         db.delete(ITEMSET_TABLE, where, whereArgs);
     }
 
+    private List<String> getColumns(String hash) {
+        synchronized (connection) {
+            List<String> columns = connection.columns.get(hash);
+            if (columns == null) {
+                try (Cursor c = db.rawQuery("SELECT * FROM " + DATABASE_TABLE + hash + " LIMIT 0", null)) {
+                    columns = new ArrayList<>(Arrays.asList(c.getColumnNames()));
+                }
+
+                connection.columns.put(hash, columns);
+            }
+
+            return columns;
+        }
+    }
+
+    private void clearCaches() {
+        synchronized (connection) {
+            connection.closeStatements();
+            connection.columns.clear();
+        }
+
+        ITEMS_CACHE.evictAll();
+    }
+
     public static String getMd5FromString(String toEncode) {
         MessageDigest md;
         try {
@@ -216,4 +443,30 @@ public class ItemsetDbAdapter implements Closeable {
         BigInteger bigInt = new BigInteger(1, digest);
         return bigInt.toString(16);
     }
+
+    private static class SharedConnection {
+        final DatabaseHelper helper;
+        final Map<String, SQLiteStatement> statements = new HashMap<>();
+        final Map<String, List<String>> columns = new HashMap<>();
+        int references;
+        boolean closeWhenUnused;
+
+        SharedConnection(DatabaseHelper helper) {
+            this.helper = helper;
+        }
+
+        synchronized void closeStatements() {
+            for (SQLiteStatement statement : statements.values()) {
+                statement.close();
+            }
+
+            statements.clear();
+        }
+
+        synchronized void close() {
+            closeStatements();
+            columns.clear();
+            helper.close();
+        }
+    }
 }
@@ -0,0 +1,259 @@
+package org.odk.collect.android.fastexternalitemset;
+
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.Nullable;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+import org.javarosa.core.model.FormDef;
+import org.javarosa.core.model.IFormElement;
+import org.javarosa.core.model.QuestionDef;
+import org.javarosa.xpath.expr.XPathBoolExpr;
+import org.javarosa.xpath.expr.XPathEqExpr;
+import org.javarosa.xpath.expr.XPathExpression;
+import org.javarosa.xpath.expr.XPathPathExpr;
+import org.javarosa.xpath.expr.XPathStep;
+import org.javarosa.xpath.parser.XPathSyntaxException;
+import org.odk.collect.shared.strings.Md5;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import timber.log.Timber;
+
+/**
+ * Imports a form's itemsets.csv into the fast external itemsets database. The import is skipped
+ * if the database already contains the current version of the file so this can safely be run
+ * every time the form is loaded.
+ * <p>
+ * The columns that the form's itemset questions filter on (in their "query" attribute) are
+ * indexed so that looking up choices doesn't need to scan the whole table.
+ */
+public final class ItemsetsCsvImporter {
+
+    public static final String ITEMSETS_CSV = "itemsets.csv";
+
+    private ItemsetsCsvImporter() {
+
+    }
+
+    /**
+     * @return a warning message if the itemsets.csv could not be read, or null otherwise
+     */
+    @Nullable
+    public static String importIfChanged(File formMediaDir, @Nullable FormDef formDef) {
+        // for itemsets.csv, we only check to see if the itemset file has been
+        // updated
+        final File csv = new File(formMediaDir.getAbsolutePath() + "/" + ITEMSETS_CSV);
+        String csvmd5;
+        if (csv.exists()) {
+            csvmd5 = Md5.getMd5Hash(csv);
+            boolean readFile = false;
+            final ItemsetDbAdapter ida = new ItemsetDbAdapter();
+            ida.open();
+            // get the database entry (if exists) for this itemsets.csv, based
+            // on the path
+            final Cursor c = ida.getItemsets(csv.getAbsolutePath());
+            if (c != null) {
+                if (c.getCount() == 1) {
+                    c.moveToFirst(); // should be only one, ever, if any
+                    final String oldmd5 = c.getString(c.getColumnIndex("hash"));
+                    if (oldmd5.equals(csvmd5)) {
+                        // they're equal, do nothing
+                    } else {
+                        // the csv has been updated, delete the old entries
+                        ida.dropTable(ItemsetDbAdapter.getMd5FromString(csv.getAbsolutePath()),
+                                csv.getAbsolutePath());
+                        // and read the new
+                        readFile = true;
+                    }
+                } else {
+                    // new csv, add it
+                    readFile = true;
+                }
+                c.close();
+            }
+            ida.close();
+
+            String pathHash = ItemsetDbAdapter.getMd5FromString(csv.getAbsolutePath());
+            String warningMsg = null;
+            if (readFile) {
+                warningMsg = readCSV(csv, csvmd5, pathHash);
+            }
+
+            if (formDef != null && warningMsg == null) {
+                createIndexes(pathHash, getQueriedColumns(formDef));
+            }
+
+            return warningMsg;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the columns that each itemset question in the form filters on (in the order they
+     * appear in its query) prefixed by "list_name" which every query filters on
+     */
+    static Set<List<String>> getQueriedColumns(FormDef formDef) {
+        Set<List<String>> queriedColumns = new LinkedHashSet<>();
+        addQueriedColumns(formDef, new XPathParseTool(), queriedColumns);
+        return queriedColumns;
+    }
+
+    private static void addQueriedColumns(IFormElement element, XPathParseTool parseTool, Set<List<String>> queriedColumns) {
+        if (element instanceof QuestionDef) {
+            String query = ((QuestionDef) element).getAdditionalAttribute(null, "query");
+            if (query != null) {
+                List<String> columns = new ArrayList<>();
+                columns.add("list_name");
+
+                try {
+                    addQueriedColumns(parseTool.parseXPath(query), columns);
+                } catch (XPathSyntaxException e) {
+                    Timber.w(e);
+                }
+
+                queriedColumns.add(columns);
+            }
+        }
+
+        if (element.getChildren() != null) {
+            for (IFormElement child : element.getChildren()) {
+                addQueriedColumns(child, parseTool, queriedColumns);
+            }
+        }
+    }
+
+    private static void addQueriedColumns(XPathExpression query, List<String> columns) {
+        if (!(query instanceof XPathPathExpr)) {
+            return;
+        }
+
+        for (XPathStep step : ((XPathPathExpr) query).steps) {
+            if (step.predicates != null) {
+                for (XPathExpression predicate : step.predicates) {
+                    List<String> predicateColumns = new ArrayList<>();
+
+                    // An index can only be used for every column if they are all required to
+                    // match so only "list_name" is indexed for queries using "or"
+                    if (addComparedColumns(predicate, predicateColumns)) {
+                        for (String column : predicateColumns) {
+                            if (!columns.contains(column)) {
+                                columns.add(column);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if the expression isn't made up only of comparisons joined with "and"
+     */
+    private static boolean addComparedColumns(XPathExpression expression, List<String> columns) {
+        if (expression instanceof XPathBoolExpr) {
+            XPathBoolExpr boolExpr = (XPathBoolExpr) expression;
+            return boolExpr.op == XPathBoolExpr.AND
+                    && addComparedColumns(boolExpr.a, columns)
+                    && addComparedColumns(boolExpr.b, columns);
+        } else if (expression instanceof XPathEqExpr) {
+            XPathExpression left = ((XPathEqExpr) expression).a;
+            if (left instanceof XPathPathExpr) {
+                XPathPathExpr path = (XPathPathExpr) left;
+                if (path.init_context == XPathPathExpr.INIT_CONTEXT_RELATIVE && path.steps.length == 1
+                        && path.steps[0].test == XPathStep.TEST_NAME) {
+                    columns.add(path.steps[0].name.toString());
+                }
+            }
+
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private static void createIndexes(String pathHash, Set<List<String>> queriedColumns) {
+        long start = System.currentTimeMillis();
+
+        try (ItemsetDbAdapter ida = new ItemsetDbAdapter().open()) {
+            // Item labels are looked up by name (for the hierarchy view for example)
+            ida.createIndex(pathHash, Collections.singletonList("name"));
+
+            for (List<String> columns : queriedColumns) {
+                ida.createIndex(pathHash, columns);
+            }
+        } catch (SQLException e) {
+            Timber.w(e);
+        }
+
+        Timber.i("Indexed itemsets in %d ms", System.currentTimeMillis() - start);
+    }
+
+    @Nullable
+    private static String readCSV(File csv, String formHash, String pathHash) {
+        String warningMsg = null;
+
+        long start = System.currentTimeMillis();
+        int rowCount = 0;
+
+        ItemsetDbAdapter ida = new ItemsetDbAdapter();
+        ida.open();
+
+        // create the table and insert all the rows in a single transaction so that a file that
+        // can't be read doesn't leave part of it behind
+        ida.beginTransaction();
+        SQLiteStatement insertStatement = null;
+        boolean imported = false;
+        try (CSVReader reader = new CSVReader(new BufferedReader(new FileReader(csv)))) {
+            String[] nextLine;
+            String[] columnHeaders = null;
+            while ((nextLine = reader.readNext()) != null) {
+                if (columnHeaders == null) {
+                    // first line of csv is column headers
+                    columnHeaders = nextLine;
+                    ida.createTable(formHash, pathHash, columnHeaders,
+                            csv.getAbsolutePath());
+                    insertStatement = ida.compileInsertStatement(pathHash, columnHeaders);
+                    continue;
+                }
+
+                // add the rest of the lines to the specified database
+                ida.addRow(insertStatement, columnHeaders, nextLine);
+                rowCount++;
+            }
+
+            imported = true;
+        } catch (IOException | SQLException | CsvValidationException e) {
+            warningMsg = e.getMessage();
+        } finally {
+            if (insertStatement != null) {
+                insertStatement.close();
+            }
+
+            if (imported) {
+                ida.commit();
+            } else {
+                ida.rollback();
+                ida.dropTable(pathHash, csv.getAbsolutePath());
+            }
+
+            ida.close();
+        }
+
+        Timber.i("Imported %d itemset rows in %d ms", rowCount, System.currentTimeMillis() - start);
+        return warningMsg;
+    }
+}
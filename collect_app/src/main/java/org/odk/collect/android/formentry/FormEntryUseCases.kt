@@ -8,7 +8,6 @@ import org.javarosa.core.model.instance.utils.DefaultAnswerResolver
 import org.javarosa.core.reference.ReferenceManager
 import org.javarosa.form.api.FormEntryController
 import org.javarosa.xform.parse.XFormParser
-import org.javarosa.xform.util.XFormUtils
 import org.odk.collect.android.dynamicpreload.ExternalAnswerResolver
 import org.odk.collect.android.javarosawrapper.FailedValidationResult
 import org.odk.collect.android.javarosawrapper.FormController
@@ -197,7 +196,7 @@ object FormEntryUseCases {
         }
 
         val lastSavedSrc = FileUtils.getOrCreateLastSavedSrc(xForm)
-        return XFormUtils.getFormFromFormXml(xForm.absolutePath, lastSavedSrc)?.also {
+        return FileUtils.parseFormDefinition(xForm.absolutePath, lastSavedSrc)?.also {
             formDefCache.writeCache(it, xForm.path)
         }
     }
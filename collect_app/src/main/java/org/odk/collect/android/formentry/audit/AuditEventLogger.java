@@ -20,7 +20,7 @@ import timber.log.Timber;
 
 /**
  * Handle logging of auditEvents (which contain time and might contain location coordinates),
- * and pass them to an Async task to append to a file
+ * and pass them to a {@link AuditEventWriter} to append to a file
  * Notes:
  * 1) If the user has saved the form, then resumes editing, then exits without saving then the timing data during the
  * second editing session will be saved.  This is OK as it records user activity.  However if the user exits
@@ -109,6 +109,17 @@ public class AuditEventLogger {
         if (isAuditEnabled()) {
             finalizeEvents();
             writeEvents();
+            writer.flush();
+        }
+    }
+
+    /**
+     * Blocks until all events that have been passed to the writer are in the audit log (so that
+     * it can be read or encrypted). Should not be used on the UI thread.
+     */
+    public void waitForWrites() {
+        if (isAuditEnabled()) {
+            writer.waitForWrites();
         }
     }
 
@@ -210,11 +221,9 @@ public class AuditEventLogger {
     }
 
     private void writeEvents() {
-        if (!writer.isWriting()) {
+        if (!auditEvents.isEmpty()) {
             writer.writeEvents(auditEvents);
             auditEvents = new ArrayList<>();
-        } else {
-            Timber.i("Queueing AuditEvent");
         }
     }
 
@@ -290,8 +299,19 @@ public class AuditEventLogger {
 
     public interface AuditEventWriter {
 
+        /**
+         * Queues events to be appended to the audit log. Events must never be dropped.
+         */
         void writeEvents(List<AuditEvent> auditEvents);
 
-        boolean isWriting();
+        /**
+         * Starts writing queued events without waiting for more to be queued.
+         */
+        void flush();
+
+        /**
+         * Blocks until all queued events have been written.
+         */
+        void waitForWrites();
     }
 }
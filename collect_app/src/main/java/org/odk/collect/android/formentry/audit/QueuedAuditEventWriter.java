@@ -0,0 +1,203 @@
+package org.odk.collect.android.formentry.audit;
+
+import static org.odk.collect.android.formentry.audit.AuditEventCSVLine.toCSVLine;
+
+import androidx.annotation.NonNull;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import timber.log.Timber;
+
+/**
+ * Appends events to the audit log on a single background thread that is shared by all writers
+ * (so events are always written in the order they were logged). Events are queued rather than
+ * written straight away and the queue is written in one go once it's big enough, after a short
+ * delay or when the form is exited so that frequent events (like location changes) don't each
+ * open and append to the file.
+ */
+public class QueuedAuditEventWriter implements AuditEventLogger.AuditEventWriter {
+
+    static final long WRITE_DELAY_MILLIS = 2000;
+    static final int MAX_QUEUED_EVENTS = 50;
+
+    private static final String DEFAULT_COLUMNS = "event,node,start,end";
+    private static final String LOCATION_COORDINATES_COLUMNS = ",latitude,longitude,accuracy";
+    private static final String ANSWER_VALUES_COLUMNS = ",old-value,new-value";
+    private static final String USER_COLUMNS = ",user";
+    private static final String CHANGE_REASON_COLUMNS = ",change-reason";
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "AuditEventWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final File file;
+    private final boolean isLocationEnabled;
+    private final boolean isTrackingChangesEnabled;
+    private final boolean isUserRequired;
+    private final boolean isTrackChangesReasonEnabled;
+
+    private final List<AuditEvent> queuedEvents = new ArrayList<>();
+    private ScheduledFuture<?> scheduledWrite;
+    private boolean headerChecked;
+
+    public QueuedAuditEventWriter(@NonNull File file, boolean isLocationEnabled, boolean isTrackingChangesEnabled, boolean isUserRequired, boolean isTrackChangesReasonEnabled) {
+        this.file = file;
+        this.isLocationEnabled = isLocationEnabled;
+        this.isTrackingChangesEnabled = isTrackingChangesEnabled;
+        this.isUserRequired = isUserRequired;
+        this.isTrackChangesReasonEnabled = isTrackChangesReasonEnabled;
+    }
+
+    @Override
+    public synchronized void writeEvents(List<AuditEvent> auditEvents) {
+        queuedEvents.addAll(auditEvents);
+
+        if (queuedEvents.size() >= MAX_QUEUED_EVENTS || containsFormExit(auditEvents)) {
+            scheduleWrite(0);
+        } else {
+            scheduleWrite(WRITE_DELAY_MILLIS);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (!queuedEvents.isEmpty()) {
+            scheduleWrite(0);
+        }
+    }
+
+    @Override
+    public void waitForWrites() {
+        try {
+            EXECUTOR.submit(this::writeQueuedEvents).get();
+        } catch (ExecutionException e) {
+            Timber.e(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void scheduleWrite(long delayMillis) {
+        if (scheduledWrite != null && !scheduledWrite.isDone()) {
+            if (delayMillis >= scheduledWrite.getDelay(TimeUnit.MILLISECONDS) || !scheduledWrite.cancel(false)) {
+                return;
+            }
+        }
+
+        scheduledWrite = EXECUTOR.schedule(this::writeQueuedEvents, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void writeQueuedEvents() {
+        List<AuditEvent> events;
+        synchronized (this) {
+            events = new ArrayList<>(queuedEvents);
+            queuedEvents.clear();
+        }
+
+        if (!events.isEmpty()) {
+            write(events);
+        }
+    }
+
+    private void write(List<AuditEvent> events) {
+        try {
+            boolean newFile = !file.exists();
+            if (!newFile && !headerChecked) {
+                updateHeaderIfNeeded();
+            }
+            headerChecked = true;
+
+            try (Writer writer = new BufferedWriter(new FileWriter(file, true))) {
+                if (newFile) {
+                    writer.write(getHeader() + "\n");
+                }
+
+                for (AuditEvent event : events) {
+                    writer.write(toCSVLine(event, isLocationEnabled, isTrackingChangesEnabled, isTrackChangesReasonEnabled) + "\n");
+                }
+            }
+
+            Timber.i("Wrote %d audit events", events.size());
+        } catch (IOException e) {
+            Timber.e(e);
+        }
+    }
+
+    /**
+     * The header is the first line of the file so it can only be changed by copying the file.
+     * This only happens when the audit config has changed since the file was started (after an
+     * app update for example) and is only checked once per writer.
+     */
+    private void updateHeaderIfNeeded() throws IOException {
+        File temporaryFile = new File(file.getParentFile(), "temporaryAudit.csv");
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            if (!shouldHeaderBeUpdated(reader.readLine())) {
+                return;
+            }
+
+            try (Writer writer = new BufferedWriter(new FileWriter(temporaryFile))) {
+                writer.write(getHeader() + "\n");
+
+                char[] buffer = new char[8192];
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    writer.write(buffer, 0, read);
+                }
+            }
+        }
+
+        if (!temporaryFile.renameTo(file)) {
+            Timber.w("Unable to update audit header");
+            temporaryFile.delete();
+        }
+    }
+
+    private boolean shouldHeaderBeUpdated(String header) {
+        return header == null
+                || (isLocationEnabled && !header.contains(LOCATION_COORDINATES_COLUMNS))
+                || (isTrackingChangesEnabled && !header.contains(ANSWER_VALUES_COLUMNS))
+                || (isUserRequired && !header.contains(USER_COLUMNS));
+    }
+
+    private String getHeader() {
+        String header = DEFAULT_COLUMNS;
+        if (isLocationEnabled) {
+            header += LOCATION_COORDINATES_COLUMNS;
+        }
+        if (isTrackingChangesEnabled) {
+            header += ANSWER_VALUES_COLUMNS;
+        }
+        if (isUserRequired) {
+            header += USER_COLUMNS;
+        }
+        if (isTrackChangesReasonEnabled) {
+            header += CHANGE_REASON_COLUMNS;
+        }
+        return header;
+    }
+
+    private static boolean containsFormExit(List<AuditEvent> auditEvents) {
+        for (AuditEvent event : auditEvents) {
+            if (event.getAuditEventType() == AuditEvent.AuditEventType.FORM_EXIT) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -500,6 +500,9 @@ public class FormSaveViewModel extends ViewModel implements MaterialProgressDial
 
         @Override
         protected SaveToDiskResult doInBackground(Void... voids) {
+            // The audit log is part of the instance so queued events need to be in it first
+            formController.getAuditEventLogger().waitForWrites();
+
             return formSaver.save(saveRequest.uri, formController,
                     mediaUtils, saveRequest.shouldFinalize,
                     saveRequest.viewExiting, saveRequest.updatedSaveName,
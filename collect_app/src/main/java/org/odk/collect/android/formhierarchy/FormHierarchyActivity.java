@@ -26,6 +26,7 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.activity.OnBackPressedCallback;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.widget.Toolbar;
 import androidx.core.content.ContextCompat;
@@ -64,6 +65,7 @@ import org.odk.collect.android.utilities.FormsRepositoryProvider;
 import org.odk.collect.android.utilities.HtmlUtils;
 import org.odk.collect.android.utilities.InstancesRepositoryProvider;
 import org.odk.collect.android.utilities.MediaUtils;
+import org.odk.collect.android.views.ObviousProgressBar;
 import org.odk.collect.androidshared.ui.EmptyListView;
 import org.odk.collect.androidshared.ui.DialogFragmentUtils;
 import org.odk.collect.androidshared.ui.FragmentFactoryBuilder;
@@ -79,7 +81,10 @@ import org.odk.collect.settings.SettingsProvider;
 import org.odk.collect.strings.localization.LocalizedActivity;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Inject;
 
@@ -91,10 +96,53 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
     public static final String EXTRA_SESSION_ID = "session_id";
     /**
      * The questions and repeats at the current level.
-     * Recreated every time {@link #refreshView()} is called.
+     * Replaced every time a screen is shown by {@link #refreshView()}.
      */
     private List<HierarchyItem> elementsToDisplay;
 
+    /**
+     * Screens that have already been built keyed by the index they were built from and the
+     * repeat picker index. Building a screen means stepping through every event in it which can
+     * take a long time for forms with large repeats. Answers can't change while the hierarchy is
+     * open so this only needs to be cleared when the form's structure changes (a repeat is deleted).
+     */
+    private final Map<String, HierarchyScreen> screenCache = new HashMap<>();
+
+    /**
+     * Screens are built in the background by stepping through the FormController which is shared
+     * with any other instance of this activity (such as the one that replaces this one when it's
+     * recreated) so only one can be built at a time.
+     */
+    private static final Object BUILD_LOCK = new Object();
+
+    /**
+     * The index the FormController will be returned to once the screen that is being built is
+     * done (or null if one isn't being built). This is what the FormController's index should be
+     * treated as while a build is stepping through the form.
+     */
+    @Nullable
+    private static FormIndex buildStartIndex;
+    private static final Object BUILD_START_INDEX_LOCK = new Object();
+
+    /**
+     * True while a screen is being built in the background. The FormController is in use by the
+     * background work at this point so user actions are ignored (or deferred for back presses).
+     */
+    private boolean isLoading;
+
+    /**
+     * Set to cancel the screen that's being built (if there is one) when the activity is destroyed.
+     */
+    @Nullable
+    private AtomicBoolean buildCancelled;
+    private boolean isBackPending;
+    private boolean isFirstScreen = true;
+
+    /**
+     * The screen that is being displayed.
+     */
+    private HierarchyScreen currentScreen;
+
     /**
      * The icon shown at the top of a hierarchy screen for groups of questions.
      */
@@ -102,15 +150,12 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
 
     /**
      * The label shown at the top of a hierarchy screen for groups of questions. Set by
-     * {@link #getCurrentPath()}.
+     * {@link #getCurrentPath(FormController)}.
      */
     private TextView groupPathTextView;
 
-    /**
-     * A ref to the current context group.
-     * Useful to make sure we only render items inside of the group.
-     */
-    private TreeReference contextGroupRef;
+    private ObviousProgressBar progressBar;
+    private EmptyListView emptyView;
 
     /**
      * If this index is non-null, we will render an intermediary "picker" view
@@ -193,6 +238,11 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
     protected final OnBackPressedCallback onBackPressedCallback = new OnBackPressedCallback(true) {
         @Override
         public void handleOnBackPressed() {
+            if (isLoading) {
+                isBackPending = true;
+                return;
+            }
+
             FormController formController = formEntryViewModel.getFormController();
             if (formController != null) {
                 formController.getAuditEventLogger().flush();
@@ -239,7 +289,8 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         recyclerView.addItemDecoration(new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
 
-        EmptyListView emptyView = findViewById(android.R.id.empty);
+        emptyView = findViewById(android.R.id.empty);
+        progressBar = findViewById(R.id.progressBar);
         Toolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
 
@@ -251,7 +302,7 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
             return;
         }
 
-        startIndex = formController.getFormIndex();
+        startIndex = getFormIndex(formController);
 
         setTitle(formController.getFormTitle());
 
@@ -267,10 +318,27 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
 
         refreshView();
 
-        // Scroll to the last question the user was looking at
+        getOnBackPressedDispatcher().addCallback(onBackPressedCallback);
+    }
+
+    @Override
+    protected void onDestroy() {
+        // Stop stepping through the FormController for a screen that will never be shown
+        if (buildCancelled != null) {
+            buildCancelled.set(true);
+        }
+
+        super.onDestroy();
+    }
+
+    /**
+     * Scroll to the last question the user was looking at.
+     */
+    private void scrollToStartIndex(FormController formController) {
         // TODO: avoid another iteration through all displayed elements
         if (recyclerView != null && recyclerView.getAdapter() != null && recyclerView.getAdapter().getItemCount() > 0) {
             emptyView.setVisibility(View.GONE);
+            boolean isStartIndexInFieldList = formController.indexIsInFieldList(startIndex);
             recyclerView.post(() -> {
                 int position = 0;
                 // Iterate over all the elements currently displayed looking for a match with the
@@ -278,7 +346,7 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
                 for (HierarchyItem hierarchyItem : elementsToDisplay) {
                     FormIndex indexToCheck = hierarchyItem.getFormIndex();
                     if (startIndex.equals(indexToCheck)
-                            || (formController.indexIsInFieldList(startIndex) && indexToCheck.toString().startsWith(startIndex.toString()))) {
+                            || (isStartIndexInFieldList && indexToCheck.toString().startsWith(startIndex.toString()))) {
                         position = elementsToDisplay.indexOf(hierarchyItem);
                         break;
                     }
@@ -286,8 +354,6 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
                 ((LinearLayoutManager) recyclerView.getLayoutManager()).scrollToPositionWithOffset(position, 0);
             });
         }
-
-        getOnBackPressedDispatcher().addCallback(onBackPressedCallback);
     }
 
     @Override
@@ -318,18 +384,15 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
     }
 
     private void updateOptionsMenu() {
-        FormController formController = formEntryViewModel.getFormController();
-
         // Not ready yet. Menu will be updated automatically once it's been prepared.
-        if (optionsMenu == null || formController == null) {
+        if (optionsMenu == null || currentScreen == null) {
             return;
         }
 
         boolean isAtBeginning = screenIndex.isBeginningOfFormIndex() && !shouldShowRepeatGroupPicker();
         boolean shouldShowPicker = shouldShowRepeatGroupPicker();
-        boolean isInRepeat = formController.indexContainsRepeatableGroup();
-        boolean isGroupSizeLocked = shouldShowPicker
-                ? isGroupSizeLocked(repeatGroupPickerIndex) : isGroupSizeLocked(screenIndex);
+        boolean isInRepeat = currentScreen.isInRepeat;
+        boolean isGroupSizeLocked = currentScreen.isGroupSizeLocked;
 
         boolean shouldShowDelete = isInRepeat && !shouldShowPicker && !isGroupSizeLocked;
         showDeleteButton(shouldShowDelete);
@@ -345,8 +408,7 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
      * Returns true if the current index is a group that's designated as `noAddRemove`
      * (e.g. if `jr:count` is explicitly set).
      */
-    private boolean isGroupSizeLocked(FormIndex index) {
-        FormController formController = formEntryViewModel.getFormController();
+    private boolean isGroupSizeLocked(FormController formController, FormIndex index) {
         IFormElement element = formController.getCaptionPrompt(index).getFormElement();
         return element instanceof GroupDef && ((GroupDef) element).noAddRemove;
     }
@@ -374,7 +436,7 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
 
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
-        if (!MultiClickGuard.allowClickFast(item.toString())) {
+        if (!MultiClickGuard.allowClickFast(item.toString()) || isLoading) {
             return true;
         }
 
@@ -401,6 +463,10 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
      */
     void configureButtons(FormController formController) {
         jumpBeginningButton.setOnClickListener(v -> {
+            if (isLoading) {
+                return;
+            }
+
             formController.getAuditEventLogger().flush();
             formController.jumpToIndex(FormIndex.createBeginningOfFormIndex());
 
@@ -409,6 +475,10 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
         });
 
         jumpEndButton.setOnClickListener(v -> {
+            if (isLoading) {
+                return;
+            }
+
             formController.getAuditEventLogger().flush();
             formController.jumpToIndex(FormIndex.createEndOfFormIndex());
 
@@ -445,16 +515,21 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
      * e.g. after deleting the final remaining item in a repeat group.
      */
     private void goToPreviousEvent() {
+        if (stepToPreviousScreenEvent()) {
+            refreshView();
+        }
+    }
+
+    private boolean stepToPreviousScreenEvent() {
         FormController formController = formEntryViewModel.getFormController();
         try {
             formController.stepToPreviousScreenEvent();
+            return true;
         } catch (JavaRosaException e) {
             Timber.d(e);
             createErrorDialog(e.getCause().getMessage());
-            return;
+            return false;
         }
-
-        refreshView();
     }
 
     /**
@@ -486,8 +561,7 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
      * Returns a string representing the 'path' of the current screen.
      * Each level is separated by `>`.
      */
-    private CharSequence getCurrentPath() {
-        FormController formController = formEntryViewModel.getFormController();
+    private CharSequence getCurrentPath(FormController formController) {
         FormIndex index = formController.getFormIndex();
 
         // Step out to the enclosing group if the current index is something
@@ -516,50 +590,50 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
     }
 
     /**
-     * Goes to the start of the hierarchy view based on where the user came from.
-     * Backs out until the index is at the beginning of a repeat group or the beginning of the form.
+     * Returns the index of the screen the FormController's current index is on based on where the
+     * user came from. Backs out until the index is at the beginning of a repeat group or the
+     * beginning of the form.
      */
-    private void jumpToHierarchyStartIndex() {
-        FormController formController = formEntryViewModel.getFormController();
+    private FormIndex getScreenIndex(FormController formController) {
         FormIndex startIndex = formController.getFormIndex();
 
-        // If we're not at the first level, we're inside a repeated group so we want to only
-        // display everything enclosed within that group.
-        contextGroupRef = null;
-
-        // Save the index to the screen itself, before potentially moving into it.
-        screenIndex = startIndex;
-
-        // If we're currently at a displayable group, record the name of the node and step to the next
-        // node to display.
+        // If we're currently at a displayable group, that's the screen itself.
         if (formController.isDisplayableGroup(startIndex)) {
-            contextGroupRef = formController.getFormIndex().getReference();
-            formController.stepToNextEvent(JavaRosaFormController.STEP_INTO_GROUP);
-        } else {
-            FormIndex potentialStartIndex = getPreviousLevel(startIndex);
-            // Step back until we hit a displayable group or the beginning.
-            while (!isScreenEvent(formController, potentialStartIndex)) {
-                potentialStartIndex = getPreviousLevel(potentialStartIndex);
-            }
+            return startIndex;
+        }
 
-            screenIndex = potentialStartIndex;
+        FormIndex potentialStartIndex = getPreviousLevel(startIndex);
+        // Step back until we hit a displayable group or the beginning.
+        while (!isScreenEvent(formController, potentialStartIndex)) {
+            potentialStartIndex = getPreviousLevel(potentialStartIndex);
+        }
 
-            // Check to see if the question is at the first level of the hierarchy.
-            // If it is, display the root level from the beginning.
-            // Otherwise we're at a displayable group.
-            if (screenIndex == null) {
-                screenIndex = FormIndex.createBeginningOfFormIndex();
-            }
+        // Check to see if the question is at the first level of the hierarchy.
+        // If it is, display the root level from the beginning.
+        if (potentialStartIndex == null) {
+            return FormIndex.createBeginningOfFormIndex();
+        } else {
+            return potentialStartIndex;
+        }
+    }
 
-            formController.jumpToIndex(screenIndex);
+    /**
+     * Goes to the start of the hierarchy view for the screen. If the screen is a displayable
+     * group this steps into it so that only its contents are displayed.
+     *
+     * @return a ref to the group whose contents should be displayed (useful to make sure we only
+     * render items inside of the group) or null for the root of the form
+     */
+    @Nullable
+    private TreeReference jumpToHierarchyStartIndex(FormController formController, FormIndex screenIndex) {
+        formController.jumpToIndex(screenIndex);
 
-            // Now test again. This should be true at this point or we're at the beginning.
-            if (formController.isDisplayableGroup(formController.getFormIndex())) {
-                contextGroupRef = formController.getFormIndex().getReference();
-                formController.stepToNextEvent(JavaRosaFormController.STEP_INTO_GROUP);
-            } else {
-                // Let contextGroupRef be null.
-            }
+        if (formController.isDisplayableGroup(formController.getFormIndex())) {
+            TreeReference contextGroupRef = formController.getFormIndex().getReference();
+            formController.stepToNextEvent(JavaRosaFormController.STEP_INTO_GROUP);
+            return contextGroupRef;
+        } else {
+            return null;
         }
     }
 
@@ -584,6 +658,9 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
      * Rebuilds the view to reflect the elements that should be displayed based on the
      * FormController's current index. This index is either set prior to the activity opening or
      * mutated by {@link #onElementClick(HierarchyItem)} if a repeat instance was tapped.
+     * <p>
+     * Screens are built in the background as this means stepping through every event on the
+     * screen (and every instance of a repeat for the picker).
      */
     public void refreshView() {
         refreshView(false);
@@ -593,214 +670,328 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
      * @see #refreshView()
      */
     private void refreshView(boolean isGoingUp) {
-        try {
-            FormController formController = formEntryViewModel.getFormController();
+        FormController formController = formEntryViewModel.getFormController();
+
+        // Save the current index so we can return to the problematic question
+        // in the event of an error.
+        currentIndex = getFormIndex(formController);
 
-            // Save the current index so we can return to the problematic question
-            // in the event of an error.
-            currentIndex = formController.getFormIndex();
+        String cacheKey = currentIndex + "|" + repeatGroupPickerIndex;
+        HierarchyScreen cachedScreen = screenCache.get(cacheKey);
+        if (cachedScreen != null) {
+            showScreen(formController, cachedScreen, isGoingUp);
+            return;
+        }
 
-            elementsToDisplay = new ArrayList<>();
+        isLoading = true;
+        progressBar.show();
 
-            jumpToHierarchyStartIndex();
-            updateOptionsMenu();
+        FormIndex buildIndex = currentIndex;
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        buildCancelled = cancelled;
+
+        scheduler.immediate(() -> {
+            try {
+                return buildScreen(formController, buildIndex, cancelled);
+            } catch (Exception e) {
+                Timber.e(e);
+                return new HierarchyScreen(e.getMessage());
+            }
+        }, screen -> {
+            if (screen == null) {
+                // Cancelled because the activity has been destroyed
+                return;
+            }
 
-            int event = formController.getEvent();
+            isLoading = false;
+            progressBar.hide(View.GONE);
+
+            if (isDestroyed()) {
+                return;
+            }
+
+            if (screen.errorMessage != null) {
+                createErrorDialog(screen.errorMessage);
+                return;
+            }
 
-            if (event == FormEntryController.EVENT_BEGINNING_OF_FORM && !shouldShowRepeatGroupPicker()) {
-                // The beginning of form has no valid prompt to display.
-                groupIcon.setVisibility(View.GONE);
-                groupPathTextView.setVisibility(View.GONE);
+            screenCache.put(cacheKey, screen);
+
+            if (isBackPending) {
+                isBackPending = false;
+                onBackPressedCallback.handleOnBackPressed();
             } else {
-                groupIcon.setVisibility(View.VISIBLE);
-                groupPathTextView.setVisibility(View.VISIBLE);
-                groupPathTextView.setText(getCurrentPath());
+                showScreen(formController, screen, isGoingUp);
+            }
+        });
+    }
 
-                if (formController.indexContainsRepeatableGroup() || shouldShowRepeatGroupPicker()) {
-                    groupIcon.setImageDrawable(ContextCompat.getDrawable(this, R.drawable.ic_repeat));
-                } else {
-                    groupIcon.setImageDrawable(ContextCompat.getDrawable(this, R.drawable.ic_folder_open));
+    /**
+     * @return the FormController's index or, if a screen is being built, the index it will be
+     * returned to once the build is done
+     */
+    private static FormIndex getFormIndex(FormController formController) {
+        synchronized (BUILD_START_INDEX_LOCK) {
+            return buildStartIndex != null ? buildStartIndex : formController.getFormIndex();
+        }
+    }
+
+    /**
+     * Builds the screen for the index and then returns the FormController to that index. Waits
+     * for any other screen that's being built to be done first. Doesn't touch any views so that
+     * it can be run in the background.
+     *
+     * @return the screen or null if the build was cancelled
+     */
+    @Nullable
+    private HierarchyScreen buildScreen(FormController formController, FormIndex currentIndex, AtomicBoolean cancelled) {
+        synchronized (BUILD_LOCK) {
+            if (cancelled.get()) {
+                return null;
+            }
+
+            synchronized (BUILD_START_INDEX_LOCK) {
+                buildStartIndex = currentIndex;
+            }
+
+            try {
+                formController.jumpToIndex(currentIndex);
+                return buildScreen(formController, cancelled);
+            } finally {
+                formController.jumpToIndex(currentIndex);
+
+                synchronized (BUILD_START_INDEX_LOCK) {
+                    buildStartIndex = null;
                 }
             }
+        }
+    }
 
-            // Refresh the current event in case we did step forward.
-            event = formController.getEvent();
+    @Nullable
+    private HierarchyScreen buildScreen(FormController formController, AtomicBoolean cancelled) {
+        List<HierarchyItem> items = new ArrayList<>();
 
-            // Ref to the parent group that's currently being displayed.
-            //
-            // Because of the guard conditions below, we will skip
-            // everything until we exit this group.
-            TreeReference visibleGroupRef = null;
+        FormIndex screenIndex = getScreenIndex(formController);
+        TreeReference contextGroupRef = jumpToHierarchyStartIndex(formController, screenIndex);
+
+        boolean isInRepeat = formController.indexContainsRepeatableGroup();
+        boolean isGroupSizeLocked = shouldShowRepeatGroupPicker()
+                ? isGroupSizeLocked(formController, repeatGroupPickerIndex) : isGroupSizeLocked(formController, screenIndex);
+
+        int event = formController.getEvent();
 
-            while (event != FormEntryController.EVENT_END_OF_FORM) {
-                // get the ref to this element
-                TreeReference currentRef = formController.getFormIndex().getReference();
+        // The beginning of form has no valid prompt to display.
+        CharSequence path = null;
+        boolean isRepeat = false;
+        if (event != FormEntryController.EVENT_BEGINNING_OF_FORM || shouldShowRepeatGroupPicker()) {
+            path = getCurrentPath(formController);
+            isRepeat = isInRepeat || shouldShowRepeatGroupPicker();
+        }
 
-                // retrieve the current group
-                TreeReference curGroup = (visibleGroupRef == null) ? contextGroupRef : visibleGroupRef;
+        // Refresh the current event in case we did step forward.
+        event = formController.getEvent();
 
-                if (curGroup != null && !curGroup.isParentOf(currentRef, false)) {
-                    // We have left the current group
-                    if (visibleGroupRef == null) {
-                        // We are done.
+        // Ref to the parent group that's currently being displayed.
+        //
+        // Because of the guard conditions below, we will skip
+        // everything until we exit this group.
+        TreeReference visibleGroupRef = null;
+
+        while (event != FormEntryController.EVENT_END_OF_FORM) {
+            if (cancelled.get()) {
+                return null;
+            }
+
+            // get the ref to this element
+            TreeReference currentRef = formController.getFormIndex().getReference();
+
+            // retrieve the current group
+            TreeReference curGroup = (visibleGroupRef == null) ? contextGroupRef : visibleGroupRef;
+
+            if (curGroup != null && !curGroup.isParentOf(currentRef, false)) {
+                // We have left the current group
+                if (visibleGroupRef == null) {
+                    // We are done.
+                    break;
+                } else {
+                    // exit the inner group
+                    visibleGroupRef = null;
+                }
+            }
+
+            if (visibleGroupRef != null) {
+                // We're in a group within the one we want to list
+                // skip this question/group/repeat and move to the next index.
+                event =
+                        formController.stepToNextEvent(JavaRosaFormController.STEP_INTO_GROUP);
+                continue;
+            }
+
+            switch (event) {
+                case FormEntryController.EVENT_QUESTION: {
+                    // Nothing but repeat group instances should show up in the picker.
+                    if (shouldShowRepeatGroupPicker()) {
                         break;
-                    } else {
-                        // exit the inner group
-                        visibleGroupRef = null;
                     }
-                }
 
-                if (visibleGroupRef != null) {
-                    // We're in a group within the one we want to list
-                    // skip this question/group/repeat and move to the next index.
-                    event =
-                            formController.stepToNextEvent(JavaRosaFormController.STEP_INTO_GROUP);
-                    continue;
+                    FormEntryPrompt fp = formController.getQuestionPrompt();
+                    String label = fp.getShortText();
+                    String answerDisplay = QuestionAnswerProcessor.getQuestionAnswer(fp, this, formController);
+                    items.add(
+                        new HierarchyItem(
+                            fp.getIndex(),
+                            HierarchyItemType.QUESTION,
+                            FormEntryPromptUtils.styledQuestionText(label, fp.isRequired()),
+                            answerDisplay
+                        )
+                    );
+                    break;
                 }
+                case FormEntryController.EVENT_GROUP: {
+                    if (!formController.isGroupRelevant()) {
+                        break;
+                    }
+                    // Nothing but repeat group instances should show up in the picker.
+                    if (shouldShowRepeatGroupPicker()) {
+                        break;
+                    }
 
-                switch (event) {
-                    case FormEntryController.EVENT_QUESTION: {
-                        // Nothing but repeat group instances should show up in the picker.
-                        if (shouldShowRepeatGroupPicker()) {
-                            break;
-                        }
+                    FormIndex index = formController.getFormIndex();
 
-                        FormEntryPrompt fp = formController.getQuestionPrompt();
-                        String label = fp.getShortText();
-                        String answerDisplay = QuestionAnswerProcessor.getQuestionAnswer(fp, this, formController);
-                        elementsToDisplay.add(
-                            new HierarchyItem(
-                                fp.getIndex(),
-                                HierarchyItemType.QUESTION,
-                                FormEntryPromptUtils.styledQuestionText(label, fp.isRequired()),
-                                answerDisplay
-                            )
-                        );
+                    // Only display groups with a specific appearance attribute.
+                    if (!formController.isDisplayableGroup(index)) {
                         break;
                     }
-                    case FormEntryController.EVENT_GROUP: {
-                        if (!formController.isGroupRelevant()) {
-                            break;
-                        }
-                        // Nothing but repeat group instances should show up in the picker.
-                        if (shouldShowRepeatGroupPicker()) {
-                            break;
-                        }
 
-                        FormIndex index = formController.getFormIndex();
+                    // Don't render other groups' children.
+                    if (contextGroupRef != null && !contextGroupRef.isParentOf(currentRef, false)) {
+                        break;
+                    }
 
-                        // Only display groups with a specific appearance attribute.
-                        if (!formController.isDisplayableGroup(index)) {
-                            break;
-                        }
+                    visibleGroupRef = currentRef;
 
-                        // Don't render other groups' children.
-                        if (contextGroupRef != null && !contextGroupRef.isParentOf(currentRef, false)) {
-                            break;
-                        }
+                    FormEntryCaption caption = formController.getCaptionPrompt();
 
-                        visibleGroupRef = currentRef;
+                    items.add(
+                        new HierarchyItem(
+                            caption.getIndex(),
+                            HierarchyItemType.VISIBLE_GROUP,
+                            HtmlUtils.textToHtml(caption.getShortText())
+                        )
+                    );
 
-                        FormEntryCaption caption = formController.getCaptionPrompt();
+                    // Skip to the next item outside the group.
+                    event = formController.stepOverGroup();
+                    continue;
+                }
+                case FormEntryController.EVENT_PROMPT_NEW_REPEAT: {
+                    // this would display the 'add new repeat' dialog
+                    // ignore it.
+                    break;
+                }
+                case FormEntryController.EVENT_REPEAT: {
+                    boolean forPicker = shouldShowRepeatGroupPicker();
+                    // Only break to exclude non-relevant repeat from picker
+                    if (!formController.isGroupRelevant() && forPicker) {
+                        break;
+                    }
 
-                        elementsToDisplay.add(
-                            new HierarchyItem(
-                                caption.getIndex(),
-                                HierarchyItemType.VISIBLE_GROUP,
-                                HtmlUtils.textToHtml(caption.getShortText())
-                            )
-                        );
+                    visibleGroupRef = currentRef;
 
-                        // Skip to the next item outside the group.
-                        event = formController.stepOverGroup();
-                        continue;
-                    }
-                    case FormEntryController.EVENT_PROMPT_NEW_REPEAT: {
-                        // this would display the 'add new repeat' dialog
-                        // ignore it.
+                    // Don't render other groups' children.
+                    if (contextGroupRef != null && !contextGroupRef.isParentOf(currentRef, false)) {
                         break;
                     }
-                    case FormEntryController.EVENT_REPEAT: {
-                        boolean forPicker = shouldShowRepeatGroupPicker();
-                        // Only break to exclude non-relevant repeat from picker
-                        if (!formController.isGroupRelevant() && forPicker) {
-                            break;
-                        }
 
-                        visibleGroupRef = currentRef;
+                    FormEntryCaption fc = formController.getCaptionPrompt();
 
-                        // Don't render other groups' children.
-                        if (contextGroupRef != null && !contextGroupRef.isParentOf(currentRef, false)) {
+                    if (forPicker) {
+                        // Don't render other groups' instances.
+                        String repeatGroupPickerRef = repeatGroupPickerIndex.getReference().toString(false);
+                        if (!currentRef.toString(false).equals(repeatGroupPickerRef)) {
                             break;
                         }
 
-                        FormEntryCaption fc = formController.getCaptionPrompt();
+                        int itemNumber = fc.getMultiplicity() + 1;
 
-                        if (forPicker) {
-                            // Don't render other groups' instances.
-                            String repeatGroupPickerRef = repeatGroupPickerIndex.getReference().toString(false);
-                            if (!currentRef.toString(false).equals(repeatGroupPickerRef)) {
-                                break;
-                            }
-
-                            int itemNumber = fc.getMultiplicity() + 1;
-
-                            // e.g. `friends > 1`
-                            String repeatLabel = fc.getShortText() + " > " + itemNumber;
+                        // e.g. `friends > 1`
+                        String repeatLabel = fc.getShortText() + " > " + itemNumber;
 
-                            // If the child of the group has a more descriptive label, use that instead.
-                            if (fc.getFormElement().getChildren().size() == 1 && fc.getFormElement().getChild(0) instanceof GroupDef) {
-                                formController.stepToNextEvent(JavaRosaFormController.STEP_INTO_GROUP);
-                                String itemLabel = formController.getCaptionPrompt().getShortText();
-                                if (itemLabel != null) {
-                                    // e.g. `1. Alice`
-                                    repeatLabel = itemNumber + ".\u200E " + itemLabel;
-                                }
+                        // If the child of the group has a more descriptive label, use that instead.
+                        if (fc.getFormElement().getChildren().size() == 1 && fc.getFormElement().getChild(0) instanceof GroupDef) {
+                            formController.stepToNextEvent(JavaRosaFormController.STEP_INTO_GROUP);
+                            String itemLabel = formController.getCaptionPrompt().getShortText();
+                            if (itemLabel != null) {
+                                // e.g. `1. Alice`
+                                repeatLabel = itemNumber + ".\u200E " + itemLabel;
                             }
-
-                            elementsToDisplay.add(
-                                new HierarchyItem(
-                                    fc.getIndex(),
-                                    HierarchyItemType.REPEAT_INSTANCE,
-                                    HtmlUtils.textToHtml(repeatLabel)
-                                )
-                            );
-                        } else if (fc.getMultiplicity() == 0) {
-                            elementsToDisplay.add(
-                                new HierarchyItem(
-                                    fc.getIndex(),
-                                    HierarchyItemType.REPEATABLE_GROUP,
-                                    HtmlUtils.textToHtml(fc.getShortText())
-                                )
-                            );
                         }
 
-                        break;
+                        items.add(
+                            new HierarchyItem(
+                                fc.getIndex(),
+                                HierarchyItemType.REPEAT_INSTANCE,
+                                HtmlUtils.textToHtml(repeatLabel)
+                            )
+                        );
+                    } else if (fc.getMultiplicity() == 0) {
+                        items.add(
+                            new HierarchyItem(
+                                fc.getIndex(),
+                                HierarchyItemType.REPEATABLE_GROUP,
+                                HtmlUtils.textToHtml(fc.getShortText())
+                            )
+                        );
                     }
-                }
 
-                event = formController.stepToNextEvent(JavaRosaFormController.STEP_INTO_GROUP);
+                    break;
+                }
             }
 
-            recyclerView.setAdapter(new HierarchyListAdapter(elementsToDisplay, this::onElementClick));
+            event = formController.stepToNextEvent(JavaRosaFormController.STEP_INTO_GROUP);
+        }
 
-            formController.jumpToIndex(currentIndex);
+        return new HierarchyScreen(screenIndex, items, path, isRepeat, isInRepeat, isGroupSizeLocked);
+    }
 
-            // Prevent a redundant middle screen (common on many forms
-            // that use presentation groups to display labels).
-            if (isDisplayingSingleGroup() && !screenIndex.isBeginningOfFormIndex()) {
-                if (isGoingUp) {
-                    // Back out once more.
-                    goUpLevel();
-                } else {
-                    // Enter automatically.
-                    formController.jumpToIndex(elementsToDisplay.get(0).getFormIndex());
-                    refreshView();
-                }
+    private void showScreen(FormController formController, HierarchyScreen screen, boolean isGoingUp) {
+        currentScreen = screen;
+        screenIndex = screen.screenIndex;
+        elementsToDisplay = screen.items;
+
+        updateOptionsMenu();
+
+        if (screen.path == null) {
+            groupIcon.setVisibility(View.GONE);
+            groupPathTextView.setVisibility(View.GONE);
+        } else {
+            groupIcon.setVisibility(View.VISIBLE);
+            groupPathTextView.setVisibility(View.VISIBLE);
+            groupPathTextView.setText(screen.path);
+
+            if (screen.isRepeat) {
+                groupIcon.setImageDrawable(ContextCompat.getDrawable(this, R.drawable.ic_repeat));
+            } else {
+                groupIcon.setImageDrawable(ContextCompat.getDrawable(this, R.drawable.ic_folder_open));
             }
-        } catch (Exception e) {
-            Timber.e(e);
-            createErrorDialog(e.getMessage());
+        }
+
+        recyclerView.setAdapter(new HierarchyListAdapter(elementsToDisplay, this::onElementClick));
+
+        // Prevent a redundant middle screen (common on many forms
+        // that use presentation groups to display labels).
+        if (isDisplayingSingleGroup() && !screenIndex.isBeginningOfFormIndex()) {
+            if (isGoingUp) {
+                // Back out once more.
+                goUpLevel();
+            } else {
+                // Enter automatically.
+                formController.jumpToIndex(elementsToDisplay.get(0).getFormIndex());
+                refreshView();
+            }
+        } else if (isFirstScreen) {
+            isFirstScreen = false;
+            scrollToStartIndex(formController);
         }
     }
 
@@ -817,6 +1008,10 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
      * Handles clicks on a specific row in the hierarchy view.
      */
     public void onElementClick(HierarchyItem item) {
+        if (isLoading) {
+            return;
+        }
+
         FormIndex index = item.getFormIndex();
 
         switch (item.getHierarchyItemType()) {
@@ -907,6 +1102,9 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
 
     @Override
     public void deleteGroup() {
+        // The form's structure has changed so previously built screens are out of date
+        screenCache.clear();
+
         if (didDeleteLastRepeatItem()) {
             // goUpLevel would put us in a weird state after deleting the last item;
             // just go back one event instead.
@@ -917,9 +1115,52 @@ public class FormHierarchyActivity extends LocalizedActivity implements DeleteRe
             goToPreviousEvent();
         } else if (didDeleteFirstRepeatItem()) {
             goUpLevel();
-        } else {
-            goToPreviousEvent();
+        } else if (stepToPreviousScreenEvent()) {
+            // Go up from the screen of the previous event without waiting for it to be built
+            screenIndex = getScreenIndex(formEntryViewModel.getFormController());
             goUpLevel();
         }
     }
+
+    /**
+     * Everything needed to display one screen of the hierarchy. Built in the background
+     * by {@link #buildScreen(FormController, FormIndex, AtomicBoolean)}.
+     */
+    private static class HierarchyScreen {
+
+        final FormIndex screenIndex;
+        final List<HierarchyItem> items;
+
+        /**
+         * The path shown at the top of the screen or null if the screen is the beginning of the form.
+         */
+        @Nullable
+        final CharSequence path;
+        final boolean isRepeat;
+        final boolean isInRepeat;
+        final boolean isGroupSizeLocked;
+
+        @Nullable
+        final String errorMessage;
+
+        HierarchyScreen(FormIndex screenIndex, List<HierarchyItem> items, @Nullable CharSequence path, boolean isRepeat, boolean isInRepeat, boolean isGroupSizeLocked) {
+            this.screenIndex = screenIndex;
+            this.items = items;
+            this.path = path;
+            this.isRepeat = isRepeat;
+            this.isInRepeat = isInRepeat;
+            this.isGroupSizeLocked = isGroupSizeLocked;
+            this.errorMessage = null;
+        }
+
+        HierarchyScreen(String errorMessage) {
+            this.screenIndex = null;
+            this.items = null;
+            this.path = null;
+            this.isRepeat = false;
+            this.isInRepeat = false;
+            this.isGroupSizeLocked = false;
+            this.errorMessage = errorMessage;
+        }
+    }
 }
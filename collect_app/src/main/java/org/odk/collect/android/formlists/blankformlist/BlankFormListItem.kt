@@ -3,7 +3,7 @@ package org.odk.collect.android.formlists.blankformlist
 import android.net.Uri
 import org.odk.collect.android.external.FormsContract
 import org.odk.collect.forms.Form
-import org.odk.collect.forms.instances.InstancesRepository
+import org.odk.collect.forms.instances.FormVersion
 
 data class BlankFormListItem(
     val databaseId: Long,
@@ -17,17 +17,19 @@ data class BlankFormListItem(
     val contentUri: Uri
 )
 
-fun Form.toBlankFormListItem(projectId: String, instancesRepository: InstancesRepository) = BlankFormListItem(
+/**
+ * @param lastStatusChangeDates the result of
+ * [org.odk.collect.forms.instances.InstancesRepository.getLastStatusChangeDates] so that it can be
+ * shared between every form in a list
+ */
+fun Form.toBlankFormListItem(projectId: String, lastStatusChangeDates: Map<FormVersion, Long>) = BlankFormListItem(
     databaseId = this.dbId,
     formId = this.formId,
     formName = this.displayName,
     formVersion = this.version ?: "",
     geometryPath = this.geometryXpath ?: "",
     dateOfCreation = this.date,
-    dateOfLastUsage = instancesRepository
-        .getAllByFormId(this.formId)
-        .filter { it.formVersion == this.version }
-        .maxByOrNull { it.lastStatusChangeDate }?.lastStatusChangeDate ?: 0L,
+    dateOfLastUsage = lastStatusChangeDates[FormVersion(this.formId, this.version)] ?: 0L,
     dateOfLastDetectedAttachmentsUpdate = this.lastDetectedAttachmentsUpdateDate,
     contentUri = FormsContract.getUri(projectId, this.dbId)
 )
@@ -123,11 +123,12 @@ class BlankFormListViewModel(
         sort: SortOrder,
         filter: String
     ): List<BlankFormListItem> {
+        val lastStatusChangeDates = instancesRepository.lastStatusChangeDates
         var newListOfForms = forms
             .filter {
                 !it.isDeleted
             }.map { form ->
-                form.toBlankFormListItem(projectId, instancesRepository)
+                form.toBlankFormListItem(projectId, lastStatusChangeDates)
             }
 
         if (!showAllVersions) {
@@ -2,30 +2,23 @@ package org.odk.collect.android.formmanagement
 
 import org.odk.collect.shared.locks.ChangeLock
 
-class FormUpdateDownloader {
+class FormUpdateDownloader @JvmOverloads constructor(
+    private val parallelism: Int = ParallelFormDownloader.DEFAULT_PARALLELISM
+) {
 
     fun downloadUpdates(
         updatedForms: List<ServerFormDetails>,
         changeLock: ChangeLock,
         formDownloader: FormDownloader
     ): Map<ServerFormDetails, FormDownloadException?> {
-        val results = mutableMapOf<ServerFormDetails, FormDownloadException?>()
-
-        changeLock.withLock { acquiredLock: Boolean ->
+        return changeLock.withLock { acquiredLock: Boolean ->
             if (acquiredLock) {
-                for (serverFormDetails in updatedForms) {
-                    try {
-                        formDownloader.downloadForm(serverFormDetails, null, null)
-                        results[serverFormDetails] = null
-                    } catch (e: FormDownloadException.DownloadingInterrupted) {
-                        break
-                    } catch (e: FormDownloadException) {
-                        results[serverFormDetails] = e
-                    }
-                }
+                ParallelFormDownloader(formDownloader, parallelism)
+                    .downloadForms(updatedForms)
+                    .results
+            } else {
+                emptyMap()
             }
         }
-
-        return results
     }
 }
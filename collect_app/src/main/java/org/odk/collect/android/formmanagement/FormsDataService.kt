@@ -4,10 +4,12 @@ import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
+import org.odk.collect.android.backgroundwork.FormUpdateScheduler
 import org.odk.collect.android.formmanagement.matchexactly.ServerFormsSynchronizer
 import org.odk.collect.android.notifications.Notifier
 import org.odk.collect.android.projects.ProjectDependencyProvider
 import org.odk.collect.android.projects.ProjectDependencyProviderFactory
+import org.odk.collect.android.utilities.ExternalizableFormDefCache
 import org.odk.collect.androidshared.data.AppState
 import org.odk.collect.forms.Form
 import org.odk.collect.forms.FormSourceException
@@ -20,6 +22,7 @@ class FormsDataService(
     private val appState: AppState,
     private val notifier: Notifier,
     private val projectDependencyProviderFactory: ProjectDependencyProviderFactory,
+    private val formUpdateScheduler: FormUpdateScheduler,
     private val clock: Supplier<Long>
 ) {
 
@@ -72,6 +75,7 @@ class FormsDataService(
                             )
 
                             notifier.onUpdatesDownloaded(results, projectId)
+                            formUpdateScheduler.schedulePreWarm(projectId)
                         } else {
                             notifier.onUpdatesAvailable(updatedForms, projectId)
                         }
@@ -109,6 +113,7 @@ class FormsDataService(
 
                 val exception = try {
                     serverFormsSynchronizer.synchronize()
+                    formUpdateScheduler.schedulePreWarm(projectId)
                     if (notify) {
                         notifier.onSync(null, projectId)
                     }
@@ -131,6 +136,29 @@ class FormsDataService(
         }
     }
 
+    /**
+     * Parses and caches any of the project's forms that haven't been pre-warmed since they were
+     * downloaded or last changed so that opening them for the first time is fast. This doesn't
+     * hold the forms lock as it can take a long time - forms that change while they are being
+     * pre-warmed are left to be picked up next time. See [LocalFormUseCases.preWarmForm] for why
+     * that's safe to do while a form is open.
+     */
+    fun preWarmForms(projectId: String) {
+        val projectDependencies = projectDependencyProviderFactory.create(projectId)
+        val formsRepository = projectDependencies.formsRepository
+
+        formsRepository.all.filter { !it.isDeleted && !it.isPreWarmed }.forEach { form ->
+            if (LocalFormUseCases.preWarmForm(form, ExternalizableFormDefCache())) {
+                val currentForm = formsRepository[form.dbId]
+                if (currentForm != null && currentForm.mD5Hash == form.mD5Hash) {
+                    formsRepository.save(Form.Builder(currentForm).preWarmed(true).build())
+                }
+            }
+        }
+
+        syncWithDb(projectId)
+    }
+
     fun deleteForm(projectId: String, formId: Long) {
         val projectDependencies = projectDependencyProviderFactory.create(projectId)
         LocalFormUseCases.deleteForm(
@@ -157,7 +185,8 @@ class FormsDataService(
         val projectDependencies = projectDependencyProviderFactory.create(projectId)
         val error = LocalFormUseCases.synchronizeWithDisk(
             projectDependencies.formsRepository,
-            projectDependencies.formsDir
+            projectDependencies.formsDir,
+            LocalFormUseCases.getFormFileIndex(File(projectDependencies.cacheDir))
         )
 
         getDiskErrorLiveData(projectId).postValue(error)
@@ -216,6 +245,7 @@ private fun serverFormsDetailsFetcher(
 ): ServerFormsDetailsFetcher {
     return ServerFormsDetailsFetcher(
         projectDependencyProvider.formsRepository,
-        projectDependencyProvider.formSource
+        projectDependencyProvider.formSource,
+        ServerFormDownloaderUseCases.getMediaFileIndex(File(projectDependencyProvider.cacheDir))
     )
 }
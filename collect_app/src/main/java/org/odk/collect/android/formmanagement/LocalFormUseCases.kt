@@ -1,9 +1,14 @@
 package org.odk.collect.android.formmanagement
 
 import android.database.SQLException
+import org.javarosa.core.model.FormDef
+import org.javarosa.core.reference.ReferenceManager
 import org.javarosa.xform.parse.XFormParser
 import org.odk.collect.android.R
 import org.odk.collect.android.application.Collect
+import org.odk.collect.android.formentry.FormDefCache
+import org.odk.collect.android.tasks.FormLoaderTask
+import org.odk.collect.android.utilities.FileHashIndex
 import org.odk.collect.android.utilities.FileUtils
 import org.odk.collect.androidshared.utils.Validator
 import org.odk.collect.forms.Form
@@ -13,11 +18,14 @@ import org.odk.collect.shared.strings.Md5
 import org.odk.collect.strings.localization.getLocalizedString
 import timber.log.Timber
 import java.io.File
-import java.util.Collections
 import java.util.LinkedList
 
 object LocalFormUseCases {
 
+    private const val FORM_INDEX_FILE_NAME = "forms.index"
+
+    private val EXTERNAL_INSTANCE = Regex("<(\\w+:)?instance\\b[^>]*\\bsrc\\s*=")
+
     private var counter = 0
 
     @JvmStatic
@@ -46,7 +54,64 @@ object LocalFormUseCases {
         }
     }
 
-    fun synchronizeWithDisk(formsRepository: FormsRepository, formsDir: String?): String {
+    /**
+     * Does the work that would otherwise happen the first time a form is opened: parses the XForm
+     * and writes it to the [FormDefCache].
+     *
+     * This runs in the background while another form might be loading. Parsing goes through
+     * [FileUtils.parseFormDefinition] so it never overlaps with [FormLoaderTask] or
+     * [synchronizeWithDisk] parsing a form. The global [ReferenceManager] is left alone (forms
+     * with external secondary instances need it to parse so they are skipped) and unzipping media
+     * and building external data and itemsets databases is still left to [FormLoaderTask].
+     *
+     * @return `true` if the form's [FormDef] is in the cache
+     */
+    @JvmStatic
+    fun preWarmForm(form: Form, formDefCache: FormDefCache): Boolean {
+        val xForm = File(form.formFilePath)
+        if (!xForm.exists()) {
+            return false
+        }
+
+        return try {
+            if (formDefCache.isCached(xForm)) {
+                true
+            } else if (hasExternalSecondaryInstances(xForm)) {
+                false
+            } else {
+                val formDef = FileUtils.parseFormDefinition(
+                    xForm.absolutePath,
+                    "jr://file/" + FileUtils.LAST_SAVED_FILENAME
+                )
+                formDefCache.writeCache(formDef, xForm.path)
+                true
+            }
+        } catch (e: Exception) {
+            Timber.w(e)
+            false
+        }
+    }
+
+    private fun hasExternalSecondaryInstances(xForm: File): Boolean {
+        return EXTERNAL_INSTANCE.containsMatchIn(xForm.readText())
+    }
+
+    /**
+     * @return the project's index of form file hashes. This lets [synchronizeWithDisk] tell
+     * which form files have changed from their size and modification time rather than hashing
+     * every form each time.
+     */
+    @JvmStatic
+    fun getFormFileIndex(cacheDir: File): FileHashIndex {
+        return FileHashIndex.get(File(cacheDir, FORM_INDEX_FILE_NAME))
+    }
+
+    @JvmOverloads
+    fun synchronizeWithDisk(
+        formsRepository: FormsRepository,
+        formsDir: String?,
+        formFileIndex: FileHashIndex? = null
+    ): String {
         var statusMessage = ""
         val instance = ++counter
         Timber.i("[%d] doInBackground begins!", instance)
@@ -63,10 +128,18 @@ object LocalFormUseCases {
                 val formsToAdd = filterFormsToAdd(formDefs, instance)
 
                 // Step 2: quickly run through and figure out what files we need to
-                // parse and update; this is quick, as we only calculate the md5
+                // parse and update; this is quick, as we only look up the md5 in the
+                // index (which only hashes files whose size or modified time has changed)
                 // and see if it has changed.
-                val uriToUpdate: MutableList<IdFile?> = ArrayList()
+                val uriToUpdate: MutableList<IdFile> = ArrayList()
                 val forms = formsRepository.all
+                val existingFormFiles = forms.map { File(it.formFilePath) }.filter { it.exists() }
+                val formFileHashes = if (formFileIndex != null) {
+                    formFileIndex.getHashes(existingFormFiles)
+                } else {
+                    existingFormFiles.associateWith { Md5.getMd5Hash(it) }
+                }
+
                 for (form in forms) {
                     // For each element in the provider, see if the file already exists
                     val sqlFilename = form.formFilePath
@@ -76,7 +149,7 @@ object LocalFormUseCases {
                         // remove it from the list of forms (we only want forms
                         // we haven't added at the end)
                         formsToAdd.remove(sqlFile)
-                        val md5Computed = Md5.getMd5Hash(sqlFile)
+                        val md5Computed = formFileHashes[sqlFile]
                         if (md5Computed == null || md5 == null || md5Computed != md5) {
                             // Probably someone overwrite the file on the sdcard
                             // So re-parse it and update it's information
@@ -92,83 +165,67 @@ object LocalFormUseCases {
                     }
                 }
 
-                // Delete the forms not found in sdcard from the database
-                for (id in idsToDelete) {
-                    formsRepository.delete(id)
-                }
-
-                // Step3: go through uriToUpdate to parse and update each in turn.
-                // Note: buildContentValues calls getMetadataFromFormDefinition which parses the
-                // form XML. This takes time for large forms and/or slow devices.
-                Collections.shuffle(uriToUpdate) // Big win if multiple DiskSyncTasks running
-                for (entry in uriToUpdate) {
-                    val formDefFile = entry!!.file
-                    // Probably someone overwrite the file on the sdcard
-                    // So re-parse it and update it's information
-                    var form: Form
-                    form = try {
-                        parseForm(formDefFile)
-                    } catch (e: IllegalArgumentException) {
-                        errors.append(e.message).append("\r\n")
-                        val badFile = File(
-                            formDefFile.parentFile,
-                            formDefFile.name + ".bad"
-                        )
-                        badFile.delete()
-                        formDefFile.renameTo(badFile)
-                        continue
-                    }
-                    formsRepository.save(
-                        Form.Builder(form)
-                            .dbId(entry.id)
-                            .build()
-                    )
-                }
-                uriToUpdate.clear()
-
-                // Step 4: go through the newly-discovered files in xFormsToAdd and add them.
-                // This is slow because buildContentValues(...) is slow.
-                //
-                Collections.shuffle(formsToAdd) // Big win if multiple DiskSyncTasks running
-                while (!formsToAdd.isEmpty()) {
-                    val formDefFile = formsToAdd.removeAt(0)
-
-                    // Since parsing is so slow, if there are multiple tasks,
-                    // they may have already updated the database.
-                    // Skip this file if that is the case.
-                    if (formsRepository.getOneByPath(formDefFile!!.absolutePath) != null) {
+                // Since parsing is so slow, if there are multiple tasks,
+                // they may have already updated the database.
+                // Skip new files if that is the case.
+                formsToAdd.removeAll {
+                    val alreadyRecorded = formsRepository.getOneByPath(it!!.absolutePath) != null
+                    if (alreadyRecorded) {
                         Timber.i(
                             "[%d] skipping -- definition already recorded: %s",
                             instance,
-                            formDefFile.absolutePath
+                            it.absolutePath
                         )
-                        continue
                     }
 
-                    // Parse it for the first time...
-                    var form: Form
-                    form = try {
-                        parseForm(formDefFile)
-                    } catch (e: IllegalArgumentException) {
-                        errors.append(e.message).append("\r\n")
-                        val badFile = File(
-                            formDefFile.parentFile,
-                            formDefFile.name + ".bad"
-                        )
-                        badFile.delete()
-                        formDefFile.renameTo(badFile)
-                        continue
+                    alreadyRecorded
+                }
+
+                // Step 3: parse the changed and newly-discovered files. JavaRosa's parser uses
+                // static state that isn't thread safe so this has to happen one form at a time.
+                val updatedForms = uriToUpdate.map { parseFormOrGetError(it.file) }
+                val addedForms = formsToAdd.filterNotNull().map { parseFormOrGetError(it) }
+
+                // Step 4: write all the changes to the database in one go
+                formsRepository.runInTransaction {
+                    // Delete the forms not found in sdcard from the database
+                    for (id in idsToDelete) {
+                        formsRepository.delete(id)
+                    }
+
+                    uriToUpdate.zip(updatedForms).forEach { (entry, parsedForm) ->
+                        if (parsedForm.form != null) {
+                            formsRepository.save(
+                                Form.Builder(parsedForm.form)
+                                    .dbId(entry.id)
+                                    .build()
+                            )
+                        } else {
+                            errors.append(parsedForm.error).append("\r\n")
+                            markAsBad(parsedForm.file)
+                        }
                     }
 
-                    // insert into content provider
-                    try {
-                        // insert failures are OK and expected if multiple
-                        // DiskSync scanners are active.
-                        formsRepository.save(form)
-                    } catch (e: SQLException) {
-                        Timber.i("[%d] %s", instance, e.toString())
+                    for (parsedForm in addedForms) {
+                        if (parsedForm.form != null) {
+                            // insert into content provider
+                            try {
+                                // insert failures are OK and expected if multiple
+                                // DiskSync scanners are active.
+                                formsRepository.save(parsedForm.form)
+                            } catch (e: SQLException) {
+                                Timber.i("[%d] %s", instance, e.toString())
+                            }
+                        } else {
+                            errors.append(parsedForm.error).append("\r\n")
+                            markAsBad(parsedForm.file)
+                        }
                     }
                 }
+
+                if (idsToDelete.isNotEmpty()) {
+                    formFileIndex?.removeStaleEntries()
+                }
             }
             if (errors.length != 0) {
                 statusMessage = errors.toString()
@@ -209,6 +266,23 @@ object LocalFormUseCases {
         return !ignoredFile && (xmlFile || xhtmlFile)
     }
 
+    private fun parseFormOrGetError(formDefFile: File): ParsedForm {
+        return try {
+            ParsedForm(formDefFile, parseForm(formDefFile), null)
+        } catch (e: IllegalArgumentException) {
+            ParsedForm(formDefFile, null, e.message)
+        }
+    }
+
+    private fun markAsBad(formDefFile: File) {
+        val badFile = File(
+            formDefFile.parentFile,
+            formDefFile.name + ".bad"
+        )
+        badFile.delete()
+        formDefFile.renameTo(badFile)
+    }
+
     @Throws(IllegalArgumentException::class)
     private fun parseForm(formDefFile: File?): Form {
         // Probably someone overwrite the file on the sdcard
@@ -290,4 +364,6 @@ object LocalFormUseCases {
     }
 
     private class IdFile(val id: Long, val file: File)
+
+    private class ParsedForm(val file: File, val form: Form?, val error: String?)
 }
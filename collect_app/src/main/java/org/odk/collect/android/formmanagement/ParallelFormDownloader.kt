@@ -0,0 +1,101 @@
+package org.odk.collect.android.formmanagement
+
+import timber.log.Timber
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Downloads a batch of forms with up to [parallelism] forms in flight at once so that the
+ * XForm, manifest and media transfers for different forms overlap. Callers are expected to hold
+ * the project's forms lock for the duration of [downloadForms]. [ServerFormDownloader] takes
+ * care of installing each form atomically.
+ */
+class ParallelFormDownloader @JvmOverloads constructor(
+    private val formDownloader: FormDownloader,
+    private val parallelism: Int = DEFAULT_PARALLELISM
+) {
+
+    fun downloadForms(forms: List<ServerFormDetails>): Result {
+        val results = mutableMapOf<ServerFormDetails, FormDownloadException?>()
+        val interrupted = AtomicBoolean(false)
+        val completed = AtomicInteger(0)
+        val start = System.currentTimeMillis()
+
+        val executor: ExecutorService = Executors.newFixedThreadPool(parallelism.coerceIn(1, forms.size.coerceAtLeast(1)))
+        val failed = AtomicBoolean(false)
+        var failure: Throwable? = null
+        try {
+            val futures = forms.map { serverFormDetails ->
+                executor.submit(
+                    Callable {
+                        if (interrupted.get() || failed.get()) {
+                            return@Callable
+                        }
+
+                        val result = try {
+                            formDownloader.downloadForm(serverFormDetails, null, null)
+                            null
+                        } catch (e: FormDownloadException.DownloadingInterrupted) {
+                            interrupted.set(true)
+                            return@Callable
+                        } catch (e: FormDownloadException) {
+                            e
+                        } catch (e: Exception) {
+                            failed.set(true)
+                            throw e
+                        }
+
+                        synchronized(results) {
+                            results[serverFormDetails] = result
+                        }
+
+                        Timber.i("Downloaded %d/%d forms", completed.incrementAndGet(), forms.size)
+                    }
+                )
+            }
+
+            futures.forEach {
+                try {
+                    it.get()
+                } catch (e: ExecutionException) {
+                    if (failure == null) {
+                        failure = e.cause ?: e
+                    }
+                }
+            }
+        } catch (e: InterruptedException) {
+            interrupted.set(true)
+        } finally {
+            executor.shutdownNow()
+        }
+
+        val seconds = (System.currentTimeMillis() - start) / 1000F
+        Timber.i(
+            "Downloaded %d forms in %.3f seconds (%.2f forms/s)",
+            completed.get(),
+            seconds,
+            if (seconds > 0) completed.get() / seconds else 0F
+        )
+
+        // Unexpected errors are rethrown here rather than left to crash the pool thread, just as
+        // they would have been if the forms were downloaded one at a time
+        failure?.let { throw it }
+
+        return synchronized(results) {
+            Result(results.toMap(), interrupted.get())
+        }
+    }
+
+    data class Result(
+        val results: Map<ServerFormDetails, FormDownloadException?>,
+        val interrupted: Boolean
+    )
+
+    companion object {
+        const val DEFAULT_PARALLELISM = 4
+    }
+}
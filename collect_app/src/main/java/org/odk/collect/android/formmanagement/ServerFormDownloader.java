@@ -4,6 +4,7 @@ import static org.odk.collect.android.utilities.FileUtils.interuptablyWriteFile;
 
 import org.javarosa.xform.parse.XFormParser;
 import org.jetbrains.annotations.NotNull;
+import org.odk.collect.android.utilities.FileHashIndex;
 import org.odk.collect.android.utilities.FileUtils;
 import org.odk.collect.android.utilities.FormNameUtils;
 import org.odk.collect.androidshared.utils.Validator;
@@ -19,7 +20,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 import java.util.function.Supplier;
@@ -37,6 +40,12 @@ public class ServerFormDownloader implements FormDownloader {
     private final FormMetadataParser formMetadataParser;
     private final Supplier<Long> clock;
 
+    /**
+     * Forms can be downloaded in parallel (see {@link ParallelFormDownloader}) so parsing and
+     * installing is serialized to keep each form's install atomic.
+     */
+    private final Object installLock = new Object();
+
     public ServerFormDownloader(FormSource formSource, FormsRepository formsRepository, File cacheDir, String formsDirPath, FormMetadataParser formMetadataParser, Supplier<Long> clock) {
         this.formSource = formSource;
         this.cacheDir = cacheDir;
@@ -110,34 +119,36 @@ public class ServerFormDownloader implements FormDownloader {
             throw new FormDownloadException.DownloadingInterrupted();
         }
 
-        Map<String, String> parsedFields = null;
-        if (fileResult.isNew) {
-            try {
-                final long start = System.currentTimeMillis();
-                Timber.i("Parsing document %s", fileResult.file.getAbsolutePath());
+        synchronized (installLock) {
+            Map<String, String> parsedFields = null;
+            if (fileResult.isNew) {
+                try {
+                    final long start = System.currentTimeMillis();
+                    Timber.i("Parsing document %s", fileResult.file.getAbsolutePath());
 
-                parsedFields = formMetadataParser
-                        .parse(fileResult.file, new File(tempMediaPath));
+                    parsedFields = formMetadataParser
+                            .parse(fileResult.file, new File(tempMediaPath));
 
-                Timber.i("Parse finished in %.3f seconds.", (System.currentTimeMillis() - start) / 1000F);
-            } catch (RuntimeException | XFormParser.ParseException e) {
-                throw new FormDownloadException.FormParsingError();
+                    Timber.i("Parse finished in %.3f seconds.", (System.currentTimeMillis() - start) / 1000F);
+                } catch (RuntimeException | XFormParser.ParseException e) {
+                    throw new FormDownloadException.FormParsingError();
+                }
             }
-        }
 
-        if (stateListener != null && stateListener.isCancelled()) {
-            throw new FormDownloadException.DownloadingInterrupted();
-        }
+            if (stateListener != null && stateListener.isCancelled()) {
+                throw new FormDownloadException.DownloadingInterrupted();
+            }
 
-        if (fileResult.isNew && !isSubmissionOk(parsedFields)) {
-            throw new FormDownloadException.InvalidSubmission();
-        }
+            if (fileResult.isNew && !isSubmissionOk(parsedFields)) {
+                throw new FormDownloadException.InvalidSubmission();
+            }
 
-        try {
-            installEverything(tempMediaPath, fileResult, parsedFields, formsDirPath, newAttachmentsDetected);
-        } catch (FormDownloadException.DiskError e) {
-            cleanUp(fileResult, tempMediaPath);
-            throw e;
+            try {
+                installEverything(tempMediaPath, fileResult, parsedFields, formsDirPath, newAttachmentsDetected);
+            } catch (FormDownloadException.DiskError e) {
+                cleanUp(fileResult, tempMediaPath);
+                throw e;
+            }
         }
     }
 
@@ -152,8 +163,13 @@ public class ServerFormDownloader implements FormDownloader {
         File formFile;
 
         if (fileResult.isNew()) {
-            // Copy form to forms dir
+            // Copy form to forms dir. Another form with the same name may have been installed
+            // since the file name was picked.
             formFile = new File(formsDirPath, fileResult.file.getName());
+            if (formFile.exists()) {
+                String fileName = fileResult.file.getName();
+                formFile = new File(formsDirPath, getFormFileName(fileName.substring(0, fileName.lastIndexOf('.')), formsDirPath));
+            }
             FileUtils.copyFile(fileResult.file, formFile);
         } else {
             formFile = fileResult.file;
@@ -161,7 +177,7 @@ public class ServerFormDownloader implements FormDownloader {
             if (newAttachmentsDetected) {
                 Form existingForm = formsRepository.getOneByPath(formFile.getAbsolutePath());
                 if (existingForm != null) {
-                    formsRepository.save(new Form.Builder(existingForm).lastDetectedAttachmentsUpdateDate(clock.get()).build());
+                    formsRepository.save(new Form.Builder(existingForm).lastDetectedAttachmentsUpdateDate(clock.get()).preWarmed(false).build());
                 }
             }
         }
@@ -175,6 +191,7 @@ public class ServerFormDownloader implements FormDownloader {
 
             try {
                 moveMediaFiles(tempMediaPath, formMediaDir);
+                updateMediaFileIndex(new File(tempMediaPath), formMediaDir);
             } catch (IOException e) {
                 Timber.e(e);
 
@@ -188,6 +205,31 @@ public class ServerFormDownloader implements FormDownloader {
         }
     }
 
+    /**
+     * Records the hashes of the form's media files (including any zips, which will be deleted once
+     * they have been extracted) so later update checks don't have to hash the files again. Entries
+     * for media that has since been replaced or deleted are pruned first.
+     */
+    private void updateMediaFileIndex(File tempMediaDir, File formMediaDir) {
+        FileHashIndex mediaFileIndex = ServerFormDownloaderUseCases.getMediaFileIndex(cacheDir);
+        mediaFileIndex.removeStaleEntries();
+
+        File[] mediaFiles = formMediaDir.listFiles();
+        if (mediaFiles != null) {
+            mediaFileIndex.getHashes(Arrays.asList(mediaFiles));
+        }
+
+        File[] downloadedMediaFiles = tempMediaDir.listFiles((dir, name) -> name.toLowerCase(Locale.US).endsWith(".zip"));
+        if (downloadedMediaFiles != null) {
+            for (File zipFile : downloadedMediaFiles) {
+                String hash = Md5.getMd5Hash(zipFile);
+                if (hash != null) {
+                    mediaFileIndex.putArchiveHash(new File(formMediaDir, zipFile.getName()), hash);
+                }
+            }
+        }
+    }
+
     private void cleanUp(FileResult fileResult, String tempMediaPath) {
         if (fileResult == null) {
             Timber.d("The user cancelled (or an exception happened) the download of a form at the very beginning.");
@@ -1,5 +1,6 @@
 package org.odk.collect.android.formmanagement
 
+import org.odk.collect.android.utilities.FileHashIndex
 import org.odk.collect.android.utilities.FileUtils
 import org.odk.collect.android.utilities.FileUtils.LAST_SAVED_FILENAME
 import org.odk.collect.async.OngoingWorkListener
@@ -9,10 +10,30 @@ import org.odk.collect.forms.FormSourceException
 import org.odk.collect.forms.FormsRepository
 import org.odk.collect.forms.MediaFile
 import org.odk.collect.shared.strings.Md5
+import timber.log.Timber
 import java.io.File
 import java.io.IOException
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
 
 object ServerFormDownloaderUseCases {
+
+    private const val DEFAULT_MEDIA_PARALLELISM = 4
+    private const val MEDIA_INDEX_FILE_NAME = "media.index"
+
+    /**
+     * @return the project's index of media file hashes. This is kept up to date as media files
+     * are downloaded so that checking for updated media is a metadata lookup.
+     */
+    @JvmStatic
+    fun getMediaFileIndex(cacheDir: File): FileHashIndex {
+        return FileHashIndex.get(File(cacheDir, MEDIA_INDEX_FILE_NAME))
+    }
+
     @JvmStatic
     fun copySavedFileFromPreviousFormVersionIfExists(formsRepository: FormsRepository, formId: String, mediaDirPath: String) {
         val lastSavedFile: File? = formsRepository
@@ -38,45 +59,76 @@ object ServerFormDownloaderUseCases {
         tempMediaPath: String,
         tempDir: File,
         stateListener: OngoingWorkListener,
-        test: Boolean = false
+        test: Boolean = false,
+        parallelism: Int = DEFAULT_MEDIA_PARALLELISM
     ): Boolean {
-        var atLeastOneNewMediaFileDetected = false
+        val atLeastOneNewMediaFileDetected = AtomicBoolean(false)
         val tempMediaDir = File(tempMediaPath).also { it.mkdir() }
 
-        formToDownload.manifest!!.mediaFiles.forEachIndexed { i, mediaFile ->
-            stateListener.progressUpdate(i + 1)
+        val mediaFiles = formToDownload.manifest!!.mediaFiles
+        val completed = AtomicInteger(0)
+        val downloadedBytes = AtomicLong(0)
+        val start = System.currentTimeMillis()
 
-            val tempMediaFile = File(tempMediaDir, mediaFile.filename)
+        val executor = Executors.newFixedThreadPool(parallelism.coerceIn(1, mediaFiles.size.coerceAtLeast(1)))
+        val downloads = mediaFiles.map { mediaFile ->
+            executor.submit(
+                Callable {
+                    val tempMediaFile = File(tempMediaDir, mediaFile.filename)
 
-            val existingFile = searchForExistingMediaFile(formsRepository, formToDownload, mediaFile)
-            existingFile.let {
-                if (it != null) {
-                    if (Md5.getMd5Hash(it).contentEquals(mediaFile.hash)) {
-                        FileUtils.copyFile(it, tempMediaFile)
-                    } else {
-                        val existingFileHash = Md5.getMd5Hash(it)
-                        val file = formSource.fetchMediaFile(mediaFile.downloadUrl)
-                        FileUtils.interuptablyWriteFile(file, tempMediaFile, tempDir, stateListener)
+                    val existingFile = searchForExistingMediaFile(formsRepository, formToDownload, mediaFile)
+                    existingFile.let {
+                        if (it != null) {
+                            if (Md5.getMd5Hash(it).contentEquals(mediaFile.hash)) {
+                                FileUtils.copyFile(it, tempMediaFile)
+                            } else {
+                                val existingFileHash = Md5.getMd5Hash(it)
+                                val file = formSource.fetchMediaFile(mediaFile.downloadUrl)
+                                FileUtils.interuptablyWriteFile(file, tempMediaFile, tempDir, stateListener)
+                                downloadedBytes.addAndGet(tempMediaFile.length())
 
-                        if (!Md5.getMd5Hash(tempMediaFile).contentEquals(existingFileHash)) {
+                                if (!Md5.getMd5Hash(tempMediaFile).contentEquals(existingFileHash)) {
+                                    if (test) {
+                                        throw Exception("Content does not equal")
+                                    }
+                                    atLeastOneNewMediaFileDetected.set(true)
+                                }
+                            }
+                        } else {
                             if (test) {
-                                throw Exception("Content does not equal")
+                                throw Exception("File does not exist")
                             }
-                            atLeastOneNewMediaFileDetected = true
+                            val file = formSource.fetchMediaFile(mediaFile.downloadUrl)
+                            FileUtils.interuptablyWriteFile(file, tempMediaFile, tempDir, stateListener)
+                            downloadedBytes.addAndGet(tempMediaFile.length())
+                            atLeastOneNewMediaFileDetected.set(true)
                         }
                     }
-                } else {
-                    if (test) {
-                        throw Exception("File does not exist")
-                    }
-                    val file = formSource.fetchMediaFile(mediaFile.downloadUrl)
-                    FileUtils.interuptablyWriteFile(file, tempMediaFile, tempDir, stateListener)
-                    atLeastOneNewMediaFileDetected = true
+
+                    stateListener.progressUpdate(completed.incrementAndGet())
                 }
-            }
+            )
         }
 
-        return atLeastOneNewMediaFileDetected
+        executor.shutdown()
+        try {
+            downloads.forEach { it.get() }
+        } catch (e: ExecutionException) {
+            throw e.cause ?: e
+        } finally {
+            executor.shutdownNow()
+        }
+
+        val seconds = (System.currentTimeMillis() - start) / 1000F
+        Timber.i(
+            "Fetched %d media files (%d bytes downloaded) in %.3f seconds (%.1f KB/s)",
+            mediaFiles.size,
+            downloadedBytes.get(),
+            seconds,
+            if (seconds > 0) downloadedBytes.get() / 1024F / seconds else 0F
+        )
+
+        return atLeastOneNewMediaFileDetected.get()
     }
 
     private fun searchForExistingMediaFile(
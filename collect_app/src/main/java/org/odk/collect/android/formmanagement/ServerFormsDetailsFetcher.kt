@@ -16,6 +16,7 @@
 package org.odk.collect.android.formmanagement
 
 import org.odk.collect.android.openrosa.OpenRosaFormSource
+import org.odk.collect.android.utilities.FileHashIndex
 import org.odk.collect.android.utilities.FormUtils
 import org.odk.collect.android.utilities.WebCredentialsUtils
 import org.odk.collect.forms.Form
@@ -27,13 +28,23 @@ import org.odk.collect.forms.MediaFile
 import org.odk.collect.shared.strings.Md5.getMd5Hash
 import timber.log.Timber
 import java.io.File
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
 
 /**
  * Open to allow mocking (used in existing Java tests)
+ *
+ * Manifests are fetched with up to [manifestParallelism] requests in flight at once so that
+ * building the list for a project with many forms isn't bound by round trip latency. Unchanged
+ * manifests are revalidated with conditional requests by the HTTP cache set up in
+ * [org.odk.collect.android.openrosa.okhttp.OkHttpOpenRosaServerClientProvider].
  */
-open class ServerFormsDetailsFetcher(
+open class ServerFormsDetailsFetcher @JvmOverloads constructor(
     private val formsRepository: FormsRepository,
-    private val formSource: FormSource
+    private val formSource: FormSource,
+    private val mediaFileIndex: FileHashIndex? = null,
+    private val manifestParallelism: Int = DEFAULT_MANIFEST_PARALLELISM
 ) {
     open fun updateUrl(url: String) {
         (formSource as OpenRosaFormSource).updateUrl(url)
@@ -46,10 +57,10 @@ open class ServerFormsDetailsFetcher(
     @Throws(FormSourceException::class)
     open fun fetchFormDetails(): List<ServerFormDetails> {
         val formList = formSource.fetchFormList()
+        val manifestFiles = fetchManifests(formList.mapNotNull { it.manifestURL })
+
         return formList.map { listItem ->
-            val manifestFile = listItem.manifestURL?.let {
-                getManifestFile(formSource, it)
-            }
+            val manifestFile = listItem.manifestURL?.let { manifestFiles[it] }
 
             val forms = formsRepository.getAllNotDeletedByFormId(listItem.formID)
             val thisFormAlreadyDownloaded = forms.isNotEmpty()
@@ -95,6 +106,30 @@ open class ServerFormsDetailsFetcher(
         }
     }
 
+    private fun fetchManifests(manifestUrls: List<String>): Map<String, ManifestFile?> {
+        val distinctUrls = manifestUrls.distinct()
+        if (distinctUrls.size <= 1 || manifestParallelism <= 1) {
+            return distinctUrls.associateWith { getManifestFile(formSource, it) }
+        }
+
+        val executor = Executors.newFixedThreadPool(manifestParallelism.coerceAtMost(distinctUrls.size))
+        try {
+            val futures = distinctUrls.associateWith { url ->
+                executor.submit(Callable { getManifestFile(formSource, url) })
+            }
+
+            return futures.mapValues { (_, future) ->
+                try {
+                    future.get()
+                } catch (e: ExecutionException) {
+                    throw e.cause ?: e
+                }
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
     private fun getManifestFile(formSource: FormSource, manifestUrl: String): ManifestFile? {
         return try {
             formSource.fetchManifest(manifestUrl)
@@ -109,8 +144,14 @@ open class ServerFormsDetailsFetcher(
         newMediaFiles: List<MediaFile>
     ): Boolean {
         val localMediaFiles = FormUtils.getMediaFiles(existingForm)
+        val localMediaFileHashes = if (mediaFileIndex != null) {
+            mediaFileIndex.getHashes(localMediaFiles).values.toSet()
+        } else {
+            localMediaFiles.mapNotNull { getMd5Hash(it) }.toSet()
+        }
+
         return newMediaFiles.any {
-            !isMediaFileAlreadyDownloaded(localMediaFiles, it)
+            !isMediaFileAlreadyDownloaded(existingForm, localMediaFileHashes, it)
         }
     }
 
@@ -119,16 +160,25 @@ open class ServerFormsDetailsFetcher(
     }
 
     private fun isMediaFileAlreadyDownloaded(
-        localMediaFiles: List<File>,
+        existingForm: Form,
+        localMediaFileHashes: Set<String>,
         newMediaFile: MediaFile
     ): Boolean {
-        // TODO Zip files are ignored we should find a way to take them into account too
+        // Zip files are extracted and deleted when the form is loaded so we compare against the
+        // hash stored when they were downloaded. If there isn't one we can't tell so assume the
+        // zip is up to date.
         if (newMediaFile.filename.endsWith(".zip")) {
-            return true
-        }
+            val archiveHash = mediaFileIndex?.getArchiveHash(
+                File(existingForm.formMediaPath, newMediaFile.filename)
+            )
 
-        return localMediaFiles.any {
-            newMediaFile.hash == getMd5Hash(it)
+            return archiveHash == null || archiveHash == newMediaFile.hash
         }
+
+        return localMediaFileHashes.contains(newMediaFile.hash)
+    }
+
+    companion object {
+        const val DEFAULT_MANIFEST_PARALLELISM = 4
     }
 }
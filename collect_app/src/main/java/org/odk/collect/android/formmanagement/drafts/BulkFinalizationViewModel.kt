@@ -2,6 +2,7 @@ package org.odk.collect.android.formmanagement.drafts
 
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
+import org.odk.collect.android.instancemanagement.FinalizeAllProgress
 import org.odk.collect.android.instancemanagement.FinalizeAllResult
 import org.odk.collect.android.instancemanagement.InstancesDataService
 import org.odk.collect.androidshared.data.Consumable
@@ -22,19 +23,24 @@ class BulkFinalizationViewModel(
     private val _isFinalizing = MutableNonNullLiveData(false)
     val isFinalizing: NonNullLiveData<Boolean> = _isFinalizing
 
+    private val _progress = MutableLiveData<FinalizeAllProgress?>(null)
+    val progress: LiveData<FinalizeAllProgress?> = _progress
+
     val draftsCount = instancesDataService.editableCount
     val isEnabled =
         settingsProvider.getProtectedSettings().getBoolean(ProtectedProjectKeys.KEY_BULK_FINALIZE)
 
     fun finalizeAllDrafts() {
         _isFinalizing.value = true
+        _progress.value = null
 
         scheduler.immediate(
             background = {
-                instancesDataService.finalizeAllDrafts()
+                instancesDataService.finalizeAllDrafts { _progress.postValue(it) }
             },
             foreground = {
                 _isFinalizing.value = false
+                _progress.value = null
                 _finalizedForms.value = Consumable(it)
             }
         )
@@ -1,8 +1,8 @@
 package org.odk.collect.android.formmanagement.matchexactly;
 
 import org.odk.collect.android.formmanagement.LocalFormUseCases;
-import org.odk.collect.android.formmanagement.FormDownloadException;
 import org.odk.collect.android.formmanagement.FormDownloader;
+import org.odk.collect.android.formmanagement.ParallelFormDownloader;
 import org.odk.collect.android.formmanagement.ServerFormDetails;
 import org.odk.collect.android.formmanagement.ServerFormsDetailsFetcher;
 import org.odk.collect.forms.Form;
@@ -11,6 +11,8 @@ import org.odk.collect.forms.FormsRepository;
 import org.odk.collect.forms.instances.InstancesRepository;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 public class ServerFormsSynchronizer {
 
@@ -35,20 +37,17 @@ public class ServerFormsSynchronizer {
             }
         });
 
-        boolean downloadException = false;
-
-        for (ServerFormDetails form : formList) {
-            if (form.isNotOnDevice() || form.isUpdated()) {
-                try {
-                    formDownloader.downloadForm(form, null, null);
-                } catch (FormDownloadException.DownloadingInterrupted e) {
-                    return;
-                } catch (FormDownloadException e) {
-                    downloadException = true;
-                }
-            }
+        List<ServerFormDetails> formsToDownload = formList.stream()
+                .filter(form -> form.isNotOnDevice() || form.isUpdated())
+                .collect(Collectors.toList());
+
+        ParallelFormDownloader.Result result = new ParallelFormDownloader(formDownloader).downloadForms(formsToDownload);
+        if (result.getInterrupted()) {
+            return;
         }
 
+        boolean downloadException = result.getResults().values().stream().anyMatch(Objects::nonNull);
+
         if (downloadException) {
             throw new FormSourceException.FetchError();
         }
@@ -18,6 +18,7 @@ import org.odk.collect.android.audio.AudioRecordingControllerFragment;
 import org.odk.collect.android.audio.AudioRecordingErrorDialogFragment;
 import org.odk.collect.android.backgroundwork.AutoSendTaskSpec;
 import org.odk.collect.android.backgroundwork.AutoUpdateTaskSpec;
+import org.odk.collect.android.backgroundwork.PreWarmFormsTaskSpec;
 import org.odk.collect.android.backgroundwork.SyncFormsTaskSpec;
 import org.odk.collect.android.configure.qr.QRCodeScannerFragment;
 import org.odk.collect.android.configure.qr.QRCodeTabsActivity;
@@ -196,6 +197,8 @@ public interface AppDependencyComponent {
 
     void inject(AutoUpdateTaskSpec autoUpdateTaskSpec);
 
+    void inject(PreWarmFormsTaskSpec preWarmFormsTaskSpec);
+
     void inject(ServerAuthDialogFragment serverAuthDialogFragment);
 
     void inject(BasePreferencesFragment basePreferencesFragment);
@@ -54,6 +54,7 @@ import org.odk.collect.android.formmanagement.FormSourceProvider;
 import org.odk.collect.android.formmanagement.FormsDataService;
 import org.odk.collect.android.instancemanagement.InstancesDataService;
 import org.odk.collect.android.formmanagement.ServerFormDownloader;
+import org.odk.collect.android.formmanagement.ServerFormDownloaderUseCases;
 import org.odk.collect.android.formmanagement.ServerFormsDetailsFetcher;
 import org.odk.collect.android.geo.MapFragmentFactoryImpl;
 import org.odk.collect.android.instancemanagement.autosend.AutoSendSettingsProvider;
@@ -340,9 +341,10 @@ public class AppDependencyModule {
     }
 
     @Provides
-    public ServerFormsDetailsFetcher providesServerFormDetailsFetcher(FormsRepositoryProvider formsRepositoryProvider, FormSourceProvider formSourceProvider) {
+    public ServerFormsDetailsFetcher providesServerFormDetailsFetcher(FormsRepositoryProvider formsRepositoryProvider, FormSourceProvider formSourceProvider, StoragePathProvider storagePathProvider) {
         FormsRepository formsRepository = formsRepositoryProvider.get();
-        return new ServerFormsDetailsFetcher(formsRepository, formSourceProvider.get());
+        File cacheDir = new File(storagePathProvider.getOdkDirPath(StorageSubdirectory.CACHE));
+        return new ServerFormsDetailsFetcher(formsRepository, formSourceProvider.get(), ServerFormDownloaderUseCases.getMediaFileIndex(cacheDir));
     }
 
     @Provides
@@ -504,8 +506,8 @@ public class AppDependencyModule {
     }
 
     @Provides
-    public FormsDataService providesFormsUpdater(Application application, Notifier notifier, ProjectDependencyProviderFactory projectDependencyProviderFactory) {
-        return new FormsDataService(getState(application), notifier, projectDependencyProviderFactory, System::currentTimeMillis);
+    public FormsDataService providesFormsUpdater(Application application, Notifier notifier, ProjectDependencyProviderFactory projectDependencyProviderFactory, FormUpdateScheduler formUpdateScheduler) {
+        return new FormsDataService(getState(application), notifier, projectDependencyProviderFactory, formUpdateScheduler, System::currentTimeMillis);
     }
 
     @Provides
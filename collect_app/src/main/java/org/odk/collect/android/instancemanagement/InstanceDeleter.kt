@@ -1,8 +1,10 @@
 package org.odk.collect.android.instancemanagement
 
+import org.odk.collect.android.tasks.SavepointJournal
 import org.odk.collect.forms.FormsRepository
 import org.odk.collect.forms.instances.Instance
 import org.odk.collect.forms.instances.InstancesRepository
+import java.io.File
 
 class InstanceDeleter(
     private val instancesRepository: InstancesRepository,
@@ -15,6 +17,7 @@ class InstanceDeleter(
             } else {
                 instancesRepository.delete(id)
             }
+            instance.instanceFilePath?.let { SavepointJournal.removeForInstance(File(it)) }
             val form =
                 formsRepository.getLatestByFormIdAndVersion(instance.formId, instance.formVersion)
             if (form != null && form.isDeleted) {
@@ -17,11 +17,33 @@ import org.odk.collect.metadata.PropertyManager.Companion.PROPMGR_DEVICE_ID
 import org.odk.collect.settings.keys.ProjectKeys
 import org.odk.collect.shared.settings.Settings
 import timber.log.Timber
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicLong
 
+/**
+ * Submits instances with up to [parallelism] uploads in flight at once. Submissions that fail
+ * with a network error, a timeout or a server error are retried up to [maxAttempts] times with
+ * exponential backoff (starting at [retryDelayMillis]). Anything else (like the server rejecting
+ * the submission or asking for credentials) fails straight away. The status of each instance is
+ * still updated as it is submitted.
+ */
 class InstanceSubmitter(
     private val formsRepository: FormsRepository,
     private val generalSettings: Settings,
-    private val propertyManager: PropertyManager
+    private val propertyManager: PropertyManager,
+    private val parallelism: Int = DEFAULT_PARALLELISM,
+    private val maxAttempts: Int = DEFAULT_MAX_ATTEMPTS,
+    private val retryDelayMillis: Long = DEFAULT_RETRY_DELAY_MILLIS,
+    private val uploaderFactory: () -> InstanceUploader = {
+        InstanceServerUploader(
+            Collect.getInstance().component.openRosaHttpInterface(),
+            WebCredentialsUtils(generalSettings),
+            generalSettings
+        )
+    },
+    private val sleep: (Long) -> Unit = { Thread.sleep(it) }
 ) {
 
     @Throws(SubmitException::class)
@@ -29,34 +51,78 @@ class InstanceSubmitter(
         if (toUpload.isEmpty()) {
             throw SubmitException
         }
-        val result = mutableMapOf<Instance, FormUploadException?>()
         val deviceId = propertyManager.getSingularProperty(PROPMGR_DEVICE_ID)
 
-        val uploader = setUpODKUploader()
+        val uploader = uploaderFactory()
+
+        val start = System.currentTimeMillis()
+        val totalUploadMillis = AtomicLong(0)
+        val executor = Executors.newFixedThreadPool(parallelism.coerceIn(1, toUpload.size))
+        val result = try {
+            toUpload.map { instance ->
+                instance to executor.submit(
+                    Callable {
+                        val uploadStart = System.currentTimeMillis()
+                        val exception = submitInstance(uploader, instance, deviceId)
+                        totalUploadMillis.addAndGet(System.currentTimeMillis() - uploadStart)
+                        exception
+                    }
+                )
+            }.associateTo(linkedMapOf<Instance, FormUploadException?>()) { (instance, future) ->
+                instance to try {
+                    future.get()
+                } catch (e: ExecutionException) {
+                    throw e.cause ?: e
+                }
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+
+        val seconds = (System.currentTimeMillis() - start) / 1000F
+        Timber.i(
+            "Submitted %d/%d instances in %.3f seconds (%.2f instances/s, %d ms average latency)",
+            result.values.count { it == null },
+            toUpload.size,
+            seconds,
+            if (seconds > 0) toUpload.size / seconds else 0F,
+            totalUploadMillis.get() / toUpload.size
+        )
+
+        return result
+    }
 
-        for (instance in toUpload) {
+    private fun submitInstance(
+        uploader: InstanceUploader,
+        instance: Instance,
+        deviceId: String?
+    ): FormUploadException? {
+        var attempt = 1
+        while (true) {
             try {
                 val destinationUrl = uploader.getUrlToSubmitTo(instance, deviceId, null, null)
                 uploader.uploadOneSubmission(instance, destinationUrl)
-                result[instance] = null
 
                 deleteInstance(instance)
                 logUploadedForm(instance)
+                return null
             } catch (e: FormUploadException) {
                 Timber.d(e)
-                result[instance] = e
+
+                if (!e.isRetryable || attempt >= maxAttempts) {
+                    return e
+                }
+
+                try {
+                    sleep(retryDelayMillis shl (attempt - 1))
+                } catch (interrupted: InterruptedException) {
+                    Thread.currentThread().interrupt()
+                    return e
+                }
+
+                attempt++
             }
         }
-        return result
-    }
-
-    private fun setUpODKUploader(): InstanceUploader {
-        val httpInterface = Collect.getInstance().component.openRosaHttpInterface()
-        return InstanceServerUploader(
-            httpInterface,
-            WebCredentialsUtils(generalSettings),
-            generalSettings
-        )
     }
 
     private fun deleteInstance(instance: Instance) {
@@ -78,4 +144,10 @@ class InstanceSubmitter(
 
         Analytics.log(AnalyticsEvents.SUBMISSION, "HTTP auto", value)
     }
+
+    companion object {
+        const val DEFAULT_PARALLELISM = 4
+        const val DEFAULT_MAX_ATTEMPTS = 3
+        const val DEFAULT_RETRY_DELAY_MILLIS = 1000L
+    }
 }
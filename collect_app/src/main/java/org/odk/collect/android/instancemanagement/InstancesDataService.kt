@@ -2,6 +2,8 @@ package org.odk.collect.android.instancemanagement
 
 import androidx.lifecycle.LiveData
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.map
+import org.javarosa.core.model.FormDef
 import org.odk.collect.analytics.Analytics
 import org.odk.collect.android.analytics.AnalyticsEvents
 import org.odk.collect.android.application.Collect
@@ -12,12 +14,17 @@ import org.odk.collect.android.formmanagement.CollectFormEntryControllerFactory
 import org.odk.collect.android.projects.ProjectsDataService
 import org.odk.collect.android.storage.StoragePathProvider
 import org.odk.collect.android.storage.StorageSubdirectory
+import org.odk.collect.android.tasks.SavepointJournal
 import org.odk.collect.android.utilities.ExternalizableFormDefCache
 import org.odk.collect.android.utilities.FormsRepositoryProvider
 import org.odk.collect.android.utilities.InstancesRepositoryProvider
 import org.odk.collect.androidshared.data.AppState
+import org.odk.collect.entities.EntitiesRepository
+import org.odk.collect.forms.Form
 import org.odk.collect.forms.instances.Instance
+import org.odk.collect.forms.instances.InstancesRepository
 import java.io.File
+import java.util.concurrent.atomic.AtomicLong
 
 class InstancesDataService(
     private val appState: AppState,
@@ -32,20 +39,28 @@ class InstancesDataService(
     val editableCount: LiveData<Int> = appState.getLive(EDITABLE_COUNT_KEY, 0)
     val sendableCount: LiveData<Int> = appState.getLive(SENDABLE_COUNT_KEY, 0)
     val sentCount: LiveData<Int> = appState.getLive(SENT_COUNT_KEY, 0)
-    val instances: Flow<List<Instance>> = appState.getFlow("instances", emptyList())
+
+    /**
+     * Instances are only loaded when this is collected (and again after each [update]) rather
+     * than every time the counts are updated. Collectors should use a background dispatcher.
+     */
+    val instances: Flow<List<Instance>> = appState.getFlow(INSTANCES_UPDATE_KEY, 0L).map {
+        instancesRepositoryProvider.get().all
+    }
 
     fun update() {
-        val instancesRepository = instancesRepositoryProvider.get()
+        val countsByStatus = instancesRepositoryProvider.get().countsByStatus
+        fun count(vararg statuses: String) = statuses.sumOf { countsByStatus[it] ?: 0 }
 
-        val sendableInstances = instancesRepository.getCountByStatus(
+        val sendableInstances = count(
             Instance.STATUS_COMPLETE,
             Instance.STATUS_SUBMISSION_FAILED
         )
-        val sentInstances = instancesRepository.getCountByStatus(
+        val sentInstances = count(
             Instance.STATUS_SUBMITTED,
             Instance.STATUS_SUBMISSION_FAILED
         )
-        val editableInstances = instancesRepository.getCountByStatus(
+        val editableInstances = count(
             Instance.STATUS_INCOMPLETE,
             Instance.STATUS_INVALID,
             Instance.STATUS_VALID
@@ -54,17 +69,20 @@ class InstancesDataService(
         appState.setLive(EDITABLE_COUNT_KEY, editableInstances)
         appState.setLive(SENDABLE_COUNT_KEY, sendableInstances)
         appState.setLive(SENT_COUNT_KEY, sentInstances)
-        appState.setFlow("instances", instancesRepository.all)
+        appState.setFlow(INSTANCES_UPDATE_KEY, instancesUpdate.incrementAndGet())
 
         onUpdate()
     }
 
-    fun finalizeAllDrafts(): FinalizeAllResult {
+    /**
+     * @param onProgress called (on the calling thread) after each draft has been processed
+     */
+    fun finalizeAllDrafts(onProgress: (FinalizeAllProgress) -> Unit = {}): FinalizeAllResult {
         val instancesRepository = instancesRepositoryProvider.get()
         val formsRepository = formsRepositoryProvider.get()
         val entitiesRepository = entitiesRepositoryProvider.get()
         val projectRootDir = File(storagePathProvider.getProjectRootDirPath())
-        val cacheDir = storagePathProvider.getOdkDirPath(StorageSubdirectory.CACHE)
+        val cacheDir = File(storagePathProvider.getOdkDirPath(StorageSubdirectory.CACHE))
 
         val instances = instancesRepository.getAllByStatus(
             Instance.STATUS_INCOMPLETE,
@@ -72,51 +90,29 @@ class InstancesDataService(
             Instance.STATUS_VALID
         )
 
-        val result = instances.fold(FinalizeAllResult(0, 0, false)) { result, instance ->
-            val formDefAndForm = FormEntryUseCases.loadFormDef(
-                instance,
-                formsRepository,
-                projectRootDir,
-                ExternalizableFormDefCache()
-            )
+        var result = FinalizeAllResult(0, 0, false)
+        var processedCount = 0
+        instances.groupBy { Pair(it.formId, it.formVersion) }.forEach { (formIdAndVersion, drafts) ->
+            val (formId, formVersion) = formIdAndVersion
+            val form = formsRepository.getAllByFormIdAndVersion(formId, formVersion).firstOrNull()
+            val formDef = form?.let {
+                FormEntryUseCases.loadFormDef(it, projectRootDir, ExternalizableFormDefCache())
+            }
 
-            if (formDefAndForm == null) {
-                result.copy(failureCount = result.failureCount + 1)
-            } else {
-                val (formDef, form) = formDefAndForm
+            // Drafts are loaded into the same FormDef rather than deserializing it for each one
+            // so keep the blank instance to reset it with between drafts
+            val blankRoot = formDef?.instance?.root?.deepCopy(true)
 
-                val formMediaDir = File(form.formMediaPath)
-                val formEntryController =
-                    CollectFormEntryControllerFactory().create(formDef, formMediaDir)
-                val formController = FormEntryUseCases.loadDraft(form, instance, formEntryController)
-                if (formController == null) {
+            drafts.forEach { instance ->
+                result = if (form == null || formDef == null) {
                     result.copy(failureCount = result.failureCount + 1)
                 } else {
-                    val savePoint = FormEntryUseCases.getSavePoint(formController, File(cacheDir))
-                    val needsEncrypted = form.basE64RSAPublicKey != null
-                    val newResult = if (savePoint != null) {
-                        Analytics.log(AnalyticsEvents.BULK_FINALIZE_SAVE_POINT)
-                        result.copy(failureCount = result.failureCount + 1, unsupportedInstances = true)
-                    } else if (needsEncrypted) {
-                        Analytics.log(AnalyticsEvents.BULK_FINALIZE_ENCRYPTED_FORM)
-                        result.copy(failureCount = result.failureCount + 1, unsupportedInstances = true)
-                    } else {
-                        val finalizedInstance = FormEntryUseCases.finalizeDraft(
-                            formController,
-                            instancesRepository,
-                            entitiesRepository
-                        )
-
-                        if (finalizedInstance == null) {
-                            result.copy(failureCount = result.failureCount + 1)
-                        } else {
-                            result
-                        }
-                    }
-
-                    Collect.getInstance().externalDataManager?.close()
-                    newResult
+                    formDef.instance.root = blankRoot!!.deepCopy(true)
+                    finalizeDraft(instance, form, formDef, cacheDir, instancesRepository, entitiesRepository, result)
                 }
+
+                processedCount++
+                onProgress(FinalizeAllProgress(processedCount, instances.size))
             }
         }
 
@@ -126,6 +122,50 @@ class InstancesDataService(
         return result.copy(successCount = instances.size - result.failureCount)
     }
 
+    private fun finalizeDraft(
+        instance: Instance,
+        form: Form,
+        formDef: FormDef,
+        cacheDir: File,
+        instancesRepository: InstancesRepository,
+        entitiesRepository: EntitiesRepository,
+        result: FinalizeAllResult
+    ): FinalizeAllResult {
+        val formMediaDir = File(form.formMediaPath)
+        val formEntryController =
+            CollectFormEntryControllerFactory().create(formDef, formMediaDir)
+        val formController = FormEntryUseCases.loadDraft(form, instance, formEntryController)
+        return if (formController == null) {
+            result.copy(failureCount = result.failureCount + 1)
+        } else {
+            val savePoint = FormEntryUseCases.getSavePoint(formController, cacheDir)
+            val needsEncrypted = form.basE64RSAPublicKey != null
+            val newResult = if (savePoint != null) {
+                Analytics.log(AnalyticsEvents.BULK_FINALIZE_SAVE_POINT)
+                result.copy(failureCount = result.failureCount + 1, unsupportedInstances = true)
+            } else if (needsEncrypted) {
+                Analytics.log(AnalyticsEvents.BULK_FINALIZE_ENCRYPTED_FORM)
+                result.copy(failureCount = result.failureCount + 1, unsupportedInstances = true)
+            } else {
+                val finalizedInstance = FormEntryUseCases.finalizeDraft(
+                    formController,
+                    instancesRepository,
+                    entitiesRepository
+                )
+
+                if (finalizedInstance == null) {
+                    result.copy(failureCount = result.failureCount + 1)
+                } else {
+                    SavepointJournal.remove(File(cacheDir, formController.getInstanceFile()!!.name + ".save"))
+                    result
+                }
+            }
+
+            Collect.getInstance().externalDataManager?.close()
+            newResult
+        }
+    }
+
     fun deleteInstance(instanceId: Long) {
         InstanceDeleter(instancesRepositoryProvider.get(), formsRepositoryProvider.get()).delete(
             instanceId
@@ -138,7 +178,13 @@ class InstancesDataService(
         private const val EDITABLE_COUNT_KEY = "instancesEditableCount"
         private const val SENDABLE_COUNT_KEY = "instancesSendableCount"
         private const val SENT_COUNT_KEY = "instancesSentCount"
+        private const val INSTANCES_UPDATE_KEY = "instancesUpdate"
+
+        // Shared as a new service is created for each injection but they all share app state
+        private val instancesUpdate = AtomicLong()
     }
 }
 
 data class FinalizeAllResult(val successCount: Int, val failureCount: Int, val unsupportedInstances: Boolean)
+
+data class FinalizeAllProgress(val processedCount: Int, val totalCount: Int)
@@ -16,14 +16,17 @@ import org.odk.collect.shared.strings.Md5;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import okhttp3.Headers;
 import okhttp3.MediaType;
@@ -32,6 +35,10 @@ import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
 import timber.log.Timber;
 
 public class OkHttpConnection implements OpenRosaHttpInterface {
@@ -141,10 +148,26 @@ public class OkHttpConnection implements OpenRosaHttpInterface {
     public HttpPostResult uploadSubmissionAndFiles(@NonNull File submissionFile, @NonNull List<File> fileList, @NonNull URI uri, @Nullable HttpCredentialsInterface credentials, @NonNull long contentLength) throws Exception {
         HttpPostResult postResult = null;
 
+        // Attachments the server acknowledged in an earlier, interrupted attempt don't need to be
+        // sent again
+        SubmissionUploadProgress uploadProgress = SubmissionUploadProgress.load(submissionFile);
+        List<File> remainingFiles = new ArrayList<>();
+        for (File file : fileList) {
+            if (!uploadProgress.isAcknowledged(file)) {
+                remainingFiles.add(file);
+            }
+        }
+
+        if (remainingFiles.size() < fileList.size()) {
+            Timber.i("Resuming upload of %s: %d of %d attachments already sent",
+                    submissionFile.getName(), fileList.size() - remainingFiles.size(), fileList.size());
+        }
+
+        AtomicLong bytesSent = new AtomicLong(0);
         boolean first = true;
         int fileIndex = 0;
         int lastFileIndex;
-        while (fileIndex < fileList.size() || first) {
+        while (fileIndex < remainingFiles.size() || first) {
             lastFileIndex = fileIndex;
             first = false;
             long byteCount = 0L;
@@ -158,8 +181,8 @@ public class OkHttpConnection implements OpenRosaHttpInterface {
             Timber.i("added xml_submission_file: %s", submissionFile.getName());
             byteCount += submissionFile.length();
 
-            for (; fileIndex < fileList.size(); fileIndex++) {
-                File file = fileList.get(fileIndex);
+            for (; fileIndex < remainingFiles.size(); fileIndex++) {
+                File file = remainingFiles.get(fileIndex);
 
                 String contentType = fileToContentTypeMapper.map(file.getName());
 
@@ -170,8 +193,8 @@ public class OkHttpConnection implements OpenRosaHttpInterface {
                 Timber.i("added file of type '%s' %s", contentType, file.getName());
 
                 // we've added at least one attachment to the request...
-                if (fileIndex + 1 < fileList.size()) {
-                    if ((fileIndex - lastFileIndex + 1 > 100) || (byteCount + fileList.get(fileIndex + 1).length()
+                if (fileIndex + 1 < remainingFiles.size()) {
+                    if ((fileIndex - lastFileIndex + 1 > 100) || (byteCount + remainingFiles.get(fileIndex + 1).length()
                             > contentLength)) {
                         // the next file would exceed the 10MB threshold...
                         Timber.i("Extremely long post is being split into multiple posts");
@@ -183,20 +206,29 @@ public class OkHttpConnection implements OpenRosaHttpInterface {
             }
 
             MultipartBody multipartBody = multipartBuilder.build();
-            postResult = executePostRequest(uri, credentials, multipartBody);
+            try {
+                postResult = executePostRequest(uri, credentials, new CountingRequestBody(multipartBody, bytesSent));
+            } catch (Exception e) {
+                Timber.i("Upload of %s interrupted after sending %d bytes", submissionFile.getName(), bytesSent.get());
+                throw e;
+            }
 
             if (postResult.getResponseCode() != HttpURLConnection.HTTP_CREATED &&
                     postResult.getResponseCode() != HttpURLConnection.HTTP_ACCEPTED) {
                 return postResult;
             }
 
+            uploadProgress.acknowledge(remainingFiles.subList(lastFileIndex, fileIndex));
+            Timber.i("Sent %d bytes of %s (%d/%d attachments acknowledged)", bytesSent.get(),
+                    submissionFile.getName(), fileList.size() - remainingFiles.size() + fileIndex, fileList.size());
         }
 
+        uploadProgress.clear();
         return postResult;
     }
 
     @NonNull
-    private HttpPostResult executePostRequest(@NonNull URI uri, @Nullable HttpCredentialsInterface credentials, MultipartBody multipartBody) throws Exception {
+    private HttpPostResult executePostRequest(@NonNull URI uri, @Nullable HttpCredentialsInterface credentials, RequestBody multipartBody) throws Exception {
         OpenRosaServerClient httpClient = clientFactory.get(uri.getScheme(), userAgent, credentials);
         HttpPostResult postResult;
         Request request = new Request.Builder()
@@ -238,4 +270,43 @@ public class OkHttpConnection implements OpenRosaHttpInterface {
             }
         }
     }
+
+    /**
+     * Keeps track of how many bytes of a request body have been written to the network.
+     */
+    private static class CountingRequestBody extends RequestBody {
+
+        private final RequestBody delegate;
+        private final AtomicLong bytesSent;
+
+        CountingRequestBody(RequestBody delegate, AtomicLong bytesSent) {
+            this.delegate = delegate;
+            this.bytesSent = bytesSent;
+        }
+
+        @Nullable
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public void writeTo(@NonNull BufferedSink sink) throws IOException {
+            BufferedSink countingSink = Okio.buffer(new ForwardingSink(sink) {
+                @Override
+                public void write(@NonNull Buffer source, long byteCount) throws IOException {
+                    super.write(source, byteCount);
+                    bytesSent.addAndGet(byteCount);
+                }
+            });
+
+            delegate.writeTo(countingSink);
+            countingSink.flush();
+        }
+    }
 }
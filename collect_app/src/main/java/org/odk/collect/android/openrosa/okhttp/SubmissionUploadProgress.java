@@ -0,0 +1,82 @@
+package org.odk.collect.android.openrosa.okhttp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Properties;
+
+import timber.log.Timber;
+
+/**
+ * Records which attachments of a submission the server has already acknowledged (with a 201 or
+ * 202 response to a partial "*isIncomplete*" post) so that an interrupted upload can carry on
+ * from where it got to rather than sending everything again.
+ * <p>
+ * The progress is stored in a hidden file next to the submission (so it isn't uploaded itself
+ * and is removed along with the instance) and is discarded if the submission file changes.
+ */
+class SubmissionUploadProgress {
+
+    private static final String SUBMISSION_KEY = "submission";
+    private static final String ATTACHMENT_KEY_PREFIX = "attachment:";
+
+    private final File progressFile;
+    private final Properties entries = new Properties();
+
+    private SubmissionUploadProgress(File progressFile) {
+        this.progressFile = progressFile;
+    }
+
+    static SubmissionUploadProgress load(File submissionFile) {
+        File progressFile = new File(submissionFile.getParentFile(), "." + submissionFile.getName() + ".upload");
+        SubmissionUploadProgress progress = new SubmissionUploadProgress(progressFile);
+
+        if (progressFile.exists()) {
+            try (InputStream inputStream = new BufferedInputStream(new FileInputStream(progressFile))) {
+                progress.entries.load(inputStream);
+            } catch (IOException | IllegalArgumentException e) {
+                Timber.w(e);
+                progress.entries.clear();
+            }
+        }
+
+        String submissionFingerprint = getFingerprint(submissionFile);
+        if (!submissionFingerprint.equals(progress.entries.getProperty(SUBMISSION_KEY))) {
+            progress.entries.clear();
+            progress.entries.setProperty(SUBMISSION_KEY, submissionFingerprint);
+        }
+
+        return progress;
+    }
+
+    boolean isAcknowledged(File attachment) {
+        return getFingerprint(attachment).equals(entries.getProperty(ATTACHMENT_KEY_PREFIX + attachment.getName()));
+    }
+
+    void acknowledge(List<File> attachments) {
+        for (File attachment : attachments) {
+            entries.setProperty(ATTACHMENT_KEY_PREFIX + attachment.getName(), getFingerprint(attachment));
+        }
+
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(progressFile))) {
+            entries.store(outputStream, null);
+        } catch (IOException e) {
+            Timber.w(e);
+        }
+    }
+
+    void clear() {
+        entries.clear();
+        progressFile.delete();
+    }
+
+    private static String getFingerprint(File file) {
+        return file.length() + ":" + file.lastModified();
+    }
+}
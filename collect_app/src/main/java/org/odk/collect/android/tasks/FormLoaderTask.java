@@ -18,15 +18,10 @@ import static org.odk.collect.android.utilities.FormUtils.setupReferenceManagerF
 import static org.odk.collect.strings.localization.LocalizedApplicationKt.getLocalizedString;
 
 import android.content.Intent;
-import android.database.Cursor;
-import android.database.SQLException;
 import android.net.Uri;
 
 import androidx.annotation.NonNull;
 
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvValidationException;
-
 import org.javarosa.core.model.FormDef;
 import org.javarosa.core.model.FormIndex;
 import org.javarosa.core.model.instance.InstanceInitializationFactory;
@@ -36,7 +31,6 @@ import org.javarosa.core.model.instance.utils.DefaultAnswerResolver;
 import org.javarosa.core.reference.ReferenceManager;
 import org.javarosa.form.api.FormEntryController;
 import org.javarosa.xform.parse.XFormParser;
-import org.javarosa.xform.util.XFormUtils;
 import org.javarosa.xpath.XPathTypeMismatchException;
 import org.odk.collect.android.application.Collect;
 import org.odk.collect.android.dynamicpreload.ExternalAnswerResolver;
@@ -44,7 +38,7 @@ import org.odk.collect.android.dynamicpreload.ExternalDataManager;
 import org.odk.collect.android.dynamicpreload.ExternalDataUseCases;
 import org.odk.collect.android.external.FormsContract;
 import org.odk.collect.android.external.InstancesContract;
-import org.odk.collect.android.fastexternalitemset.ItemsetDbAdapter;
+import org.odk.collect.android.fastexternalitemset.ItemsetsCsvImporter;
 import org.odk.collect.android.javarosawrapper.FormController;
 import org.odk.collect.android.javarosawrapper.JavaRosaFormController;
 import org.odk.collect.android.listeners.FormLoaderListener;
@@ -60,14 +54,10 @@ import org.odk.collect.async.Scheduler;
 import org.odk.collect.async.SchedulerAsyncTaskMimic;
 import org.odk.collect.forms.Form;
 import org.odk.collect.forms.instances.Instance;
-import org.odk.collect.shared.strings.Md5;
 
 import java.io.File;
-import java.io.FileFilter;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.List;
-import java.util.Locale;
 
 import timber.log.Timber;
 
@@ -78,8 +68,6 @@ import timber.log.Timber;
  * @author Yaw Anokwa (yanokwa@gmail.com)
  */
 public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLoaderTask.FECWrapper> {
-    private static final String ITEMSETS_CSV = "itemsets.csv";
-
     private FormLoaderListener stateListener;
     private String errorMsg;
     private String warningMsg;
@@ -189,7 +177,7 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
         final File formXml = new File(form.getFormFilePath());
         final File formMediaDir = FileUtils.getFormMediaDir(formXml);
 
-        unzipMediaFiles(formMediaDir);
+        ZipUtils.unzipMediaFiles(formMediaDir);
         setupReferenceManagerForForm(ReferenceManager.instance(), formMediaDir);
 
         FormDef formDef = null;
@@ -252,7 +240,10 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
             }
         }
 
-        processItemSets(formMediaDir);
+        String itemsetsWarning = ItemsetsCsvImporter.importIfChanged(formMediaDir, formDef);
+        if (itemsetsWarning != null) {
+            warningMsg = itemsetsWarning;
+        }
 
         final FormController fc = new JavaRosaFormController(formMediaDir, fec, instancePath == null ? null
                 : new File(instancePath));
@@ -274,25 +265,6 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
         return data;
     }
 
-    private static void unzipMediaFiles(File formMediaDir) {
-        File[] zipFiles = formMediaDir.listFiles(new FileFilter() {
-            @Override
-            public boolean accept(File file) {
-                return file.getName().toLowerCase(Locale.US).endsWith(".zip");
-            }
-        });
-
-        if (zipFiles != null) {
-            ZipUtils.unzip(zipFiles);
-            for (File zipFile : zipFiles) {
-                boolean deleted = zipFile.delete();
-                if (!deleted) {
-                    Timber.w("Cannot delete %s. It will be re-unzipped next time. :(", zipFile.toString());
-                }
-            }
-        }
-    }
-
     private FormDef createFormDefFromCacheOrXml(String formPath, File formXml) throws XFormParser.ParseException {
         publishProgress(
                 getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.survey_loading_reading_form_message));
@@ -306,7 +278,7 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
         Timber.i("Attempting to load from: %s", formXml.getAbsolutePath());
         final long start = System.currentTimeMillis();
         String lastSavedSrc = FileUtils.getOrCreateLastSavedSrc(formXml);
-        FormDef formDefFromXml = XFormUtils.getFormFromFormXml(formPath, lastSavedSrc);
+        FormDef formDefFromXml = FileUtils.parseFormDefinition(formPath, lastSavedSrc);
         if (formDefFromXml == null) {
             Timber.w("Error reading XForm file");
             errorMsg = "Error reading XForm file";
@@ -327,45 +299,6 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
         return null;
     }
 
-    private void processItemSets(File formMediaDir) {
-        // for itemsets.csv, we only check to see if the itemset file has been
-        // updated
-        final File csv = new File(formMediaDir.getAbsolutePath() + "/" + ITEMSETS_CSV);
-        String csvmd5;
-        if (csv.exists()) {
-            csvmd5 = Md5.getMd5Hash(csv);
-            boolean readFile = false;
-            final ItemsetDbAdapter ida = new ItemsetDbAdapter();
-            ida.open();
-            // get the database entry (if exists) for this itemsets.csv, based
-            // on the path
-            final Cursor c = ida.getItemsets(csv.getAbsolutePath());
-            if (c != null) {
-                if (c.getCount() == 1) {
-                    c.moveToFirst(); // should be only one, ever, if any
-                    final String oldmd5 = c.getString(c.getColumnIndex("hash"));
-                    if (oldmd5.equals(csvmd5)) {
-                        // they're equal, do nothing
-                    } else {
-                        // the csv has been updated, delete the old entries
-                        ida.dropTable(ItemsetDbAdapter.getMd5FromString(csv.getAbsolutePath()),
-                                csv.getAbsolutePath());
-                        // and read the new
-                        readFile = true;
-                    }
-                } else {
-                    // new csv, add it
-                    readFile = true;
-                }
-                c.close();
-            }
-            ida.close();
-            if (readFile) {
-                readCSV(csv, csvmd5, ItemsetDbAdapter.getMd5FromString(csv.getAbsolutePath()));
-            }
-        }
-    }
-
     private boolean initializeForm(FormDef formDef, FormEntryController fec) throws IOException {
         final InstanceInitializationFactory instanceInit = new InstanceInitializationFactory();
         boolean usedSavepoint = false;
@@ -389,6 +322,10 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
                     Timber.i("Importing data");
                     publishProgress(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.survey_loading_reading_data_message));
                     importData(instanceXml, fec);
+                    if (usedSavepoint) {
+                        int replayed = SavepointJournal.replay(savepointFile, formDef);
+                        Timber.i("Replayed %d answers from savepoint journal", replayed);
+                    }
                     formDef.initialize(false, instanceInit);
                 } catch (IOException | RuntimeException e) {
                     // Skip a savepoint file that is corrupted or 0-sized
@@ -536,49 +473,6 @@ public class FormLoaderTask extends SchedulerAsyncTaskMimic<Void, String, FormLo
         this.intent = intent;
     }
 
-    private void readCSV(File csv, String formHash, String pathHash) {
-
-        CSVReader reader;
-        ItemsetDbAdapter ida = new ItemsetDbAdapter();
-        ida.open();
-        boolean withinTransaction = false;
-
-        try {
-            reader = new CSVReader(new FileReader(csv));
-
-            String[] nextLine;
-            String[] columnHeaders = null;
-            int lineNumber = 0;
-            while ((nextLine = reader.readNext()) != null) {
-                lineNumber++;
-                if (lineNumber == 1) {
-                    // first line of csv is column headers
-                    columnHeaders = nextLine;
-                    ida.createTable(formHash, pathHash, columnHeaders,
-                            csv.getAbsolutePath());
-                    continue;
-                }
-                // add the rest of the lines to the specified database
-                // nextLine[] is an array of values from the line
-                // System.out.println(nextLine[4] + "etc...");
-                if (lineNumber == 2) {
-                    // start a transaction for the inserts
-                    withinTransaction = true;
-                    ida.beginTransaction();
-                }
-                ida.addRow(pathHash, columnHeaders, nextLine);
-
-            }
-        } catch (IOException | SQLException | CsvValidationException e) {
-            warningMsg = e.getMessage();
-        } finally {
-            if (withinTransaction) {
-                ida.commit();
-            }
-            ida.close();
-        }
-    }
-
     private String loadSavePoint() {
         final String filePrefix = form.getFormFilePath().substring(
                 form.getFormFilePath().lastIndexOf('/') + 1,
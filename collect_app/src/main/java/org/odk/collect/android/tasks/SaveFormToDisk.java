@@ -19,6 +19,8 @@ import static org.odk.collect.strings.localization.LocalizedApplicationKt.getLoc
 
 import android.content.ContentValues;
 import android.net.Uri;
+import android.system.ErrnoException;
+import android.system.Os;
 import android.util.Pair;
 
 import androidx.annotation.NonNull;
@@ -62,10 +64,12 @@ import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.forms.instances.InstancesRepository;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import timber.log.Timber;
 
@@ -87,12 +91,15 @@ public class SaveFormToDisk {
     private final ArrayList<String> tempFiles;
     private final String currentProjectId;
     private final EntitiesRepository entitiesRepository;
+    private final Map<String, Long> stageTimings = new LinkedHashMap<>();
 
     public static final int SAVED = 500;
     public static final int SAVE_ERROR = 501;
     public static final int SAVED_AND_EXIT = 504;
     public static final int ENCRYPTION_ERROR = 505;
 
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
     public SaveFormToDisk(FormController formController, MediaUtils mediaUtils, boolean saveAndExit, boolean shouldFinalize, String updatedName,
                           Uri uri, ArrayList<String> tempFiles, String currentProjectId, EntitiesRepository entitiesRepository,  InstancesRepository instancesRepository) {
         this.formController = formController;
@@ -331,6 +338,7 @@ public class SaveFormToDisk {
     public static void removeSavepointFiles(String instanceName) {
         File savepointFile = getSavepointFile(instanceName);
         File formIndexFile = getFormIndexFile(instanceName);
+        SavepointJournal.remove(savepointFile);
         FileUtils.deleteAndReport(savepointFile);
         FileUtils.deleteAndReport(formIndexFile);
     }
@@ -343,7 +351,10 @@ public class SaveFormToDisk {
     private Instance exportData(boolean markCompleted, FormSaver.ProgressListener progressListener, ValidationResult validationResult) throws IOException, EncryptionException {
         progressListener.onProgressUpdate(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.survey_saving_collecting_message));
 
+        long stageStart = System.currentTimeMillis();
         ByteArrayPayload payload = formController.getFilledInFormXml();
+        stageStart = recordStageTiming("serialize", stageStart);
+
         // write out xml
         String instancePath = formController.getInstanceFile().getAbsolutePath();
 
@@ -354,16 +365,20 @@ public class SaveFormToDisk {
         progressListener.onProgressUpdate(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.survey_saving_saving_message));
 
         writeFile(payload, instancePath);
+        stageStart = recordStageTiming("write", stageStart);
 
-        // Write last-saved instance
+        // Write last-saved instance (as a link to the instance file where possible as it has the
+        // same contents)
         String lastSavedPath = formController.getLastSavedPath();
-        writeFile(payload, lastSavedPath);
+        linkOrWriteFile(new File(instancePath), payload, lastSavedPath);
+        stageStart = recordStageTiming("lastSaved", stageStart);
 
         // update the uri. We have exported the reloadable instance, so update status...
         // Since we saved a reloadable instance, it is flagged as re-openable so that if any error
         // occurs during the packaging of the data for the server fails (e.g., encryption),
         // we can still reopen the filled-out form and re-save it at a later time.
         Instance instance = updateInstanceDatabase(true, true, validationResult);
+        stageStart = recordStageTiming("database", stageStart);
 
         if (markCompleted) {
             // now see if the packaging of the data for the server would make it
@@ -382,17 +397,25 @@ public class SaveFormToDisk {
             File instanceXml = formController.getInstanceFile();
             File submissionXml = new File(instanceXml.getParentFile(), "submission.xml");
 
-            payload = formController.getSubmissionXml();
-
-            // write out submission.xml -- the data to actually submit to aggregate
-
             progressListener.onProgressUpdate(
                     getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.survey_saving_finalizing_message));
 
-            writeFile(payload, submissionXml.getAbsolutePath());
-
             // see if the form is encrypted and we can encrypt it...
             EncryptedFormInformation formInfo = EncryptionUtils.getEncryptedFormInformation(uri, formController.getSubmissionMetadata());
+
+            // write out submission.xml -- the data to actually submit to aggregate. If the
+            // whole form is submitted it's identical to the instance so that payload is reused
+            // and it's only needed at all if it's going to be encrypted (it's not linked to the
+            // instance as encryption overwrites it with the manifest).
+            if (!canEditAfterCompleted) {
+                payload = formController.getSubmissionXml();
+            }
+
+            if (!canEditAfterCompleted || formInfo != null) {
+                writeFile(payload, submissionXml.getAbsolutePath());
+            }
+            stageStart = recordStageTiming("submission", stageStart);
+
             if (formInfo != null) {
                 // if we are encrypting, the form cannot be reopened afterward
                 canEditAfterCompleted = false;
@@ -401,8 +424,9 @@ public class SaveFormToDisk {
                 progressListener.onProgressUpdate(
                         getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.survey_saving_encrypting_message));
 
-                EncryptionUtils.generateEncryptedSubmission(instanceXml, submissionXml, formInfo);
+                EncryptionUtils.generateEncryptedSubmission(instanceXml, submissionXml, formInfo, progressListener);
                 isEncrypted = true;
+                stageStart = recordStageTiming("encrypt", stageStart);
 
                 Analytics.log(ENCRYPT_SUBMISSION, "form");
             }
@@ -422,7 +446,7 @@ public class SaveFormToDisk {
 
             if (!canEditAfterCompleted) {
                 manageFilesAfterSavingEncryptedForm(instanceXml, submissionXml);
-            } else {
+            } else if (submissionXml.exists()) {
                 // try to delete the submissionXml file, since it is
                 // identical to the existing instanceXml file
                 // (we don't need to delete and rename anything).
@@ -454,11 +478,20 @@ public class SaveFormToDisk {
                     Timber.e(new Error("Error deleting plaintext files for " + instanceXml.getAbsolutePath()));
                 }
             }
+
+            recordStageTiming("complete", stageStart);
         }
 
+        Timber.i("Save stage timings (ms): %s", stageTimings);
         return instance;
     }
 
+    private long recordStageTiming(String stage, long stageStart) {
+        long now = System.currentTimeMillis();
+        stageTimings.put(stage, now - stageStart);
+        return now;
+    }
+
     /**
      * Returns the XPath path of the geo feature used for mapping that corresponds to the blank form
      * that the instance with the given uri is an instance of.
@@ -500,38 +533,71 @@ public class SaveFormToDisk {
     }
 
     /**
-     * Writes payload contents to the disk.
+     * Writes payload contents to the disk. The contents are written to a temporary (hidden) file
+     * that is synced once and then renamed over the destination so that a crash part way through
+     * never leaves a truncated file behind.
      */
     static void writeFile(ByteArrayPayload payload, String path) throws IOException {
         File file = new File(path);
-        if (file.exists() && !file.delete()) {
+        if (payload.getLength() <= 0) {
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Cannot overwrite " + path + ". Perhaps the file is locked?");
+            }
+
+            return;
+        }
+
+        // Make sure the directory path to this file exists.
+        file.getParentFile().mkdirs();
+
+        File tempFile = getTempFile(file);
+        try (InputStream is = payload.getPayloadStream();
+             FileOutputStream os = new FileOutputStream(tempFile)) {
+            byte[] buffer = new byte[WRITE_BUFFER_SIZE];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                os.write(buffer, 0, read);
+            }
+
+            os.getFD().sync();
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
             throw new IOException("Cannot overwrite " + path + ". Perhaps the file is locked?");
         }
+    }
 
-        // create data stream
-        InputStream is = payload.getPayloadStream();
-        int len = (int) payload.getLength();
+    /**
+     * Creates a hard link to the source file (that was written with the payload) so that the same
+     * contents don't need to be written again. Files are only ever replaced (never written to in
+     * place) so the link keeps its contents when the source is saved again.
+     */
+    private static void linkOrWriteFile(File source, ByteArrayPayload payload, String path) throws IOException {
+        File file = new File(path);
+        File tempFile = getTempFile(file);
 
-        // read from data stream
-        byte[] data = new byte[len];
-        int read = is.read(data, 0, len);
-        if (read > 0) {
-            // Make sure the directory path to this file exists.
+        try {
             file.getParentFile().mkdirs();
-            // write xml file
-            RandomAccessFile randomAccessFile = null;
-            try {
-                randomAccessFile = new RandomAccessFile(file, "rws");
-                randomAccessFile.write(data);
-            } finally {
-                if (randomAccessFile != null) {
-                    try {
-                        randomAccessFile.close();
-                    } catch (IOException e) {
-                        Timber.e(e, "Error closing RandomAccessFile: %s", path);
-                    }
-                }
+            tempFile.delete();
+            Os.link(source.getAbsolutePath(), tempFile.getAbsolutePath());
+
+            if (tempFile.renameTo(file)) {
+                return;
             }
+        } catch (ErrnoException | RuntimeException | UnsatisfiedLinkError e) {
+            // Links aren't supported everywhere (on some file systems for example)
+            Timber.i(e, "Unable to link %s", path);
         }
+
+        tempFile.delete();
+        writeFile(payload, path);
+    }
+
+    private static File getTempFile(File file) {
+        return new File(file.getParentFile(), "." + file.getName() + ".tmp");
     }
 }
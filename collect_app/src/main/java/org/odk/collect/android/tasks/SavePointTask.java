@@ -60,6 +60,15 @@ public class SavePointTask extends AsyncTask<Void, Void, String> {
 
             try {
                 File temp = SaveFormToDisk.getSavepointFile(formController.getInstanceFile().getName());
+
+                // only record what has changed if the savepoint has already been written
+                SavepointJournal journal = SavepointJournal.get(temp);
+                if (journal.append(formController.getFormDef())) {
+                    long end = System.currentTimeMillis();
+                    Timber.i("Savepoint journal ms: %s to %s", Long.toString(end - start), temp.toString());
+                    return null;
+                }
+
                 ByteArrayPayload payload = formController.getFilledInFormXml();
 
                 if (priority < lastPriorityUsed) {
@@ -69,6 +78,7 @@ public class SavePointTask extends AsyncTask<Void, Void, String> {
 
                 // write out xml
                 SaveFormToDisk.writeFile(payload, temp.getAbsolutePath());
+                journal.onSavepointWritten(formController.getFormDef());
 
                 long end = System.currentTimeMillis();
                 Timber.i("Savepoint ms: %s to %s", Long.toString(end - start), temp.toString());
@@ -0,0 +1,297 @@
+package org.odk.collect.android.tasks;
+
+import androidx.annotation.Nullable;
+
+import org.javarosa.core.model.FormDef;
+import org.javarosa.core.model.data.IAnswerData;
+import org.javarosa.core.model.instance.TreeElement;
+import org.javarosa.core.model.instance.TreeReference;
+import org.odk.collect.android.dynamicpreload.ExternalAnswerResolver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import timber.log.Timber;
+
+/**
+ * Append-only journal of the answers that have changed since a savepoint was last written in
+ * full. This means a savepoint only needs to be rewritten (compacted) now and then rather than
+ * every time the user moves between screens, which is expensive for large forms.
+ * <p>
+ * Answers are keyed by their path in the main instance (including the multiplicity of each
+ * node) so the journal can only record changes to the structure of the instance at the time
+ * the savepoint was written. A full savepoint is written when repeats are added or removed.
+ * <p>
+ * The journal starts with the fingerprint of the savepoint it applies to so it's ignored if the
+ * savepoint is written again (or replaced) without the journal being cleared.
+ */
+public class SavepointJournal {
+
+    private static final String MAGIC = "savepoint-journal-1";
+    private static final int MAX_ENTRIES = 500;
+
+    private static final Map<String, SavepointJournal> JOURNALS = new HashMap<>();
+
+    private final File savepointFile;
+    private final File journalFile;
+
+    private Map<String, String> lastValues;
+    private String savepointFingerprint;
+    private int entryCount;
+
+    /**
+     * @return a shared journal for the savepoint so that it remembers what has already been
+     * recorded between {@link SavePointTask}s
+     */
+    public static SavepointJournal get(File savepointFile) {
+        synchronized (JOURNALS) {
+            SavepointJournal journal = JOURNALS.get(savepointFile.getAbsolutePath());
+            if (journal == null) {
+                journal = new SavepointJournal(savepointFile);
+                JOURNALS.put(savepointFile.getAbsolutePath(), journal);
+            }
+
+            return journal;
+        }
+    }
+
+    /**
+     * Deletes the savepoint's journal and stops sharing it. This should be called once the
+     * savepoint is no longer needed (when its instance is saved, finalized or deleted) so that
+     * journals don't pile up for the lifetime of the app.
+     */
+    public static void remove(File savepointFile) {
+        SavepointJournal journal;
+        synchronized (JOURNALS) {
+            journal = JOURNALS.remove(savepointFile.getAbsolutePath());
+        }
+
+        if (journal != null) {
+            journal.delete();
+        } else {
+            getJournalFile(savepointFile).delete();
+        }
+    }
+
+    /**
+     * Removes (see {@link #remove(File)}) any shared journals for savepoints of the instance.
+     */
+    public static void removeForInstance(File instanceFile) {
+        String savepointName = instanceFile.getName() + ".save";
+
+        List<SavepointJournal> removed = new ArrayList<>();
+        synchronized (JOURNALS) {
+            Iterator<SavepointJournal> iterator = JOURNALS.values().iterator();
+            while (iterator.hasNext()) {
+                SavepointJournal journal = iterator.next();
+                if (journal.savepointFile.getName().equals(savepointName)) {
+                    iterator.remove();
+                    removed.add(journal);
+                }
+            }
+        }
+
+        for (SavepointJournal journal : removed) {
+            journal.delete();
+        }
+    }
+
+    public static File getJournalFile(File savepointFile) {
+        return new File(savepointFile.getParentFile(), savepointFile.getName() + ".journal");
+    }
+
+    SavepointJournal(File savepointFile) {
+        this.savepointFile = savepointFile;
+        this.journalFile = getJournalFile(savepointFile);
+    }
+
+    /**
+     * @return true if the changes to the instance were appended to the journal or false if a
+     * full savepoint needs to be written (followed by {@link #onSavepointWritten(FormDef)})
+     */
+    public synchronized boolean append(FormDef formDef) throws IOException {
+        if (lastValues == null || !savepointFingerprint.equals(getFingerprint(savepointFile))
+                || !journalFile.exists() || entryCount >= MAX_ENTRIES) {
+            return false;
+        }
+
+        Map<String, String> values = getValues(formDef);
+        if (!values.keySet().equals(lastValues.keySet())) {
+            return false;
+        }
+
+        Map<String, String> changes = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String lastValue = lastValues.get(entry.getKey());
+            if (lastValue == null ? entry.getValue() != null : !lastValue.equals(entry.getValue())) {
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            try (FileOutputStream fileOutputStream = new FileOutputStream(journalFile, true)) {
+                DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+                for (Map.Entry<String, String> change : changes.entrySet()) {
+                    writeString(outputStream, change.getKey());
+                    outputStream.writeBoolean(change.getValue() != null);
+                    if (change.getValue() != null) {
+                        writeString(outputStream, change.getValue());
+                    }
+                }
+
+                outputStream.flush();
+                fileOutputStream.getFD().sync();
+            }
+
+            entryCount += changes.size();
+            lastValues = values;
+        }
+
+        return true;
+    }
+
+    /**
+     * Starts a new (empty) journal for the savepoint that has just been written.
+     */
+    public synchronized void onSavepointWritten(FormDef formDef) throws IOException {
+        savepointFingerprint = getFingerprint(savepointFile);
+        lastValues = getValues(formDef);
+        entryCount = 0;
+
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile)))) {
+            outputStream.writeUTF(MAGIC);
+            outputStream.writeUTF(savepointFingerprint);
+        }
+    }
+
+    public synchronized void delete() {
+        lastValues = null;
+        savepointFingerprint = null;
+        entryCount = 0;
+        journalFile.delete();
+    }
+
+    /**
+     * Applies the changes in the savepoint's journal to an instance that has been loaded from
+     * the savepoint. Entries at the end of the journal that were only partially written (because
+     * the app was killed for example) are ignored.
+     *
+     * @return the number of answers that were replayed
+     */
+    public static int replay(File savepointFile, FormDef formDef) {
+        File journalFile = getJournalFile(savepointFile);
+        if (!journalFile.exists()) {
+            return 0;
+        }
+
+        int replayed = 0;
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            if (!MAGIC.equals(inputStream.readUTF()) || !getFingerprint(savepointFile).equals(inputStream.readUTF())) {
+                Timber.w("Ignoring journal for a different savepoint: %s", journalFile.getName());
+                return 0;
+            }
+
+            ExternalAnswerResolver answerResolver = new ExternalAnswerResolver();
+            TreeElement root = formDef.getMainInstance().getRoot();
+            while (true) {
+                String path;
+                String value;
+                try {
+                    path = readString(inputStream);
+                    value = inputStream.readBoolean() ? readString(inputStream) : null;
+                } catch (EOFException e) {
+                    break;
+                }
+
+                TreeElement element = resolve(root, path);
+                if (element != null) {
+                    IAnswerData answer = value == null ? null : answerResolver.resolveAnswer(value, element, formDef);
+                    element.setValue(answer);
+                    replayed++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Timber.w(e, "Unable to replay savepoint journal");
+        }
+
+        return replayed;
+    }
+
+    private static Map<String, String> getValues(FormDef formDef) {
+        Map<String, String> values = new HashMap<>();
+        TreeElement root = formDef.getMainInstance().getRoot();
+        addValues(root, "/" + root.getName() + "[" + root.getMult() + "]", values);
+        return values;
+    }
+
+    private static void addValues(TreeElement element, String path, Map<String, String> values) {
+        if (element.getNumChildren() == 0) {
+            IAnswerData value = element.getValue();
+            values.put(path, value == null ? null : value.uncast().getString());
+            return;
+        }
+
+        for (int i = 0; i < element.getNumChildren(); i++) {
+            TreeElement child = element.getChildAt(i);
+            if (child.getMult() != TreeReference.INDEX_TEMPLATE) {
+                addValues(child, path + "/" + child.getName() + "[" + child.getMult() + "]", values);
+            }
+        }
+    }
+
+    @Nullable
+    private static TreeElement resolve(TreeElement root, String path) {
+        String[] steps = path.substring(1).split("/");
+
+        TreeElement element = null;
+        for (int i = 0; i < steps.length; i++) {
+            String step = steps[i];
+            int multiplicityStart = step.lastIndexOf('[');
+            String name = step.substring(0, multiplicityStart);
+            int multiplicity = Integer.parseInt(step.substring(multiplicityStart + 1, step.length() - 1));
+
+            if (i == 0) {
+                element = root.getName().equals(name) ? root : null;
+            } else {
+                element = element.getChild(name, multiplicity);
+            }
+
+            if (element == null) {
+                return null;
+            }
+        }
+
+        return element;
+    }
+
+    private static void writeString(DataOutputStream outputStream, String value) throws IOException {
+        // writeUTF is limited to 64K which long text answers could exceed
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    private static String readString(DataInputStream inputStream) throws IOException {
+        byte[] bytes = new byte[inputStream.readInt()];
+        inputStream.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String getFingerprint(File file) {
+        return file.length() + ":" + file.lastModified();
+    }
+}
@@ -25,8 +25,21 @@ import java.lang.Exception
  * exception will be re-tried after the user provides credentials.
  */
 open class FormUploadException : Exception {
-    constructor(message: String) : super(message)
-    constructor(cause: Throwable) : super(cause)
+
+    /**
+     * Whether the failure is likely to be temporary (a network error, a timeout or a server
+     * error) so that sending the same submission again might succeed.
+     */
+    val isRetryable: Boolean
+
+    @JvmOverloads
+    constructor(message: String, isRetryable: Boolean = false) : super(message) {
+        this.isRetryable = isRetryable
+    }
+
+    constructor(cause: Throwable) : super(cause) {
+        this.isRetryable = false
+    }
 
     override val message: String
         get() = super.message
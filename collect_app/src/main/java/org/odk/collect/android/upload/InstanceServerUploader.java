@@ -31,14 +31,15 @@ import org.odk.collect.settings.keys.ProjectKeys;
 import org.odk.collect.shared.settings.Settings;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.net.ssl.HttpsURLConnection;
 
@@ -52,7 +53,8 @@ public class InstanceServerUploader extends InstanceUploader {
     private final OpenRosaHttpInterface httpInterface;
     private final WebCredentialsUtils webCredentialsUtils;
     private final Settings generalSettings;
-    private final Map<Uri, Uri> uriRemap = new HashMap<>();
+    private final Map<Uri, SubmissionTarget> submissionTargets = new ConcurrentHashMap<>();
+    private final Map<Uri, Object> headLocks = new ConcurrentHashMap<>();
 
     public InstanceServerUploader(OpenRosaHttpInterface httpInterface,
                                   WebCredentialsUtils webCredentialsUtils,
@@ -67,6 +69,9 @@ public class InstanceServerUploader extends InstanceUploader {
      * status to database.
      * <p>
      * Returns a custom success message if one is provided by the server.
+     * <p>
+     * This can be called for several instances at once from different threads. The HEAD request
+     * for each submission URL is only made once and its result reused for the rest of the session.
      */
     @Override
     public String uploadOneSubmission(Instance instance, String urlString) throws FormUploadException {
@@ -74,16 +79,113 @@ public class InstanceServerUploader extends InstanceUploader {
 
         Uri submissionUri = Uri.parse(urlString);
 
-        long contentLength = 10000000L;
+        SubmissionTarget submissionTarget = getSubmissionTarget(instance, submissionUri, urlString);
+        submissionUri = submissionTarget.uri;
+        long contentLength = submissionTarget.contentLength;
+
+        // When encrypting submissions, there is a failure window that may mark the submission as
+        // complete but leave the file-to-be-uploaded with the name "submission.xml" and the plaintext
+        // submission files on disk.  In this case, upload the submission.xml and all the files in
+        // the directory. This means the plaintext files and the encrypted files will be sent to the
+        // server and the server will have to figure out what to do with them.
+        File instanceFile = new File(instance.getInstanceFilePath());
+        File submissionFile = new File(instanceFile.getParentFile(), "submission.xml");
+        if (submissionFile.exists()) {
+            Timber.w("submission.xml will be uploaded instead of %s", instanceFile.getAbsolutePath());
+        } else {
+            submissionFile = instanceFile;
+        }
+
+        if (!instanceFile.exists() && !submissionFile.exists()) {
+            throw new FormUploadException(FAIL + "instance XML file does not exist!");
+        }
+
+        List<File> files = getFilesInParentDirectory(instanceFile, submissionFile);
+
+        // TODO: when can this happen? It used to cause the whole submission attempt to fail. Should it?
+        if (files == null) {
+            throw new FormUploadException("Error reading files to upload");
+        }
+
+        HttpPostResult postResult;
+        ResponseMessageParser messageParser = new ResponseMessageParser();
+
+        try {
+            URI uri = URI.create(submissionUri.toString());
+
+            postResult = httpInterface.uploadSubmissionAndFiles(submissionFile, files, uri,
+                    webCredentialsUtils.getCredentials(uri), contentLength);
+
+            int responseCode = postResult.getResponseCode();
+            messageParser.setMessageResponse(postResult.getHttpResponse());
+
+            if (responseCode != HttpsURLConnection.HTTP_CREATED && responseCode != HttpsURLConnection.HTTP_ACCEPTED) {
+                // Only server errors might go away if the submission is sent again
+                boolean retryable = responseCode >= HttpsURLConnection.HTTP_INTERNAL_ERROR;
+
+                FormUploadException exception;
+                if (responseCode == HttpsURLConnection.HTTP_OK) {
+                    exception = new FormUploadException(FAIL + "Network login failure? Again?");
+                } else if (responseCode == HttpsURLConnection.HTTP_UNAUTHORIZED) {
+                    exception = new FormUploadException(FAIL + postResult.getReasonPhrase()
+                            + " (" + responseCode + ") at " + urlString);
+                } else {
+                    if (messageParser.isValid()) {
+                        exception = new FormUploadException(FAIL + messageParser.getMessageResponse(), retryable);
+                    } else if (responseCode == HttpsURLConnection.HTTP_BAD_REQUEST) {
+                        Timber.w(FAIL + postResult.getReasonPhrase() + " (" + responseCode + ") at " + urlString);
+                        exception = new FormUploadException("Failed to upload. Please make sure the form is configured to accept submissions on the server");
+                    } else {
+                        exception = new FormUploadException(FAIL + postResult.getReasonPhrase() + " (" + responseCode + ") at " + urlString, retryable);
+                    }
+
+                }
+                throw exception;
+            }
 
+        } catch (Exception e) {
+            // Network errors and timeouts are IOExceptions
+            boolean retryable = e instanceof IOException
+                    || (e instanceof FormUploadException && ((FormUploadException) e).isRetryable());
+
+            throw new FormUploadException(FAIL + "Generic Exception: "
+                    + (e.getMessage() != null ? e.getMessage() : e.toString()), retryable);
+        }
+
+        markSubmissionComplete(instance);
+
+        if (messageParser.isValid()) {
+            return messageParser.getMessageResponse();
+        }
+
+        return null;
+    }
+
+    /**
+     * Issues a HEAD request to the submission URL to find out the URL submissions should actually
+     * be sent to and how big they can be. Successful results are remembered so later submissions
+     * to the same URL can skip straight to the POST.
+     */
+    private SubmissionTarget getSubmissionTarget(Instance instance, Uri submissionUri, String urlString) throws FormUploadException {
         // We already issued a head request and got a response, so we know it was an
         // OpenRosa-compliant server. We also know the proper URL to send the submission to and
         // the proper scheme.
-        if (uriRemap.containsKey(submissionUri)) {
-            submissionUri = uriRemap.get(submissionUri);
-            Timber.i("Using Uri remap for submission %s. Now: %s", instance.getDbId(),
-                    submissionUri.toString());
-        } else {
+        SubmissionTarget cachedTarget = submissionTargets.get(submissionUri);
+        if (cachedTarget != null) {
+            Timber.i("Using cached HEAD result for submission %s. Now: %s", instance.getDbId(),
+                    cachedTarget.uri.toString());
+            return cachedTarget;
+        }
+
+        Object headLock = headLocks.computeIfAbsent(submissionUri, key -> new Object());
+        synchronized (headLock) {
+            cachedTarget = submissionTargets.get(submissionUri);
+            if (cachedTarget != null) {
+                return cachedTarget;
+            }
+
+            long contentLength = 10000000L;
+
             if (submissionUri.getHost() == null) {
                 throw new FormUploadException(FAIL + "Host name may not be null");
             }
@@ -113,13 +215,15 @@ public class InstanceServerUploader extends InstanceUploader {
 
             } catch (Exception e) {
                 throw new FormUploadException(FAIL
-                        + (e.getMessage() != null ? e.getMessage() : e.toString()));
+                        + (e.getMessage() != null ? e.getMessage() : e.toString()), e instanceof IOException);
             }
 
             if (headResult.getStatusCode() == HttpsURLConnection.HTTP_UNAUTHORIZED) {
                 throw new FormUploadAuthRequestedException(getLocalizedString(Collect.getInstance(), org.odk.collect.strings.R.string.server_auth_credentials, submissionUri.getHost()),
                         submissionUri);
             } else if (headResult.getStatusCode() == HttpsURLConnection.HTTP_NO_CONTENT) {
+                Uri targetUri = submissionUri;
+
                 // Redirect header received
                 if (responseHeaders.containsHeader("Location")) {
                     try {
@@ -132,8 +236,7 @@ public class InstanceServerUploader extends InstanceUploader {
                                         .encodedQuery(submissionUri.getEncodedQuery())
                                         .build();
                             }
-                            uriRemap.put(submissionUri, newURI);
-                            submissionUri = newURI;
+                            targetUri = newURI;
                         } else {
                             // Don't follow a redirection attempt to a different host.
                             // We can't tell if this is a spoof or not.
@@ -145,6 +248,10 @@ public class InstanceServerUploader extends InstanceUploader {
                         throw new FormUploadException(FAIL + urlString + " " + e.toString());
                     }
                 }
+
+                SubmissionTarget target = new SubmissionTarget(targetUri, contentLength);
+                submissionTargets.put(submissionUri, target);
+                return target;
             } else {
                 if (headResult.getStatusCode() >= HttpsURLConnection.HTTP_OK
                         && headResult.getStatusCode() < HttpsURLConnection.HTTP_MULT_CHOICE) {
@@ -152,78 +259,10 @@ public class InstanceServerUploader extends InstanceUploader {
                             "submission endpoint? If you have a web proxy you may need to log in to " +
                             "your network.\n\nHEAD request result status code: " + headResult.getStatusCode());
                 }
-            }
-        }
-
-        // When encrypting submissions, there is a failure window that may mark the submission as
-        // complete but leave the file-to-be-uploaded with the name "submission.xml" and the plaintext
-        // submission files on disk.  In this case, upload the submission.xml and all the files in
-        // the directory. This means the plaintext files and the encrypted files will be sent to the
-        // server and the server will have to figure out what to do with them.
-        File instanceFile = new File(instance.getInstanceFilePath());
-        File submissionFile = new File(instanceFile.getParentFile(), "submission.xml");
-        if (submissionFile.exists()) {
-            Timber.w("submission.xml will be uploaded instead of %s", instanceFile.getAbsolutePath());
-        } else {
-            submissionFile = instanceFile;
-        }
-
-        if (!instanceFile.exists() && !submissionFile.exists()) {
-            throw new FormUploadException(FAIL + "instance XML file does not exist!");
-        }
 
-        List<File> files = getFilesInParentDirectory(instanceFile, submissionFile);
-
-        // TODO: when can this happen? It used to cause the whole submission attempt to fail. Should it?
-        if (files == null) {
-            throw new FormUploadException("Error reading files to upload");
-        }
-
-        HttpPostResult postResult;
-        ResponseMessageParser messageParser = new ResponseMessageParser();
-
-        try {
-            URI uri = URI.create(submissionUri.toString());
-
-            postResult = httpInterface.uploadSubmissionAndFiles(submissionFile, files, uri,
-                    webCredentialsUtils.getCredentials(uri), contentLength);
-
-            int responseCode = postResult.getResponseCode();
-            messageParser.setMessageResponse(postResult.getHttpResponse());
-
-            if (responseCode != HttpsURLConnection.HTTP_CREATED && responseCode != HttpsURLConnection.HTTP_ACCEPTED) {
-                FormUploadException exception;
-                if (responseCode == HttpsURLConnection.HTTP_OK) {
-                    exception = new FormUploadException(FAIL + "Network login failure? Again?");
-                } else if (responseCode == HttpsURLConnection.HTTP_UNAUTHORIZED) {
-                    exception = new FormUploadException(FAIL + postResult.getReasonPhrase()
-                            + " (" + responseCode + ") at " + urlString);
-                } else {
-                    if (messageParser.isValid()) {
-                        exception = new FormUploadException(FAIL + messageParser.getMessageResponse());
-                    } else if (responseCode == HttpsURLConnection.HTTP_BAD_REQUEST) {
-                        Timber.w(FAIL + postResult.getReasonPhrase() + " (" + responseCode + ") at " + urlString);
-                        exception = new FormUploadException("Failed to upload. Please make sure the form is configured to accept submissions on the server");
-                    } else {
-                        exception = new FormUploadException(FAIL + postResult.getReasonPhrase() + " (" + responseCode + ") at " + urlString);
-                    }
-
-                }
-                throw exception;
+                return new SubmissionTarget(submissionUri, contentLength);
             }
-
-        } catch (Exception e) {
-            throw new FormUploadException(FAIL + "Generic Exception: "
-                    + (e.getMessage() != null ? e.getMessage() : e.toString()));
-        }
-
-        markSubmissionComplete(instance);
-
-        if (messageParser.isValid()) {
-            return messageParser.getMessageResponse();
         }
-
-        return null;
     }
 
     private List<File> getFilesInParentDirectory(File instanceFile, File submissionFile) {
@@ -293,4 +332,14 @@ public class InstanceServerUploader extends InstanceUploader {
 
         return serverBase + OpenRosaConstants.SUBMISSION;
     }
+
+    private static class SubmissionTarget {
+        final Uri uri;
+        final long contentLength;
+
+        SubmissionTarget(Uri uri, long contentLength) {
+            this.uri = uri;
+            this.contentLength = contentLength;
+        }
+    }
 }
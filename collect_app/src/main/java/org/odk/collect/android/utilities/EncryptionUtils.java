@@ -20,6 +20,7 @@ import android.util.Base64;
 import androidx.annotation.Nullable;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.TeeInputStream;
 import org.kxml2.io.KXmlSerializer;
 import org.kxml2.kdom.Document;
 import org.kxml2.kdom.Element;
@@ -28,19 +29,19 @@ import org.odk.collect.android.application.Collect;
 import org.odk.collect.android.exception.EncryptionException;
 import org.odk.collect.android.external.FormsContract;
 import org.odk.collect.android.external.InstancesContract;
+import org.odk.collect.android.formentry.saving.FormSaver;
 import org.odk.collect.android.javarosawrapper.InstanceMetadata;
 import org.odk.collect.forms.Form;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.shared.strings.Md5;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStreamWriter;
-import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -54,6 +55,11 @@ import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -100,6 +106,7 @@ public class EncryptionUtils {
             "base64EncryptedElementSignature";
     private static final String NEW_LINE = "\n";
     private static final String ENCRYPTION_PROVIDER = "BC";
+    private static final int ENCRYPTION_BUFFER_SIZE = 64 * 1024;
 
     private EncryptionUtils() {
     }
@@ -176,8 +183,7 @@ public class EncryptionUtils {
             elementSignatureSource.append(value).append('\n');
         }
 
-        public void appendFileSignatureSource(File file) {
-            String md5Hash = Md5.getMd5Hash(file);
+        public void appendFileSignatureSource(File file, String md5Hash) {
             appendElementSignatureSource(file.getName() + "::" + md5Hash);
         }
 
@@ -348,52 +354,47 @@ public class EncryptionUtils {
         return new EncryptedFormInformation(formId, formVersion, instanceMetadata, pk);
     }
 
-    private static void encryptFile(File file, EncryptedFormInformation formInfo)
-            throws IOException, EncryptionException {
+    /**
+     * Streams the encrypted contents of the file to a ".enc" file next to it without holding the
+     * whole file in memory.
+     *
+     * @return the MD5 hash of the unencrypted file (computed as it is read for encryption)
+     */
+    static String encryptFile(File file, Cipher cipher) throws EncryptionException {
         File encryptedFile = new File(file.getParentFile(), file.getName()
                 + ".enc");
 
-        if (encryptedFile.exists() && !encryptedFile.delete()) {
-            throw new IOException("Cannot overwrite " + encryptedFile.getAbsolutePath()
-                    + ". Perhaps the file is locked?");
-        }
-
-        // add elementSignatureSource for this file...
-        formInfo.appendFileSignatureSource(file);
-
-        RandomAccessFile randomAccessFile = null;
-        CipherOutputStream cipherOutputStream = null;
         try {
-            Cipher c = formInfo.getCipher();
-
-            randomAccessFile = new RandomAccessFile(encryptedFile, "rws");
-            ByteArrayOutputStream encryptedData = new ByteArrayOutputStream();
-            cipherOutputStream = new CipherOutputStream(encryptedData, c);
-            InputStream fin = new FileInputStream(file);
-            byte[] buffer = new byte[2048];
-            int len = fin.read(buffer);
-            while (len != -1) {
-                cipherOutputStream.write(buffer, 0, len);
-                len = fin.read(buffer);
+            if (encryptedFile.exists() && !encryptedFile.delete()) {
+                throw new IOException("Cannot overwrite " + encryptedFile.getAbsolutePath()
+                        + ". Perhaps the file is locked?");
             }
-            fin.close();
-            cipherOutputStream.flush();
-            cipherOutputStream.close();
 
-            randomAccessFile.write(encryptedData.toByteArray());
+            String md5;
+            try (InputStream fin = new FileInputStream(file);
+                 FileOutputStream fout = new FileOutputStream(encryptedFile)) {
+                CipherOutputStream cipherOutputStream = new CipherOutputStream(
+                        new BufferedOutputStream(fout, ENCRYPTION_BUFFER_SIZE), cipher);
+
+                // Hash the file as it's read for encryption so it's only read once
+                md5 = Md5.getMd5Hash(new TeeInputStream(fin, cipherOutputStream), ENCRYPTION_BUFFER_SIZE);
+                if (md5 == null) {
+                    throw new IOException("Cannot read " + file.getAbsolutePath());
+                }
+                cipherOutputStream.close();
+
+                // The encrypted file replaces the plaintext one so make sure it's actually on disk
+                fout.getFD().sync();
+            }
 
             Timber.i("Encrpyted:%s -> %s", file.getName(), encryptedFile.getName());
+
+            return md5;
         } catch (Exception e) {
             String msg = "Error encrypting: " + file.getName() + " -> "
                     + encryptedFile.getName();
             Timber.e(e, "%s due to %s ", msg, e.getMessage());
             throw new EncryptionException(msg, e);
-        } finally {
-            IOUtils.closeQuietly(cipherOutputStream);
-
-            if (randomAccessFile != null) {
-                randomAccessFile.close();
-            }
         }
     }
 
@@ -430,8 +431,9 @@ public class EncryptionUtils {
     }
 
     private static List<File> encryptSubmissionFiles(File instanceXml,
-                                                     File submissionXml, EncryptedFormInformation formInfo)
-            throws IOException, EncryptionException {
+                                                     File submissionXml, EncryptedFormInformation formInfo,
+                                                     @Nullable FormSaver.ProgressListener progressListener)
+            throws EncryptionException {
         // NOTE: assume the directory containing the instanceXml contains ONLY
         // files related to this one instance.
         File instanceDir = instanceXml.getParentFile();
@@ -459,15 +461,76 @@ public class EncryptionUtils {
                 filesToProcess.add(f);
             }
         }
-        // encrypt here...
-        for (File f : filesToProcess) {
-            encryptFile(f, formInfo);
+        // encrypt here (the submission.xml as the last file)...
+        List<File> filesToEncrypt = new ArrayList<>(filesToProcess);
+        filesToEncrypt.add(submissionXml);
+        encryptFiles(filesToEncrypt, formInfo, progressListener);
+
+        return filesToProcess;
+    }
+
+    /**
+     * Encrypts the files in parallel. Each file's cipher (and so its IV) and its entry in the
+     * element signature still have to follow the order of the files in the submission manifest so
+     * they are set up and recorded in order.
+     */
+    private static void encryptFiles(List<File> files, EncryptedFormInformation formInfo,
+                                     @Nullable FormSaver.ProgressListener progressListener) throws EncryptionException {
+        List<Cipher> ciphers = new ArrayList<>();
+        for (File file : files) {
+            try {
+                ciphers.add(formInfo.getCipher());
+            } catch (Exception e) {
+                throw new EncryptionException("Error encrypting: " + file.getName(), e);
+            }
         }
 
-        // encrypt the submission.xml as the last file...
-        encryptFile(submissionXml, formInfo);
+        long totalBytes = 0;
+        for (File file : files) {
+            totalBytes += file.length();
+        }
 
-        return filesToProcess;
+        long start = System.currentTimeMillis();
+        AtomicInteger encryptedCount = new AtomicInteger(0);
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), files.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> md5Hashes = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                File file = files.get(i);
+                Cipher cipher = ciphers.get(i);
+                md5Hashes.add(executor.submit(() -> {
+                    String md5Hash = encryptFile(file, cipher);
+                    int count = encryptedCount.incrementAndGet();
+                    if (progressListener != null) {
+                        progressListener.onProgressUpdate(getLocalizedString(Collect.getInstance(),
+                                org.odk.collect.strings.R.string.survey_saving_encrypting_progress_message,
+                                count, files.size()));
+                    }
+
+                    return md5Hash;
+                }));
+            }
+
+            for (int i = 0; i < files.size(); i++) {
+                formInfo.appendFileSignatureSource(files.get(i), md5Hashes.get(i).get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof EncryptionException) {
+                throw (EncryptionException) e.getCause();
+            } else {
+                throw new EncryptionException("Error encrypting submission", e.getCause());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EncryptionException("Encryption interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        float seconds = (System.currentTimeMillis() - start) / 1000F;
+        Timber.i("Encrypted %d files (%d bytes) in %.3f seconds (%.2f MB/s)", files.size(), totalBytes,
+                seconds, seconds > 0 ? totalBytes / (1024F * 1024F) / seconds : 0F);
     }
 
     /**
@@ -479,6 +542,17 @@ public class EncryptionUtils {
     public static void generateEncryptedSubmission(File instanceXml,
                                                    File submissionXml, EncryptedFormInformation formInfo)
             throws IOException, EncryptionException {
+        generateEncryptedSubmission(instanceXml, submissionXml, formInfo, null);
+    }
+
+    /**
+     * Like {@link #generateEncryptedSubmission(File, File, EncryptedFormInformation)} but reports
+     * each encrypted file to the progress listener.
+     */
+    public static void generateEncryptedSubmission(File instanceXml,
+                                                   File submissionXml, EncryptedFormInformation formInfo,
+                                                   @Nullable FormSaver.ProgressListener progressListener)
+            throws IOException, EncryptionException {
         // submissionXml is the submission data to be published to Aggregate
         if (!submissionXml.exists() || !submissionXml.isFile()) {
             throw new IOException("No submission.xml found");
@@ -488,7 +562,7 @@ public class EncryptionUtils {
 
         // Step 1: encrypt the submission and all the media files...
         List<File> mediaFiles = encryptSubmissionFiles(instanceXml,
-                submissionXml, formInfo);
+                submissionXml, formInfo, progressListener);
 
         // Step 2: build the encrypted-submission manifest (overwrites
         // submission.xml)...
@@ -1,24 +1,39 @@
 package org.odk.collect.android.utilities;
 
+import static org.apache.commons.io.FileUtils.readFileToByteArray;
+
 import org.javarosa.core.model.FormDef;
 import org.javarosa.core.util.externalizable.ExtUtil;
 import org.odk.collect.android.formentry.FormDefCache;
 import org.odk.collect.android.storage.StoragePathProvider;
 import org.odk.collect.android.storage.StorageSubdirectory;
-import org.odk.collect.shared.strings.Md5;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Set;
 
 import timber.log.Timber;
 
 /** Methods for reading from and writing to the FormDef cache */
 public final class ExternalizableFormDefCache implements FormDefCache {
 
+    /**
+     * Upper bound on the total size of .formdef files kept in the cache. The least recently used
+     * files are evicted once this is exceeded.
+     */
+    static final long MAX_CACHE_SIZE_BYTES = 200L * 1024 * 1024;
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private static final String INDEX_FILE_NAME = "formdef.index";
+
     /**
      * Serializes a FormDef and saves it in the cache. To avoid problems from two callers
      * trying to cache the same file at the same time, we serialize into a temporary file,
@@ -37,10 +52,17 @@ public final class ExternalizableFormDefCache implements FormDefCache {
                 formDef.getTitle(), tempCacheFile.getName());
 
         Exception caughtException = null;
+        byte[] serializedFormDef = null;
         try {
-            DataOutputStream dos = new DataOutputStream(new FileOutputStream(tempCacheFile));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(STREAM_BUFFER_SIZE);
+            DataOutputStream dos = new DataOutputStream(bytes);
             formDef.writeExternal(dos);
             dos.close();
+
+            serializedFormDef = bytes.toByteArray();
+            try (OutputStream outputStream = new FileOutputStream(tempCacheFile)) {
+                outputStream.write(serializedFormDef);
+            }
         } catch (IOException exception) {
             caughtException = exception;
         }
@@ -60,6 +82,8 @@ public final class ExternalizableFormDefCache implements FormDefCache {
                         tempCacheFile.getName(), cachedFormDefFile.getName());
                 Timber.i("Caching %s took %.3f seconds.", formDef.getTitle(),
                         (System.currentTimeMillis() - formSaveStart) / 1000F);
+                FormDefMemoryPool.getInstance().put(cachedFormDefFile.getName(), serializedFormDef);
+                evictStaleAndLeastRecentlyUsed(cachedFormDefFile.getParentFile());
             } else {
                 Timber.e(new Error("Unable to rename temporary file " + tempCacheFile + " to cache file " + cachedFormDefFile));
             }
@@ -77,15 +101,41 @@ public final class ExternalizableFormDefCache implements FormDefCache {
      */
     @Override
     public FormDef readCache(File formXml) {
+        final long lookupStart = System.currentTimeMillis();
         final File cachedForm = getCacheFile(formXml);
+        Timber.i("Looked up cache file for %s in %.3f seconds.", formXml.getName(),
+                (System.currentTimeMillis() - lookupStart) / 1000F);
+
+        FormDefMemoryPool pool = FormDefMemoryPool.getInstance();
+        byte[] pooledFormDef = pool.get(cachedForm.getName());
+
+        if (pooledFormDef != null) {
+            Timber.i("Attempting to load %s from memory pool.", formXml.getName());
+            final long start = System.currentTimeMillis();
+
+            try {
+                final FormDef deserializedFormDef = deserializeFormDef(pooledFormDef);
+                Timber.i("Loaded in %.3f seconds.", (System.currentTimeMillis() - start) / 1000F);
+                return deserializedFormDef;
+            } catch (Exception e) {
+                Timber.w(e);
+                pool.remove(cachedForm.getName());
+            }
+        }
+
         if (cachedForm.exists()) {
             Timber.i("Attempting to load %s from cached file: %s.", formXml.getName(), cachedForm.getName());
             final long start = System.currentTimeMillis();
 
             try {
-                final FormDef deserializedFormDef = deserializeFormDef(cachedForm);
+                final byte[] serializedFormDef = readFileToByteArray(cachedForm);
+                final FormDef deserializedFormDef = deserializeFormDef(serializedFormDef);
                 if (deserializedFormDef != null) {
                     Timber.i("Loaded in %.3f seconds.", (System.currentTimeMillis() - start) / 1000F);
+                    pool.put(cachedForm.getName(), serializedFormDef);
+
+                    // Used to track which cache files were used least recently
+                    cachedForm.setLastModified(System.currentTimeMillis());
                     return deserializedFormDef;
                 }
             } catch (Exception e) {
@@ -98,19 +148,59 @@ public final class ExternalizableFormDefCache implements FormDefCache {
         return null;
     }
 
+    @Override
+    public boolean isCached(File formXml) {
+        return getCacheFile(formXml).exists();
+    }
+
     /**
      * Builds and returns a File object for the cached version of a form.
      * @param formXml the File containing the XML form
      * @return a File object
      */
     private static File getCacheFile(File formXml) {
-        return new File(new StoragePathProvider().getOdkDirPath(StorageSubdirectory.CACHE) + File.separator +
-                Md5.getMd5Hash(formXml) + ".formdef");
+        String cacheDirPath = new StoragePathProvider().getOdkDirPath(StorageSubdirectory.CACHE);
+        return new File(cacheDirPath + File.separator +
+                getIndex(cacheDirPath).getHash(formXml) + ".formdef");
+    }
+
+    private static FileHashIndex getIndex(String cacheDirPath) {
+        return FileHashIndex.get(new File(cacheDirPath, INDEX_FILE_NAME));
+    }
+
+    /**
+     * Deletes .formdef files for forms that have been changed or removed and then, if the cache
+     * is still over {@link #MAX_CACHE_SIZE_BYTES}, the least recently used ones.
+     */
+    private static void evictStaleAndLeastRecentlyUsed(File cacheDir) {
+        Set<String> staleHashes = getIndex(cacheDir.getAbsolutePath()).removeStaleEntries();
+        for (String hash : staleHashes) {
+            File staleFile = new File(cacheDir, hash + ".formdef");
+            FormDefMemoryPool.getInstance().remove(staleFile.getName());
+            if (staleFile.exists() && staleFile.delete()) {
+                Timber.i("Evicted stale cache file %s", staleFile.getName());
+            }
+        }
+
+        File[] cacheFiles = cacheDir.listFiles((dir, name) -> name.endsWith(".formdef"));
+        if (cacheFiles == null) {
+            return;
+        }
+
+        Arrays.sort(cacheFiles, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+
+        long totalSize = 0;
+        for (File cacheFile : cacheFiles) {
+            totalSize += cacheFile.length();
+            if (totalSize > MAX_CACHE_SIZE_BYTES && cacheFile.delete()) {
+                Timber.i("Evicted least recently used cache file %s", cacheFile.getName());
+            }
+        }
     }
 
-    private static FormDef deserializeFormDef(File serializedFormDef) throws Exception {
+    private static FormDef deserializeFormDef(byte[] serializedFormDef) throws Exception {
         FormDef fd;
-        try (DataInputStream dis = new DataInputStream(new FileInputStream(serializedFormDef))) {
+        try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(serializedFormDef))) {
             fd = new FormDef();
             fd.readExternal(dis, ExtUtil.defaultPrototypes());
         }
@@ -0,0 +1,230 @@
+package org.odk.collect.android.utilities;
+
+import androidx.annotation.Nullable;
+
+import org.odk.collect.shared.strings.Md5;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import timber.log.Timber;
+
+/**
+ * Persisted mapping of files to their MD5 hash, keyed by (path, size, last modified). This lets
+ * callers find out the hash of a file (like a form's XML or its media) without reading the whole
+ * file every time - it is only hashed again when its size or modification time changes.
+ * <p>
+ * The hashes of archives that have since been extracted and deleted (like zipped form media) can
+ * also be stored so that they can still be compared against a server's manifest.
+ */
+public class FileHashIndex {
+
+    private static final String ARCHIVE_KEY_PREFIX = "archive:";
+
+    private static final Map<String, FileHashIndex> INDEXES = new HashMap<>();
+
+    private final File indexFile;
+    private final Properties entries = new Properties();
+    private boolean loaded;
+
+    /**
+     * @return a shared index for the given file so that all callers see (and persist) the same
+     * entries
+     */
+    public static FileHashIndex get(File indexFile) {
+        synchronized (INDEXES) {
+            FileHashIndex index = INDEXES.get(indexFile.getAbsolutePath());
+            if (index == null) {
+                index = new FileHashIndex(indexFile);
+                INDEXES.put(indexFile.getAbsolutePath(), index);
+            }
+
+            return index;
+        }
+    }
+
+    public FileHashIndex(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * @return the MD5 hash of the file, from the index if its fingerprint hasn't changed
+     * since it was last hashed, or null if the file can't be read
+     */
+    @Nullable
+    public synchronized String getHash(File file) {
+        load();
+
+        boolean[] changed = {false};
+        String hash = getHash(file, changed);
+        if (changed[0]) {
+            save();
+        }
+
+        return hash;
+    }
+
+    /**
+     * Like {@link #getHash(File)} for several files at once, only persisting the index once.
+     * Files that can't be read are left out of the result.
+     */
+    public synchronized Map<File, String> getHashes(Collection<File> files) {
+        load();
+
+        boolean[] changed = {false};
+        Map<File, String> hashes = new HashMap<>();
+        for (File file : files) {
+            String hash = getHash(file, changed);
+            if (hash != null) {
+                hashes.put(file, hash);
+            }
+        }
+
+        if (changed[0]) {
+            save();
+        }
+
+        return hashes;
+    }
+
+    public synchronized void putArchiveHash(File archive, String hash) {
+        load();
+        entries.setProperty(ARCHIVE_KEY_PREFIX + archive.getAbsolutePath(), hash);
+        save();
+    }
+
+    /**
+     * @return the hash stored for the archive with {@link #putArchiveHash(File, String)}, even if
+     * the archive itself no longer exists
+     */
+    @Nullable
+    public synchronized String getArchiveHash(File archive) {
+        load();
+        return entries.getProperty(ARCHIVE_KEY_PREFIX + archive.getAbsolutePath());
+    }
+
+    /**
+     * Removes entries for files that no longer exist or have changed since they were hashed and
+     * for archives whose directory has been removed.
+     *
+     * @return the hashes that are no longer referenced by any entry
+     */
+    public synchronized Set<String> removeStaleEntries() {
+        load();
+
+        Set<String> removedHashes = new HashSet<>();
+        for (String key : entries.stringPropertyNames()) {
+            String entry = entries.getProperty(key);
+
+            boolean stale;
+            if (key.startsWith(ARCHIVE_KEY_PREFIX)) {
+                File archive = new File(key.substring(ARCHIVE_KEY_PREFIX.length()));
+                stale = archive.getParentFile() == null || !archive.getParentFile().exists();
+            } else {
+                File file = new File(key);
+                stale = !file.exists() || getHashForFingerprint(entry, getFingerprint(file)) == null;
+            }
+
+            if (stale) {
+                entries.remove(key);
+                removedHashes.add(entry.substring(entry.lastIndexOf(':') + 1));
+            }
+        }
+
+        if (!removedHashes.isEmpty()) {
+            removedHashes.removeAll(getHashes());
+            save();
+        }
+
+        return removedHashes;
+    }
+
+    public synchronized Set<String> getHashes() {
+        load();
+
+        Set<String> hashes = new HashSet<>();
+        for (String key : entries.stringPropertyNames()) {
+            String entry = entries.getProperty(key);
+            hashes.add(entry.substring(entry.lastIndexOf(':') + 1));
+        }
+
+        return hashes;
+    }
+
+    @Nullable
+    private String getHash(File file, boolean[] changed) {
+        String key = file.getAbsolutePath();
+        String fingerprint = getFingerprint(file);
+
+        String cachedHash = getHashForFingerprint(entries.getProperty(key), fingerprint);
+        if (cachedHash != null) {
+            return cachedHash;
+        }
+
+        String hash = Md5.getMd5Hash(file);
+        if (hash != null) {
+            entries.setProperty(key, fingerprint + ":" + hash);
+            changed[0] = true;
+        }
+
+        return hash;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+
+        loaded = true;
+        if (indexFile.exists()) {
+            try (InputStream inputStream = new BufferedInputStream(new FileInputStream(indexFile))) {
+                entries.load(inputStream);
+            } catch (IOException | IllegalArgumentException e) {
+                // The index will be rebuilt as files are hashed again
+                Timber.w(e);
+                entries.clear();
+            }
+        }
+    }
+
+    private void save() {
+        File tempFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            entries.store(outputStream, null);
+        } catch (IOException e) {
+            Timber.w(e);
+            tempFile.delete();
+            return;
+        }
+
+        if (!tempFile.renameTo(indexFile)) {
+            Timber.w("Unable to rename %s to %s", tempFile.getName(), indexFile.getName());
+            tempFile.delete();
+        }
+    }
+
+    private static String getFingerprint(File file) {
+        return file.length() + ":" + file.lastModified();
+    }
+
+    @Nullable
+    private static String getHashForFingerprint(@Nullable String entry, String fingerprint) {
+        if (entry != null && entry.startsWith(fingerprint + ":")) {
+            return entry.substring(fingerprint.length() + 1);
+        } else {
+            return null;
+        }
+    }
+}
@@ -85,6 +85,8 @@ public final class FileUtils {
     /** Filename of the last-saved instance data. */
     public static final String LAST_SAVED_FILENAME = "last-saved.xml";
 
+    private static final Object FORM_PARSING_LOCK = new Object();
+
     /** Valid XML stub that can be parsed without error. */
     public static final String STUB_XML = "<?xml version='1.0' ?><stub />";
 
@@ -163,6 +165,17 @@ public final class FileUtils {
         }
     }
 
+    /**
+     * Parses an XForm. JavaRosa's parser keeps static state that isn't thread safe so forms
+     * parsed on different threads (when pre-warming in the background while another form is
+     * being loaded for example) are parsed one at a time.
+     */
+    public static FormDef parseFormDefinition(String formPath, String lastSavedSrc) {
+        synchronized (FORM_PARSING_LOCK) {
+            return XFormUtils.getFormFromFormXml(formPath, lastSavedSrc);
+        }
+    }
+
     /**
      * Given a form definition file, return a map containing form metadata. The form ID is required
      * by the specification and will always be included. Title and version are optionally included.
@@ -170,7 +183,7 @@ public final class FileUtils {
      * public key, auto-delete and auto-send may be included.
      */
     public static HashMap<String, String> getMetadataFromFormDefinition(File formDefinitionXml) throws XFormParser.ParseException {
-        FormDef formDef = XFormUtils.getFormFromFormXml(formDefinitionXml.getAbsolutePath(), "jr://file/" + LAST_SAVED_FILENAME);
+        FormDef formDef = parseFormDefinition(formDefinitionXml.getAbsolutePath(), "jr://file/" + LAST_SAVED_FILENAME);
 
         final HashMap<String, String> fields = new HashMap<>();
 
@@ -0,0 +1,114 @@
+package org.odk.collect.android.utilities;
+
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import timber.log.Timber;
+
+/**
+ * Bounded, in-memory pool of serialized FormDefs keyed by form hash. Keeping the pristine byte
+ * image of recently opened forms lets a form that is opened again in the same session be
+ * deserialized from RAM rather than from the .formdef file. The least recently used entries are
+ * evicted when the pool grows past its size limit or when the system asks the app to trim memory.
+ */
+public class FormDefMemoryPool {
+
+    private static final long MAX_SIZE_BYTES = Math.min(64L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 8);
+
+    private static FormDefMemoryPool instance;
+
+    private final long maxSizeBytes;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+    private int hitCount;
+    private int missCount;
+
+    public static synchronized FormDefMemoryPool getInstance() {
+        if (instance == null) {
+            instance = new FormDefMemoryPool(MAX_SIZE_BYTES);
+        }
+
+        return instance;
+    }
+
+    FormDefMemoryPool(long maxSizeBytes) {
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    @Nullable
+    public synchronized byte[] get(String formHash) {
+        byte[] serializedFormDef = entries.get(formHash);
+        if (serializedFormDef != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+
+        return serializedFormDef;
+    }
+
+    public synchronized void put(String formHash, byte[] serializedFormDef) {
+        if (serializedFormDef.length > maxSizeBytes) {
+            return;
+        }
+
+        byte[] previous = entries.put(formHash, serializedFormDef);
+        if (previous != null) {
+            sizeBytes -= previous.length;
+        }
+
+        sizeBytes += serializedFormDef.length;
+        trimToSize(maxSizeBytes);
+    }
+
+    public synchronized void remove(String formHash) {
+        byte[] removed = entries.remove(formHash);
+        if (removed != null) {
+            sizeBytes -= removed.length;
+        }
+    }
+
+    /**
+     * Evicts least recently used entries until the pool takes up at most {@code targetSizeBytes}.
+     */
+    public synchronized void trimToSize(long targetSizeBytes) {
+        int evictedCount = 0;
+        Iterator<Map.Entry<String, byte[]>> iterator = entries.entrySet().iterator();
+        while (sizeBytes > targetSizeBytes && iterator.hasNext()) {
+            sizeBytes -= iterator.next().getValue().length;
+            iterator.remove();
+            evictedCount++;
+        }
+
+        if (evictedCount > 0) {
+            Timber.i("Evicted %d FormDefs from pool (hits: %d, misses: %d)", evictedCount, hitCount, missCount);
+        }
+    }
+
+    /**
+     * Releases half of the pool in response to moderate memory pressure, or all of it when
+     * {@code critical} is set.
+     */
+    public synchronized void trimMemory(boolean critical) {
+        trimToSize(critical ? 0 : sizeBytes / 2);
+    }
+
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+}
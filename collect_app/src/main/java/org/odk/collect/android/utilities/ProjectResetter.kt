@@ -71,6 +71,7 @@ class ProjectResetter(
     private fun resetForms() {
         formsRepositoryProvider.get().deleteAll()
 
+        ItemsetDbAdapter.closeAll()
         File(storagePathProvider.getOdkDirPath(StorageSubdirectory.METADATA) + File.separator + ItemsetDbAdapter.DATABASE_NAME).delete()
 
         if (!deleteFolderContent(storagePathProvider.getOdkDirPath(StorageSubdirectory.FORMS))) {
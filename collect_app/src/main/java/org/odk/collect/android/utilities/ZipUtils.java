@@ -24,6 +24,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Locale;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -40,6 +41,24 @@ public final class ZipUtils {
 
     }
 
+    /**
+     * Extracts every zip file in a form's media directory into that directory and deletes the
+     * zip files afterwards.
+     */
+    public static void unzipMediaFiles(File formMediaDir) {
+        File[] zipFiles = formMediaDir.listFiles(file -> file.getName().toLowerCase(Locale.US).endsWith(".zip"));
+
+        if (zipFiles != null) {
+            unzip(zipFiles);
+            for (File zipFile : zipFiles) {
+                boolean deleted = zipFile.delete();
+                if (!deleted) {
+                    Timber.w("Cannot delete %s. It will be re-unzipped next time. :(", zipFile.toString());
+                }
+            }
+        }
+    }
+
     public static void unzip(File[] zipFiles) {
         for (File zipFile : zipFiles) {
             try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(zipFile))) {
@@ -1,25 +1,70 @@
 package org.odk.collect.android.activities
 
+import android.app.Application
 import android.content.Context
 import android.content.Intent
+import android.widget.Button
 import androidx.lifecycle.Lifecycle
+import androidx.recyclerview.widget.RecyclerView
 import androidx.test.core.app.ActivityScenario
 import androidx.test.core.app.ApplicationProvider
 import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.work.WorkManager
 import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.Matchers.equalTo
+import org.javarosa.core.model.FormIndex
+import org.javarosa.form.api.FormEntryController
+import org.javarosa.form.api.FormEntryModel
+import org.javarosa.model.xform.XFormsModule
 import org.junit.Before
+import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
+import org.mockito.kotlin.mock
+import org.odk.collect.android.R
+import org.odk.collect.android.formentry.AppStateFormSessionRepository
+import org.odk.collect.android.formentry.FormEntryUseCases
 import org.odk.collect.android.formhierarchy.FormHierarchyActivity
+import org.odk.collect.android.formhierarchy.HierarchyItem
+import org.odk.collect.android.formhierarchy.HierarchyItemType
+import org.odk.collect.android.injection.config.AppDependencyModule
+import org.odk.collect.android.javarosawrapper.FormController
+import org.odk.collect.android.javarosawrapper.JavaRosaFormController
 import org.odk.collect.android.support.CollectHelpers
+import org.odk.collect.android.utilities.FileUtils
+import org.odk.collect.androidtest.ActivityScenarioLauncherRule
+import org.odk.collect.async.Scheduler
+import org.odk.collect.forms.Form
+import org.odk.collect.formstest.FormFixtures
+import org.odk.collect.shared.TempFiles
+import org.odk.collect.testshared.FakeScheduler
+import org.robolectric.fakes.RoboMenuItem
 
 @RunWith(AndroidJUnit4::class)
 class FormHierarchyActivityTest {
 
+    @get:Rule
+    val scenarioLauncherRule = ActivityScenarioLauncherRule()
+
+    private val scheduler = FakeScheduler()
+    private val dependencies = object : AppDependencyModule() {
+        override fun providesScheduler(workManager: WorkManager): Scheduler {
+            return scheduler
+        }
+    }
+
+    private val application = ApplicationProvider.getApplicationContext<Application>()
+
+    private lateinit var form: Form
+    private lateinit var formController: FormController
+    private val repeatIndexes = mutableListOf<FormIndex>()
+    private val questionIndexes = mutableListOf<FormIndex>()
+
     @Before
     fun setup() {
+        CollectHelpers.overrideAppDependencyModule(dependencies)
         CollectHelpers.setupDemoProject()
+        XFormsModule().registerModule()
     }
 
     /**
@@ -36,4 +81,150 @@ class FormHierarchyActivityTest {
             assertThat(scenario.state, equalTo(Lifecycle.State.DESTROYED))
         }
     }
+
+    @Test
+    fun whileScreenIsBuilding_ignoresActions() {
+        createFormController(repeats = 3)
+        val scenario = launchHierarchy()
+
+        scenario.onActivity {
+            it.onElementClick(repeatableGroup())
+            it.onOptionsItemSelected(RoboMenuItem(R.id.menu_go_up))
+            it.findViewById<Button>(R.id.jumpEndButton).performClick()
+            assertThat(it.isFinishing, equalTo(false))
+        }
+
+        scheduler.flush()
+        assertThat(getItemCount(scenario), equalTo(1))
+        assertThat(formController.getFormIndex(), equalTo(FormIndex.createBeginningOfFormIndex()))
+
+        scenario.onActivity {
+            it.onElementClick(repeatableGroup())
+        }
+
+        scheduler.flush()
+        assertThat(getItemCount(scenario), equalTo(3))
+    }
+
+    @Test
+    fun screensThatHaveAlreadyBeenBuilt_areShownWithoutBuildingThemAgain() {
+        createFormController(repeats = 3)
+        val scenario = launchHierarchy()
+        scheduler.flush()
+        assertThat(getItemCount(scenario), equalTo(1))
+
+        scenario.onActivity { it.onElementClick(repeatableGroup()) }
+        assertThat(getItemCount(scenario), equalTo(1))
+        scheduler.flush()
+        assertThat(getItemCount(scenario), equalTo(3))
+
+        scenario.onActivity { it.onOptionsItemSelected(RoboMenuItem(R.id.menu_go_up)) }
+        assertThat(getItemCount(scenario), equalTo(1))
+
+        scenario.onActivity { it.onElementClick(repeatableGroup()) }
+        assertThat(getItemCount(scenario), equalTo(3))
+    }
+
+    @Test
+    fun deletingARepeat_rebuildsScreensThatHaveAlreadyBeenBuilt() {
+        createFormController(repeats = 3)
+        val scenario = launchHierarchy()
+        scheduler.flush()
+
+        scenario.onActivity { it.onElementClick(repeatableGroup()) }
+        scheduler.flush()
+        assertThat(getItemCount(scenario), equalTo(3))
+
+        scenario.onActivity {
+            it.onElementClick(HierarchyItem(repeatIndexes[1], HierarchyItemType.REPEAT_INSTANCE, "Person > 2"))
+        }
+        scheduler.flush()
+        assertThat(getItemCount(scenario), equalTo(1))
+
+        scenario.onActivity {
+            formController.deleteRepeat()
+            it.deleteGroup()
+        }
+        scheduler.flush()
+
+        scenario.onActivity { it.onElementClick(repeatableGroup()) }
+        scheduler.flush()
+        assertThat(getItemCount(scenario), equalTo(2))
+    }
+
+    @Test
+    fun whenActivityIsRecreatedWhileScreenIsBuilding_buildsScreenForIndexFromBeforeRecreation() {
+        createFormController(repeats = 3)
+        formController.jumpToIndex(questionIndexes[1])
+        val scenario = launchHierarchy()
+
+        scenario.recreate()
+        scheduler.flush()
+
+        assertThat(formController.getFormIndex(), equalTo(questionIndexes[1]))
+        assertThat(getItemCount(scenario), equalTo(1))
+
+        scenario.onActivity { it.onBackPressedDispatcher.onBackPressed() }
+        assertThat(formController.getFormIndex(), equalTo(questionIndexes[1]))
+    }
+
+    private fun createFormController(repeats: Int) {
+        val formFile = TempFiles.createTempFile(".xml").also {
+            FileUtils.copyFileFromResources("forms/one-question-repeat.xml", it.absolutePath)
+        }
+
+        form = FormFixtures.form(formFilePath = formFile.absolutePath)
+        val formDef = FormEntryUseCases.loadFormDef(form, TempFiles.createTempDir(), mock())!!
+        formController = FormEntryUseCases.loadBlankForm(
+            form,
+            FormEntryController(FormEntryModel(formDef)),
+            TempFiles.createTempFile("instance", ".xml")
+        )
+
+        var event = formController.stepToNextEvent(JavaRosaFormController.STEP_INTO_GROUP)
+        while (event != FormEntryController.EVENT_END_OF_FORM) {
+            if (event == FormEntryController.EVENT_PROMPT_NEW_REPEAT && repeatIndexes.size < repeats) {
+                formController.newRepeat()
+                event = formController.getEvent()
+                continue
+            }
+
+            if (event == FormEntryController.EVENT_REPEAT) {
+                repeatIndexes.add(formController.getFormIndex()!!)
+            } else if (event == FormEntryController.EVENT_QUESTION) {
+                questionIndexes.add(formController.getFormIndex()!!)
+            }
+
+            event = formController.stepToNextEvent(JavaRosaFormController.STEP_INTO_GROUP)
+        }
+
+        formController.jumpToIndex(FormIndex.createBeginningOfFormIndex())
+    }
+
+    private fun launchHierarchy(): ActivityScenario<FormHierarchyActivity> {
+        AppStateFormSessionRepository(application).set(SESSION_ID, formController, form)
+
+        val intent = Intent(application, FormHierarchyActivity::class.java).also {
+            it.putExtra(FormHierarchyActivity.EXTRA_SESSION_ID, SESSION_ID)
+        }
+
+        return scenarioLauncherRule.launch(intent)
+    }
+
+    private fun repeatableGroup(): HierarchyItem {
+        return HierarchyItem(repeatIndexes[0], HierarchyItemType.REPEATABLE_GROUP, "Person")
+    }
+
+    private fun getItemCount(scenario: ActivityScenario<FormHierarchyActivity>): Int {
+        var itemCount = 0
+        scenario.onActivity {
+            itemCount = it.findViewById<RecyclerView>(R.id.list).adapter?.itemCount ?: 0
+        }
+
+        return itemCount
+    }
+
+    companion object {
+        private const val SESSION_ID = "session"
+    }
 }
@@ -0,0 +1,67 @@
+package org.odk.collect.android.adapters;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+import org.javarosa.core.model.SelectChoice;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SelectChoiceLabelIndexTest {
+
+    @Test
+    public void filter_returnsChoicesContainingQueryIgnoringCase() {
+        SelectChoiceLabelIndex index = createIndex("Apple", "Banana", "Pineapple");
+
+        assertThat(getValues(index.filter("APP")), contains("Apple", "Pineapple"));
+        assertThat(getValues(index.filter("nan")), contains("Banana"));
+    }
+
+    @Test
+    public void filter_ignoresDiacritics() {
+        SelectChoiceLabelIndex index = createIndex("Café", "Cafe", "Crème brûlée", "Tea");
+
+        assertThat(getValues(index.filter("cafe")), contains("Café", "Cafe"));
+        assertThat(getValues(index.filter("Café")), contains("Café", "Cafe"));
+        assertThat(getValues(index.filter("brulee")), contains("Crème brûlée"));
+    }
+
+    @Test
+    public void filter_withEmptyQuery_returnsAllChoices() {
+        SelectChoiceLabelIndex index = createIndex("Apple", "Banana");
+
+        assertThat(getValues(index.filter("")), contains("Apple", "Banana"));
+    }
+
+    @Test
+    public void filter_afterNarrowingAndWideningQuery_returnsChoicesContainingQuery() {
+        SelectChoiceLabelIndex index = createIndex("ab", "abc", "bcd", "b");
+
+        assertThat(getValues(index.filter("b")), contains("ab", "abc", "bcd", "b"));
+        assertThat(getValues(index.filter("bc")), contains("abc", "bcd"));
+        assertThat(getValues(index.filter("bcd")), contains("bcd"));
+        assertThat(getValues(index.filter("b")), contains("ab", "abc", "bcd", "b"));
+        assertThat(getValues(index.filter("a")), contains("ab", "abc"));
+    }
+
+    private static SelectChoiceLabelIndex createIndex(String... labels) {
+        List<SelectChoice> choices = new ArrayList<>();
+        for (String label : labels) {
+            choices.add(new SelectChoice(label, label));
+        }
+
+        return new SelectChoiceLabelIndex(choices, Arrays.asList(labels));
+    }
+
+    private static List<String> getValues(List<SelectChoice> choices) {
+        List<String> values = new ArrayList<>();
+        for (SelectChoice choice : choices) {
+            values.add(choice.getValue());
+        }
+
+        return values;
+    }
+}
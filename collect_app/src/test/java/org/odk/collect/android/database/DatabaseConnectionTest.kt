@@ -2,6 +2,9 @@ package org.odk.collect.android.database
 
 import androidx.test.core.app.ApplicationProvider
 import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.sameInstance
 import org.junit.Assert.assertFalse
 import org.junit.Assert.assertTrue
 import org.junit.Test
@@ -9,6 +12,8 @@ import org.junit.runner.RunWith
 import org.odk.collect.android.database.forms.FormDatabaseMigrator
 import org.odk.collect.shared.TempFiles.createTempDir
 import java.io.File
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
 
 @RunWith(AndroidJUnit4::class)
 class DatabaseConnectionTest {
@@ -36,4 +41,42 @@ class DatabaseConnectionTest {
             assertTrue(File(formsDbPath).exists())
         }
     }
+
+    @Test
+    fun `connections to the same file share a database`() {
+        val dbDir = createTempDir()
+
+        assertThat(
+            createConnection(dbDir).readableDatabase,
+            sameInstance(createConnection(dbDir).writeableDatabase)
+        )
+    }
+
+    @Test
+    fun `database is only opened once when accessed from multiple threads`() {
+        val dbDir = createTempDir()
+        val formsDbPath = dbDir.absolutePath + File.separator + "forms.db"
+
+        val executor = Executors.newFixedThreadPool(4)
+        val databases = executor.invokeAll(
+            (1..20).map {
+                Callable { createConnection(dbDir).readableDatabase }
+            }
+        ).map { it.get() }
+        executor.shutdown()
+
+        assertThat(databases.distinct().size, equalTo(1))
+        assertThat(DatabaseConnection.getMetrics(formsDbPath).opens.get(), equalTo(1L))
+        assertThat(DatabaseConnection.getMetrics(formsDbPath).readableDatabaseAccesses.get(), equalTo(20L))
+    }
+
+    private fun createConnection(dbDir: File): DatabaseConnection {
+        return DatabaseConnection(
+            ApplicationProvider.getApplicationContext(),
+            dbDir.absolutePath,
+            "forms.db",
+            FormDatabaseMigrator(),
+            DatabaseConstants.FORMS_DATABASE_VERSION
+        )
+    }
 }
@@ -3,15 +3,24 @@ package org.odk.collect.android.database;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.odk.collect.android.database.forms.DatabaseFormsRepository;
+import org.odk.collect.forms.Form;
 import org.odk.collect.forms.FormsRepository;
+import org.odk.collect.formstest.FormUtils;
 import org.odk.collect.formstest.FormsRepositoryTest;
 import org.odk.collect.shared.TempFiles;
 
 import java.io.File;
 import java.util.function.Supplier;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThrows;
+
 @RunWith(AndroidJUnit4.class)
 public class DatabaseFormsRepositoryTest extends FormsRepositoryTest {
 
@@ -33,4 +42,32 @@ public class DatabaseFormsRepositoryTest extends FormsRepositoryTest {
     public String getFormFilesPath() {
         return formsDir.getAbsolutePath();
     }
+
+    @Test
+    public void runInTransaction_deletesFormFilesOnceCommitted() {
+        FormsRepository formsRepository = buildSubject();
+        Form form = formsRepository.save(FormUtils.buildForm("1", null, getFormFilesPath()).build());
+
+        formsRepository.runInTransaction(() -> {
+            formsRepository.delete(form.getDbId());
+            assertThat(new File(form.getFormFilePath()).exists(), is(true));
+        });
+
+        assertThat(formsRepository.get(form.getDbId()), is(nullValue()));
+        assertThat(new File(form.getFormFilePath()).exists(), is(false));
+    }
+
+    @Test
+    public void runInTransaction_whenRolledBack_doesNotDeleteFormFiles() {
+        FormsRepository formsRepository = buildSubject();
+        Form form = formsRepository.save(FormUtils.buildForm("1", null, getFormFilesPath()).build());
+
+        assertThrows(IllegalStateException.class, () -> formsRepository.runInTransaction(() -> {
+            formsRepository.delete(form.getDbId());
+            throw new IllegalStateException();
+        }));
+
+        assertThat(formsRepository.get(form.getDbId()), is(notNullValue()));
+        assertThat(new File(form.getFormFilePath()).exists(), is(true));
+    }
 }
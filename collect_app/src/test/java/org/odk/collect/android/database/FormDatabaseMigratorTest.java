@@ -13,10 +13,12 @@ import org.junit.runner.RunWith;
 import org.odk.collect.android.database.forms.FormDatabaseMigrator;
 import org.odk.collect.android.utilities.SQLiteUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static java.util.Arrays.asList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertTrue;
@@ -38,6 +40,7 @@ import static org.odk.collect.android.database.forms.DatabaseFormColumns.LANGUAG
 import static org.odk.collect.android.database.forms.DatabaseFormColumns.LAST_DETECTED_ATTACHMENTS_UPDATE_DATE;
 import static org.odk.collect.android.database.forms.DatabaseFormColumns.LAST_DETECTED_FORM_VERSION_HASH;
 import static org.odk.collect.android.database.forms.DatabaseFormColumns.MD5_HASH;
+import static org.odk.collect.android.database.forms.DatabaseFormColumns.PRE_WARMED;
 import static org.odk.collect.android.database.forms.DatabaseFormColumns.SUBMISSION_URI;
 import static org.odk.collect.android.database.forms.DatabaseFormColumns._ID;
 
@@ -47,13 +50,13 @@ public class FormDatabaseMigratorTest {
     public static final List<String> CURRENT_VERSION_COLUMNS = asList(_ID, DISPLAY_NAME, DESCRIPTION,
             JR_FORM_ID, JR_VERSION, MD5_HASH, DATE, FORM_MEDIA_PATH, FORM_FILE_PATH, LANGUAGE,
             SUBMISSION_URI, BASE64_RSA_PUBLIC_KEY, JRCACHE_FILE_PATH, AUTO_SEND, AUTO_DELETE,
-            GEOMETRY_XPATH, DELETED_DATE, LAST_DETECTED_ATTACHMENTS_UPDATE_DATE);
+            GEOMETRY_XPATH, DELETED_DATE, LAST_DETECTED_ATTACHMENTS_UPDATE_DATE, PRE_WARMED);
 
     private SQLiteDatabase database;
 
     @Before
     public void setup() {
-        assertThat("Test expects different Forms DB version", DatabaseConstants.FORMS_DATABASE_VERSION, is(12));
+        assertThat("Test expects different Forms DB version", DatabaseConstants.FORMS_DATABASE_VERSION, is(14));
         database = SQLiteDatabase.create(null);
     }
 
@@ -75,7 +78,7 @@ public class FormDatabaseMigratorTest {
         new FormDatabaseMigrator().onUpgrade(database, oldVersion);
 
         try (Cursor cursor = database.rawQuery("SELECT * FROM " + FORMS_TABLE_NAME + ";", new String[]{})) {
-            assertThat(cursor.getColumnCount(), is(18));
+            assertThat(cursor.getColumnCount(), is(19));
             assertThat(cursor.getCount(), is(1));
 
             cursor.moveToFirst();
@@ -96,7 +99,22 @@ public class FormDatabaseMigratorTest {
             assertThat(cursor.getString(cursor.getColumnIndex(GEOMETRY_XPATH)), is(contentValues.getAsString(GEOMETRY_XPATH)));
             assertThat(cursor.getInt(cursor.getColumnIndex(DELETED_DATE)), is(contentValues.getAsInteger(DELETED_DATE)));
             assertThat(cursor.getString(cursor.getColumnIndex(LAST_DETECTED_ATTACHMENTS_UPDATE_DATE)), is(nullValue()));
+            assertThat(cursor.getInt(cursor.getColumnIndex(PRE_WARMED)), is(0));
         }
+
+        assertThat(getIndexNames(database), containsInAnyOrder("forms_form_id_version", "forms_md5_hash", "forms_form_file_path"));
+    }
+
+    @Test
+    public void onUpgrade_fromVersion13_addsIndexes() {
+        FormDatabaseMigrator formDatabaseMigrator = new FormDatabaseMigrator();
+        formDatabaseMigrator.onCreate(database);
+        for (String index : getIndexNames(database)) {
+            database.execSQL("DROP INDEX " + index);
+        }
+
+        formDatabaseMigrator.onUpgrade(database, 13);
+        assertThat(getIndexNames(database), containsInAnyOrder("forms_form_id_version", "forms_md5_hash", "forms_form_file_path"));
     }
 
     @Test
@@ -112,7 +130,7 @@ public class FormDatabaseMigratorTest {
         new FormDatabaseMigrator().onUpgrade(database, oldVersion);
 
         try (Cursor cursor = database.rawQuery("SELECT * FROM " + FORMS_TABLE_NAME + ";", new String[]{})) {
-            assertThat(cursor.getColumnCount(), is(18));
+            assertThat(cursor.getColumnCount(), is(19));
             assertThat(cursor.getCount(), is(1));
 
             cursor.moveToFirst();
@@ -133,6 +151,7 @@ public class FormDatabaseMigratorTest {
             assertThat(cursor.getString(cursor.getColumnIndex(GEOMETRY_XPATH)), is(contentValues.getAsString(GEOMETRY_XPATH)));
             assertThat(cursor.getInt(cursor.getColumnIndex(DELETED_DATE)), is(contentValues.getAsInteger(DELETED_DATE)));
             assertThat(cursor.getString(cursor.getColumnIndex(LAST_DETECTED_ATTACHMENTS_UPDATE_DATE)), is(nullValue()));
+            assertThat(cursor.getInt(cursor.getColumnIndex(PRE_WARMED)), is(0));
         }
     }
 
@@ -149,7 +168,7 @@ public class FormDatabaseMigratorTest {
         new FormDatabaseMigrator().onUpgrade(database, oldVersion);
 
         try (Cursor cursor = database.rawQuery("SELECT * FROM " + FORMS_TABLE_NAME + ";", new String[]{})) {
-            assertThat(cursor.getColumnCount(), is(18));
+            assertThat(cursor.getColumnCount(), is(19));
             assertThat(cursor.getCount(), is(1));
 
             cursor.moveToFirst();
@@ -171,6 +190,7 @@ public class FormDatabaseMigratorTest {
             assertThat(cursor.getInt(cursor.getColumnIndex(DELETED_DATE)), is(0));
             assertThat(cursor.getColumnIndex("deleted"), is(-1));
             assertThat(cursor.getString(cursor.getColumnIndex(LAST_DETECTED_ATTACHMENTS_UPDATE_DATE)), is(nullValue()));
+            assertThat(cursor.getInt(cursor.getColumnIndex(PRE_WARMED)), is(0));
         }
     }
 
@@ -187,7 +207,7 @@ public class FormDatabaseMigratorTest {
         new FormDatabaseMigrator().onUpgrade(database, oldVersion);
 
         try (Cursor cursor = database.rawQuery("SELECT * FROM " + FORMS_TABLE_NAME + ";", new String[]{})) {
-            assertThat(cursor.getColumnCount(), is(18));
+            assertThat(cursor.getColumnCount(), is(19));
             assertThat(cursor.getCount(), is(1));
 
             cursor.moveToFirst();
@@ -208,6 +228,7 @@ public class FormDatabaseMigratorTest {
             assertThat(cursor.getString(cursor.getColumnIndex(GEOMETRY_XPATH)), is(contentValues.getAsString(GEOMETRY_XPATH)));
             assertThat(cursor.isNull(cursor.getColumnIndex(DELETED_DATE)), is(true));
             assertThat(cursor.getString(cursor.getColumnIndex(LAST_DETECTED_ATTACHMENTS_UPDATE_DATE)), is(nullValue()));
+            assertThat(cursor.getInt(cursor.getColumnIndex(PRE_WARMED)), is(0));
         }
     }
 
@@ -224,7 +245,7 @@ public class FormDatabaseMigratorTest {
         new FormDatabaseMigrator().onUpgrade(database, oldVersion);
 
         try (Cursor cursor = database.rawQuery("SELECT * FROM " + FORMS_TABLE_NAME + ";", new String[]{})) {
-            assertThat(cursor.getColumnCount(), is(18));
+            assertThat(cursor.getColumnCount(), is(19));
             assertThat(cursor.getCount(), is(1));
 
             cursor.moveToFirst();
@@ -245,6 +266,7 @@ public class FormDatabaseMigratorTest {
             assertThat(cursor.getString(cursor.getColumnIndex(GEOMETRY_XPATH)), is(contentValues.getAsString(GEOMETRY_XPATH)));
             assertThat(cursor.isNull(cursor.getColumnIndex(DELETED_DATE)), is(true));
             assertThat(cursor.getString(cursor.getColumnIndex(LAST_DETECTED_ATTACHMENTS_UPDATE_DATE)), is(nullValue()));
+            assertThat(cursor.getInt(cursor.getColumnIndex(PRE_WARMED)), is(0));
         }
     }
 
@@ -260,7 +282,7 @@ public class FormDatabaseMigratorTest {
         formDatabaseMigrator.onDowngrade(database);
 
         try (Cursor cursor = database.rawQuery("SELECT * FROM " + FORMS_TABLE_NAME + ";", new String[]{})) {
-            assertThat(cursor.getColumnCount(), is(18));
+            assertThat(cursor.getColumnCount(), is(19));
             assertThat(cursor.getCount(), is(0));
             assertThat(asList(cursor.getColumnNames()), is(CURRENT_VERSION_COLUMNS));
         }
@@ -295,7 +317,7 @@ public class FormDatabaseMigratorTest {
         formDatabaseMigrator.onDowngrade(database);
 
         try (Cursor cursor = database.rawQuery("SELECT * FROM " + FORMS_TABLE_NAME + ";", new String[]{})) {
-            assertThat(cursor.getColumnCount(), is(18));
+            assertThat(cursor.getColumnCount(), is(19));
             assertThat(cursor.getCount(), is(0));
             assertThat(asList(cursor.getColumnNames()), is(CURRENT_VERSION_COLUMNS));
         }
@@ -508,4 +530,15 @@ public class FormDatabaseMigratorTest {
                 + GEOMETRY_XPATH + " text, "
                 + DELETED_DATE + " integer);");
     }
+
+    private static List<String> getIndexNames(SQLiteDatabase database) {
+        List<String> indexNames = new ArrayList<>();
+        try (Cursor cursor = database.rawQuery("SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = ? AND sql IS NOT NULL", new String[]{FORMS_TABLE_NAME})) {
+            while (cursor.moveToNext()) {
+                indexNames.add(cursor.getString(0));
+            }
+        }
+
+        return indexNames;
+    }
 }
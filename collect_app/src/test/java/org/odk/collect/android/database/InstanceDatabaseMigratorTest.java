@@ -0,0 +1,112 @@
+package org.odk.collect.android.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.odk.collect.android.database.instances.InstanceDatabaseMigrator;
+import org.odk.collect.forms.instances.Instance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.odk.collect.android.database.DatabaseConstants.INSTANCES_TABLE_NAME;
+import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.DELETED_DATE;
+import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.INSTANCE_FILE_PATH;
+import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.JR_FORM_ID;
+import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.JR_VERSION;
+import static org.odk.collect.android.database.instances.DatabaseInstanceColumns.STATUS;
+
+@RunWith(AndroidJUnit4.class)
+public class InstanceDatabaseMigratorTest {
+
+    private static final String[] INDEXES = {"instances_form_id_version", "instances_status", "instances_instance_file_path"};
+
+    private SQLiteDatabase database;
+
+    @Before
+    public void setup() {
+        assertThat("Test expects different Instances DB version", DatabaseConstants.INSTANCES_DATABASE_VERSION, is(7));
+        database = SQLiteDatabase.create(null);
+    }
+
+    @After
+    public void teardown() {
+        database.close();
+    }
+
+    @Test
+    public void onCreate_addsIndexes() {
+        new InstanceDatabaseMigrator().onCreate(database);
+        assertThat(getIndexNames(), containsInAnyOrder(INDEXES));
+    }
+
+    @Test
+    public void onUpgrade_fromVersion6_addsIndexes() {
+        InstanceDatabaseMigrator instanceDatabaseMigrator = new InstanceDatabaseMigrator();
+        createVersion6Database(instanceDatabaseMigrator);
+        assertThat(getIndexNames(), is(empty()));
+
+        instanceDatabaseMigrator.onUpgrade(database, 6);
+        assertThat(getIndexNames(), containsInAnyOrder(INDEXES));
+    }
+
+    @Test
+    public void onDowngrade_keepsIndexes() {
+        InstanceDatabaseMigrator instanceDatabaseMigrator = new InstanceDatabaseMigrator();
+        instanceDatabaseMigrator.onCreate(database);
+
+        instanceDatabaseMigrator.onDowngrade(database);
+        assertThat(getIndexNames(), containsInAnyOrder(INDEXES));
+    }
+
+    @Test
+    public void onUpgrade_fromVersion6_indexesAreUsedForRepositoryQueries() {
+        InstanceDatabaseMigrator instanceDatabaseMigrator = new InstanceDatabaseMigrator();
+        createVersion6Database(instanceDatabaseMigrator);
+        instanceDatabaseMigrator.onUpgrade(database, 6);
+
+        assertThat(getQueryPlan(JR_FORM_ID + "=? AND " + JR_VERSION + "=? AND " + DELETED_DATE + " IS NULL", "form1", "1"), containsString("instances_form_id_version"));
+        assertThat(getQueryPlan(STATUS + "=?", Instance.STATUS_COMPLETE), containsString("instances_status"));
+        assertThat(getQueryPlan(INSTANCE_FILE_PATH + "=?", "path"), containsString("instances_instance_file_path"));
+    }
+
+    private void createVersion6Database(InstanceDatabaseMigrator instanceDatabaseMigrator) {
+        instanceDatabaseMigrator.onCreate(database);
+        for (String index : getIndexNames()) {
+            database.execSQL("DROP INDEX " + index);
+        }
+    }
+
+    private String getQueryPlan(String selection, String... selectionArgs) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = database.rawQuery("EXPLAIN QUERY PLAN SELECT * FROM " + INSTANCES_TABLE_NAME + " WHERE " + selection, selectionArgs)) {
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(cursor.getColumnCount() - 1)).append('\n');
+            }
+        }
+
+        return plan.toString();
+    }
+
+    private List<String> getIndexNames() {
+        List<String> indexNames = new ArrayList<>();
+        try (Cursor cursor = database.rawQuery("SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = ? AND sql IS NOT NULL", new String[]{INSTANCES_TABLE_NAME})) {
+            while (cursor.moveToNext()) {
+                indexNames.add(cursor.getString(0));
+            }
+        }
+
+        return indexNames;
+    }
+}
@@ -9,6 +9,7 @@ import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.odk.collect.android.exception.ExternalDataException;
 import org.odk.collect.android.storage.StoragePathProvider;
 import org.odk.collect.android.storage.StorageSubdirectory;
 import org.odk.collect.android.support.CollectHelpers;
@@ -32,6 +33,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.odk.collect.android.dynamicpreload.ExternalDataUtil.COLUMN_DATASET_FILENAME;
 import static org.odk.collect.android.dynamicpreload.ExternalDataUtil.COLUMN_MD5_HASH;
@@ -106,7 +108,7 @@ public class ExternalDataReaderTest {
 
         SQLiteDatabase.OpenParams.Builder paramsBuilder = new SQLiteDatabase.OpenParams.Builder();
         SQLiteDatabase db = SQLiteDatabase.createInMemory(paramsBuilder.build());
-        ExternalSQLiteOpenHelper.createAndPopulateMetadataTable(db, testMetadataTable, csvFile);
+        ExternalSQLiteOpenHelper.createAndPopulateMetadataTable(db, testMetadataTable, csvFile, Md5.getMd5Hash(csvFile));
 
         assertThat(SQLiteUtils.doesTableExist(db, testMetadataTable), is(true));
 
@@ -215,6 +217,59 @@ public class ExternalDataReaderTest {
         assertThat("expected zero rows of data after reimporting unchanged file", cursor.getCount(), is(0));
     }
 
+    @Test
+    public void doImport_onlySetsDatabaseVersionOnceImportHasFinished() throws IOException {
+        try (Writer out = new BufferedWriter(new FileWriter(csvFile))) {
+            out.write("name_key,name,sortby\nmango,Mango,1\ncherimoya,Cherimoya,not a number");
+        }
+
+        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(() -> false, mock());
+        assertThrows(ExternalDataException.class, () -> externalDataReader.doImport(formDefToCsvMedia));
+
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getAbsolutePath(), null, SQLiteDatabase.OPEN_READONLY);
+        assertThat(db.getVersion(), is(0));
+        assertThat(SQLiteUtils.doesTableExist(db, EXTERNAL_METADATA_TABLE_NAME), is(false));
+        db.close();
+    }
+
+    @Test
+    public void doImport_setsDatabaseVersion() {
+        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(() -> false, mock());
+        externalDataReader.doImport(formDefToCsvMedia);
+
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getAbsolutePath(), null, SQLiteDatabase.OPEN_READONLY);
+        assertThat(db.getVersion(), is(1));
+        db.close();
+    }
+
+    @Test
+    public void doImport_resumesInterruptedImport() {
+        ExternalDataReader externalDataReader = new ExternalDataReaderImpl(() -> false, mock());
+        externalDataReader.doImport(formDefToCsvMedia);
+
+        // Make the database look like an import that was interrupted after the first two rows
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getAbsolutePath(), null, SQLiteDatabase.OPEN_READWRITE);
+        db.delete(EXTERNAL_DATA_TABLE_NAME, "c_name_key=?", new String[]{"strawberries"});
+        SQLiteUtils.dropTable(db, EXTERNAL_METADATA_TABLE_NAME);
+        db.execSQL("CREATE TABLE " + ExternalSQLiteOpenHelper.IMPORT_PROGRESS_TABLE_NAME + " (md5 text, rows integer);");
+        db.execSQL("INSERT INTO " + ExternalSQLiteOpenHelper.IMPORT_PROGRESS_TABLE_NAME + " VALUES (?, 2);", new Object[]{Md5.getMd5Hash(csvFile)});
+        db.setVersion(0);
+        db.close();
+
+        externalDataReader = new ExternalDataReaderImpl(() -> false, mock());
+        externalDataReader.doImport(formDefToCsvMedia);
+
+        db = SQLiteDatabase.openDatabase(dbFile.getAbsolutePath(), null, SQLiteDatabase.OPEN_READONLY);
+        Cursor cursor = db.rawQuery("SELECT c_name_key FROM " + EXTERNAL_DATA_TABLE_NAME + " ORDER BY c_sortby", null);
+        assertThat(cursor.getCount(), is(3));
+        cursor.moveToLast();
+        assertThat(cursor.getString(0), is("strawberries"));
+        assertThat(SQLiteUtils.doesTableExist(db, ExternalSQLiteOpenHelper.IMPORT_PROGRESS_TABLE_NAME), is(false));
+        assertThat(SQLiteUtils.doesTableExist(db, EXTERNAL_METADATA_TABLE_NAME), is(true));
+        cursor.close();
+        db.close();
+    }
+
     private static Map<String, File> makeExternalDataMap() {
         Map<String, File> externalDataMap = new HashMap<>();
         externalDataMap.put(SIMPLE_SEARCH_EXTERNAL_CSV_NAME, csvFile);
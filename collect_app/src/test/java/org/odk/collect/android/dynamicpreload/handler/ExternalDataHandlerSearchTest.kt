@@ -0,0 +1,100 @@
+package org.odk.collect.android.dynamicpreload.handler
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.not
+import org.javarosa.core.model.SelectChoice
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.kotlin.mock
+import org.odk.collect.android.dynamicpreload.ExternalDataFullTextSearch
+import org.odk.collect.android.dynamicpreload.ExternalDataManagerImpl
+import org.odk.collect.android.dynamicpreload.ExternalDataReaderImpl
+import org.odk.collect.android.support.CollectHelpers
+import org.odk.collect.shared.TempFiles
+import java.io.File
+
+@RunWith(AndroidJUnit4::class)
+class ExternalDataHandlerSearchTest {
+
+    private lateinit var externalDataManager: ExternalDataManagerImpl
+
+    @Before
+    fun setup() {
+        CollectHelpers.setupDemoProject()
+
+        val mediaDir = TempFiles.createTempDir()
+        val csvFile = File(mediaDir, "$DATA_SET.csv")
+        csvFile.bufferedWriter().use { writer ->
+            writer.write("name,label,sortby\n")
+            for (i in 0 until ROW_COUNT) {
+                val label = WORDS[i % WORDS.size] + " " + WORDS[(i * 3 + 1) % WORDS.size] + " " + i
+                // Sort in the opposite order to how rows are inserted so that the order results
+                // come back in isn't just the table's
+                writer.write("name$i,$label,${ROW_COUNT - i}\n")
+            }
+        }
+
+        ExternalDataReaderImpl({ false }, mock()).doImport(mapOf(DATA_SET to csvFile))
+        externalDataManager = ExternalDataManagerImpl(mediaDir)
+    }
+
+    @After
+    fun teardown() {
+        externalDataManager.close()
+    }
+
+    @Test
+    fun `full-text search returns the same rows in the same order as scanning the table`() {
+        val db = externalDataManager.getDatabase(DATA_SET, true).readableDatabase
+        assertThat(ExternalDataFullTextSearch.isAvailable(db), equalTo(true))
+
+        val queries = listOf(
+            "contains" to "apple pie",
+            "contains" to "ple cream pi",
+            "contains" to "apple",
+            "startsWith" to "gre",
+            "startsWith" to "green ap",
+            "startsWith" to "Red Cherry red",
+            "endsWith" to "pie 11",
+            "matches" to "blue berry apple pie 8"
+        )
+
+        val fullTextResults = queries.map { search(it.first, it.second) }
+
+        db.execSQL("DROP TABLE " + ExternalDataFullTextSearch.FTS_TABLE_NAME)
+        assertThat(ExternalDataFullTextSearch.isAvailable(db), equalTo(false))
+        val scanResults = queries.map { search(it.first, it.second) }
+
+        queries.forEachIndexed { i, query ->
+            assertThat(query.toString(), fullTextResults[i], equalTo(scanResults[i]))
+            assertThat(query.toString(), fullTextResults[i], not(equalTo(emptyList())))
+        }
+    }
+
+    @Test
+    fun `results are ordered by sort column`() {
+        val results = search("startsWith", "green ap")
+
+        val rowNumbers = results.map { it.removePrefix("name").toInt() }
+        assertThat(rowNumbers, equalTo(rowNumbers.sortedDescending()))
+    }
+
+    private fun search(searchType: String, value: String): List<String> {
+        val handler = ExternalDataHandlerSearch(externalDataManager, "label", "name", null)
+
+        @Suppress("UNCHECKED_CAST")
+        val choices = handler.eval(arrayOf(DATA_SET, searchType, "label", value), null) as List<SelectChoice>
+        return choices.map { it.value }
+    }
+
+    companion object {
+        private const val DATA_SET = "search-data"
+        private const val ROW_COUNT = 1200
+
+        private val WORDS = listOf("apple pie", "green apple", "red cherry", "blue berry", "cream pie")
+    }
+}
@@ -0,0 +1,62 @@
+package org.odk.collect.android.dynamicpreload.handler
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.nullValue
+import org.junit.Test
+import org.odk.collect.android.dynamicpreload.ExternalDataFullTextSearch
+
+class ExternalDataSearchTypeTest {
+
+    @Test
+    fun `getTokens() splits on ASCII punctuation and lower cases ASCII letters`() {
+        assertThat(ExternalDataFullTextSearch.getTokens("New York-City (NY)"), equalTo(listOf("new", "york", "city", "ny")))
+        assertThat(ExternalDataFullTextSearch.getTokens("Zürich Stadt"), equalTo(listOf("zürich", "stadt")))
+    }
+
+    @Test
+    fun `getTokens() returns null for values with LIKE wildcards`() {
+        assertThat(ExternalDataFullTextSearch.getTokens("50%"), nullValue())
+        assertThat(ExternalDataFullTextSearch.getTokens("a_b"), nullValue())
+    }
+
+    @Test
+    fun `matches uses every token`() {
+        assertThat(ExternalDataSearchType.MATCHES.constructFullTextTerms(listOf("new", "york")), equalTo(listOf("new", "york")))
+    }
+
+    @Test
+    fun `startsWith uses the last token as a prefix`() {
+        assertThat(ExternalDataSearchType.STARTS.constructFullTextTerms(listOf("new", "yo")), equalTo(listOf("new", "yo*")))
+        assertThat(ExternalDataSearchType.STARTS.constructFullTextTerms(listOf("ne")), equalTo(listOf("ne*")))
+    }
+
+    @Test
+    fun `contains skips the first token and uses the last as a prefix`() {
+        assertThat(ExternalDataSearchType.CONTAINS.constructFullTextTerms(listOf("ew", "york", "ci")), equalTo(listOf("york", "ci*")))
+    }
+
+    @Test
+    fun `contains and endsWith can't use the index for a single token`() {
+        assertThat(ExternalDataSearchType.CONTAINS.constructFullTextTerms(listOf("york")), nullValue())
+        assertThat(ExternalDataSearchType.ENDS.constructFullTextTerms(listOf("york")), nullValue())
+    }
+
+    @Test
+    fun `endsWith skips the first token`() {
+        assertThat(ExternalDataSearchType.ENDS.constructFullTextTerms(listOf("ew", "york")), equalTo(listOf("york")))
+    }
+
+    @Test
+    fun `no terms are returned when there are no tokens`() {
+        ExternalDataSearchType.values().forEach {
+            assertThat(it.constructFullTextTerms(emptyList()), nullValue())
+            assertThat(it.constructFullTextTerms(null), nullValue())
+        }
+    }
+
+    @Test
+    fun `getMatchExpression() restricts each term to the column`() {
+        assertThat(ExternalDataFullTextSearch.getMatchExpression("c_name", listOf("york", "ci*")), equalTo("c_name:york c_name:ci*"))
+    }
+}
@@ -0,0 +1,148 @@
+package org.odk.collect.android.fastexternalitemset
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.nullValue
+import org.hamcrest.Matchers.sameInstance
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.odk.collect.android.storage.StoragePathProvider
+import org.odk.collect.android.storage.StorageSubdirectory
+import org.odk.collect.android.support.CollectHelpers
+import java.io.File
+
+@RunWith(AndroidJUnit4::class)
+class ItemsetDbAdapterTest {
+
+    private lateinit var csvPath: String
+    private lateinit var pathHash: String
+
+    @Before
+    fun setup() {
+        CollectHelpers.setupDemoProject()
+
+        val formsDir = StoragePathProvider().getOdkDirPath(StorageSubdirectory.FORMS)
+        csvPath = File(formsDir, "form-media/itemsets.csv").absolutePath
+        pathHash = ItemsetDbAdapter.getMd5FromString(csvPath)
+    }
+
+    @After
+    fun teardown() {
+        ItemsetDbAdapter.closeAll()
+    }
+
+    @Test
+    fun `adapters share a connection that stays open after they are closed`() {
+        val adapter1 = ItemsetDbAdapter().open()
+        val adapter2 = ItemsetDbAdapter().open()
+        val db = adapter1.database
+
+        assertThat(adapter2.database, sameInstance(db))
+
+        adapter1.close()
+        adapter2.close()
+        assertThat(db.isOpen, equalTo(true))
+
+        ItemsetDbAdapter.closeAll()
+        assertThat(db.isOpen, equalTo(false))
+    }
+
+    @Test
+    fun `closeAll closes connection when last user releases it`() {
+        val adapter1 = ItemsetDbAdapter().open()
+        val adapter2 = ItemsetDbAdapter().open()
+        val db = adapter1.database
+
+        ItemsetDbAdapter.closeAll()
+        assertThat(db.isOpen, equalTo(true))
+
+        adapter1.close()
+        assertThat(db.isOpen, equalTo(true))
+
+        adapter2.close()
+        assertThat(db.isOpen, equalTo(false))
+    }
+
+    @Test
+    fun `adapters opened after closeAll get a new connection`() {
+        val adapter = ItemsetDbAdapter().open()
+        val db = adapter.database
+        adapter.close()
+
+        ItemsetDbAdapter.closeAll()
+
+        ItemsetDbAdapter().open().use {
+            assertThat(it.database.isOpen, equalTo(true))
+            assertThat(it.database === db, equalTo(false))
+        }
+    }
+
+    @Test
+    fun `createTable clears cached items`() {
+        ItemsetDbAdapter().open().use {
+            ItemsetDbAdapter.cacheItems("key", listOf(arrayOf("a")))
+
+            it.createTable("hash", pathHash, arrayOf("name", "label"), csvPath)
+            assertThat(ItemsetDbAdapter.getCachedItems("key"), nullValue())
+        }
+    }
+
+    @Test
+    fun `dropTable clears cached items`() {
+        ItemsetDbAdapter().open().use {
+            it.createTable("hash", pathHash, arrayOf("name", "label"), csvPath)
+            ItemsetDbAdapter.cacheItems("key", listOf(arrayOf("a")))
+
+            it.dropTable(pathHash, csvPath)
+            assertThat(ItemsetDbAdapter.getCachedItems("key"), nullValue())
+        }
+    }
+
+    @Test
+    fun `delete clears cached items`() {
+        ItemsetDbAdapter().open().use {
+            it.createTable("hash", pathHash, arrayOf("name", "label"), csvPath)
+            ItemsetDbAdapter.cacheItems("key", listOf(arrayOf("a")))
+
+            it.delete(csvPath)
+            assertThat(ItemsetDbAdapter.getCachedItems("key"), nullValue())
+        }
+    }
+
+    @Test
+    fun `getItemLabel returns label from reimported itemset`() {
+        ItemsetDbAdapter().open().use {
+            createItemset(it, "hash1", "Old label")
+            assertThat(it.getItemLabel(pathHash, "item", "English"), equalTo("Old label"))
+
+            it.dropTable(pathHash, csvPath)
+            createItemset(it, "hash2", "New label")
+            assertThat(it.getItemLabel(pathHash, "item", "English"), equalTo("New label"))
+        }
+    }
+
+    @Test
+    fun `getItemLabel uses label for language when there is one`() {
+        ItemsetDbAdapter().open().use {
+            val columns = arrayOf("name", "label", "label::French")
+            it.createTable("hash", pathHash, columns, csvPath)
+            it.compileInsertStatement(pathHash, columns).use { statement ->
+                it.addRow(statement, columns, arrayOf("item", "Label", "Étiquette"))
+            }
+
+            assertThat(it.getItemLabel(pathHash, "item", "French"), equalTo("Étiquette"))
+            assertThat(it.getItemLabel(pathHash, "item", "English"), equalTo("Label"))
+        }
+    }
+
+    private fun createItemset(adapter: ItemsetDbAdapter, hash: String, label: String) {
+        val columns = arrayOf("name", "label")
+        adapter.createTable(hash, pathHash, columns, csvPath)
+        adapter.compileInsertStatement(pathHash, columns).use { statement ->
+            adapter.addRow(statement, columns, arrayOf("item", label))
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.odk.collect.android.fastexternalitemset
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.contains
+import org.hamcrest.Matchers.containsString
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.notNullValue
+import org.hamcrest.Matchers.nullValue
+import org.javarosa.core.model.FormDef
+import org.javarosa.core.model.GroupDef
+import org.javarosa.core.model.QuestionDef
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.odk.collect.android.storage.StoragePathProvider
+import org.odk.collect.android.storage.StorageSubdirectory
+import org.odk.collect.android.support.CollectHelpers
+import java.io.File
+
+@RunWith(AndroidJUnit4::class)
+class ItemsetsCsvImporterTest {
+
+    private lateinit var mediaDir: File
+
+    @Before
+    fun setup() {
+        CollectHelpers.setupDemoProject()
+
+        val formsDir = StoragePathProvider().getOdkDirPath(StorageSubdirectory.FORMS)
+        mediaDir = File(formsDir, "form-media").also { it.mkdirs() }
+    }
+
+    @After
+    fun teardown() {
+        ItemsetDbAdapter.closeAll()
+    }
+
+    @Test
+    fun `getQueriedColumns() returns the columns compared in each itemset question's query`() {
+        val formDef = FormDef().also {
+            it.addChild(question("instance('cities')/root/item[state=/data/state and county=/data/county]"))
+            it.addChild(
+                GroupDef().also { group ->
+                    group.addChild(question("instance('counties')/root/item[state=/data/state]"))
+                }
+            )
+            it.addChild(QuestionDef())
+        }
+
+        assertThat(
+            ItemsetsCsvImporter.getQueriedColumns(formDef),
+            contains(listOf("list_name", "state", "county"), listOf("list_name", "state"))
+        )
+    }
+
+    @Test
+    fun `getQueriedColumns() only returns list_name for queries using or`() {
+        val formDef = FormDef().also {
+            it.addChild(question("instance('cities')/root/item[state=/data/state or county=/data/county]"))
+        }
+
+        assertThat(ItemsetsCsvImporter.getQueriedColumns(formDef), contains(listOf("list_name")))
+    }
+
+    @Test
+    fun `importIfChanged() imports rows that can be queried using an index on the queried columns`() {
+        File(mediaDir, ItemsetsCsvImporter.ITEMSETS_CSV).writeText(
+            "list_name,name,label,state\n" +
+                "cities,nyc,New York City,ny\n" +
+                "cities,albany,Albany,ny\n" +
+                "cities,sf,San Francisco,ca\n"
+        )
+        val formDef = FormDef().also {
+            it.addChild(question("instance('cities')/root/item[state=/data/state]"))
+        }
+
+        val warning = ItemsetsCsvImporter.importIfChanged(mediaDir, formDef)
+        assertThat(warning, nullValue())
+
+        ItemsetDbAdapter().open().use { ida ->
+            val selection = "list_name=? and state=?"
+            val selectionArgs = arrayOf("cities", "ny")
+
+            val names = ida.query(pathHash(), selection, selectionArgs).use { cursor ->
+                generateSequence { if (cursor.moveToNext()) cursor.getString(cursor.getColumnIndex("name")) else null }.toList()
+            }
+            assertThat(names, contains("nyc", "albany"))
+
+            val plan = ida.database.rawQuery(
+                "EXPLAIN QUERY PLAN SELECT * FROM itemset_${pathHash()} WHERE $selection",
+                selectionArgs
+            ).use { cursor ->
+                generateSequence { if (cursor.moveToNext()) cursor.getString(cursor.columnCount - 1) else null }.joinToString()
+            }
+            assertThat(plan, containsString("USING INDEX"))
+        }
+    }
+
+    @Test
+    fun `importIfChanged() does not leave a partial itemset behind when the CSV can't be read`() {
+        File(mediaDir, ItemsetsCsvImporter.ITEMSETS_CSV).writeText(
+            "list_name,name,label\n" +
+                "cities,nyc,New York City\n" +
+                "cities,albany,\"Albany\n"
+        )
+
+        val warning = ItemsetsCsvImporter.importIfChanged(mediaDir, FormDef())
+        assertThat(warning, notNullValue())
+
+        ItemsetDbAdapter().open().use { ida ->
+            ida.getItemsets(File(mediaDir, ItemsetsCsvImporter.ITEMSETS_CSV).absolutePath).use {
+                assertThat(it.count, equalTo(0))
+            }
+
+            val tables = ida.database.rawQuery(
+                "SELECT name FROM sqlite_master WHERE type = 'table' AND name = ?",
+                arrayOf("itemset_${pathHash()}")
+            ).use { it.count }
+            assertThat(tables, equalTo(0))
+        }
+    }
+
+    private fun pathHash(): String {
+        return ItemsetDbAdapter.getMd5FromString(File(mediaDir, ItemsetsCsvImporter.ITEMSETS_CSV).absolutePath)
+    }
+
+    private fun question(query: String): QuestionDef {
+        return QuestionDef().also {
+            it.setAdditionalAttribute(null, "query", query)
+        }
+    }
+}
@@ -204,6 +204,29 @@ public class AuditEventLoggerTest {
         assertEquals("Blah", testWriter.auditEvents.get(0).getChangeReason());
     }
 
+    @Test
+    public void logEvent_writingImmediately_passesEveryEventToWriter() {
+        AuditEventLogger auditEventLogger = new AuditEventLogger(testAuditConfig, testWriter, formController);
+
+        auditEventLogger.logEvent(FORM_START, true, 0);
+        auditEventLogger.logEvent(FORM_SAVE, true, 0);
+        auditEventLogger.logEvent(FORM_FINALIZE, true, 0);
+
+        assertEquals(3, testWriter.auditEvents.size());
+        assertEquals(0, testWriter.flushCount);
+    }
+
+    @Test
+    public void flush_flushesWriter() {
+        AuditEventLogger auditEventLogger = new AuditEventLogger(testAuditConfig, testWriter, formController);
+
+        auditEventLogger.logEvent(END_OF_FORM, false, 0);
+        auditEventLogger.flush();
+
+        assertEquals(1, testWriter.auditEvents.size());
+        assertEquals(1, testWriter.flushCount);
+    }
+
     @Test
     public void testEventTypes() {
         AuditEventLogger auditEventLogger = new AuditEventLogger(testAuditConfig, testWriter, formController);
@@ -239,6 +262,7 @@ public class AuditEventLoggerTest {
     private static class TestWriter implements AuditEventLogger.AuditEventWriter {
 
         List<AuditEvent> auditEvents = new ArrayList<>();
+        int flushCount;
 
         @Override
         public void writeEvents(List<AuditEvent> auditEvents) {
@@ -246,8 +270,13 @@ public class AuditEventLoggerTest {
         }
 
         @Override
-        public boolean isWriting() {
-            return false;
+        public void flush() {
+            flushCount++;
+        }
+
+        @Override
+        public void waitForWrites() {
+
         }
     }
 }
@@ -34,7 +34,7 @@ class BlankFormListItemTest {
                 .build()
         )
 
-        val blankFormListItem = form.toBlankFormListItem(Project.DEMO_PROJECT_ID, instancesRepository)
+        val blankFormListItem = form.toBlankFormListItem(Project.DEMO_PROJECT_ID, instancesRepository.lastStatusChangeDates)
 
         assertThat(blankFormListItem.databaseId, `is`(form.dbId))
         assertThat(blankFormListItem.formId, `is`(form.formId))
@@ -55,7 +55,7 @@ class BlankFormListItemTest {
             .date(1665742651521)
             .build()
 
-        val blankFormListItem = form.toBlankFormListItem(Project.DEMO_PROJECT_ID, instancesRepository)
+        val blankFormListItem = form.toBlankFormListItem(Project.DEMO_PROJECT_ID, instancesRepository.lastStatusChangeDates)
 
         assertThat(blankFormListItem.dateOfLastUsage, `is`(0L))
     }
@@ -69,7 +69,7 @@ class BlankFormListItemTest {
             .date(1665742651521)
             .build()
 
-        val blankFormListItem = form.toBlankFormListItem(Project.DEMO_PROJECT_ID, instancesRepository)
+        val blankFormListItem = form.toBlankFormListItem(Project.DEMO_PROJECT_ID, instancesRepository.lastStatusChangeDates)
 
         assertThat(blankFormListItem.formVersion, `is`(""))
     }
@@ -83,7 +83,7 @@ class BlankFormListItemTest {
             .date(1665742651521)
             .build()
 
-        val blankFormListItem = form.toBlankFormListItem(Project.DEMO_PROJECT_ID, instancesRepository)
+        val blankFormListItem = form.toBlankFormListItem(Project.DEMO_PROJECT_ID, instancesRepository.lastStatusChangeDates)
 
         assertThat(blankFormListItem.geometryPath, `is`(""))
     }
@@ -130,7 +130,7 @@ class BlankFormListItemTest {
                 .build()
         )
 
-        val blankFormListItem = formV2.toBlankFormListItem(Project.DEMO_PROJECT_ID, instancesRepository)
+        val blankFormListItem = formV2.toBlankFormListItem(Project.DEMO_PROJECT_ID, instancesRepository.lastStatusChangeDates)
 
         assertThat(blankFormListItem.dateOfLastUsage, `is`(4L))
     }
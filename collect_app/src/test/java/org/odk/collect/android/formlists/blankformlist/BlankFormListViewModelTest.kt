@@ -459,7 +459,7 @@ class BlankFormListViewModelTest {
         assertThat(
             blankFormListItem,
             `is`(
-                form.toBlankFormListItem(projectId, instancesRepository)
+                form.toBlankFormListItem(projectId, instancesRepository.lastStatusChangeDates)
             )
         )
     }
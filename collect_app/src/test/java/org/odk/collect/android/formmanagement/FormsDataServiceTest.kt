@@ -10,6 +10,7 @@ import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
+import org.mockito.Mockito.never
 import org.mockito.Mockito.verifyNoInteractions
 import org.mockito.kotlin.any
 import org.mockito.kotlin.doAnswer
@@ -18,6 +19,7 @@ import org.mockito.kotlin.mock
 import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
 import org.odk.collect.analytics.Analytics
+import org.odk.collect.android.backgroundwork.FormUpdateScheduler
 import org.odk.collect.android.injection.DaggerUtils
 import org.odk.collect.android.notifications.Notifier
 import org.odk.collect.android.projects.ProjectDependencyProvider
@@ -50,6 +52,7 @@ class FormsDataServiceTest {
     private val settingsProvider = component.settingsProvider()
     private val notifier = mock<Notifier>()
     private val analytics = mock<Analytics>()
+    private val formUpdateScheduler = mock<FormUpdateScheduler>()
 
     private val changeLockProvider = mock<ChangeLockProvider> {
         on { getFormLock(any()) } doReturn BooleanChangeLock()
@@ -85,7 +88,8 @@ class FormsDataServiceTest {
         formsDataService = FormsDataService(
             appState = AppState(),
             notifier = notifier,
-            projectDependencyProviderFactory = projectDependencyProviderFactory
+            projectDependencyProviderFactory = projectDependencyProviderFactory,
+            formUpdateScheduler = formUpdateScheduler
         ) { 0 }
     }
 
@@ -109,6 +113,7 @@ class FormsDataServiceTest {
             formsRepositoryProvider.get(project.uuid).getAllByFormIdAndVersion("formId", "2").size,
             equalTo(1)
         )
+        verify(formUpdateScheduler).schedulePreWarm(project.uuid)
     }
 
     @Test
@@ -215,6 +220,19 @@ class FormsDataServiceTest {
         verifyNoInteractions(notifier)
     }
 
+    @Test
+    fun `matchFormsWithServer() schedules pre-warming forms`() {
+        formsDataService.matchFormsWithServer(project.uuid)
+        verify(formUpdateScheduler).schedulePreWarm(project.uuid)
+    }
+
+    @Test
+    fun `matchFormsWithServer() does not schedule pre-warming forms when there is an error communicating with the server`() {
+        whenever(formSource.fetchFormList()).thenThrow(FormSourceException.FetchError())
+        formsDataService.matchFormsWithServer(project.uuid)
+        verify(formUpdateScheduler, never()).schedulePreWarm(project.uuid)
+    }
+
     @Test
     fun `clear() clears error state`() {
         val error = FormSourceException.FetchError()
@@ -1,6 +1,10 @@
 package org.odk.collect.android.formmanagement;
 
+import org.javarosa.core.model.FormDef;
+import org.javarosa.core.reference.ReferenceFactory;
+import org.javarosa.core.reference.ReferenceManager;
 import org.junit.Test;
+import org.odk.collect.android.formentry.FormDefCache;
 import org.odk.collect.forms.Form;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.formstest.FormUtils;
@@ -8,11 +12,18 @@ import org.odk.collect.formstest.InMemFormsRepository;
 import org.odk.collect.formstest.InMemInstancesRepository;
 import org.odk.collect.shared.TempFiles;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.odk.collect.formstest.InstanceUtils.buildInstance;
+import static java.util.Collections.singletonList;
 
 public class LocalFormUseCasesTest {
 
@@ -127,4 +138,79 @@ public class LocalFormUseCasesTest {
         assertThat(forms.size(), is(1));
         assertThat(forms.get(0).getDbId(), is(2L));
     }
+
+    @Test
+    public void preWarmForm_parsesFormAndWritesItToCache() {
+        Form form = FormUtils.buildForm("id", "version", TempFiles.createTempDir().getAbsolutePath()).build();
+        RecordingFormDefCache formDefCache = new RecordingFormDefCache();
+
+        assertThat(LocalFormUseCases.preWarmForm(form, formDefCache), is(true));
+        assertThat(formDefCache.writes, is(singletonList(form.getFormFilePath())));
+        assertThat(formDefCache.cache.get(form.getFormFilePath()).getTitle(), is("Test Form"));
+    }
+
+    @Test
+    public void preWarmForm_doesNotChangeReferenceManager() {
+        Form form = FormUtils.buildForm("id", "version", TempFiles.createTempDir().getAbsolutePath()).build();
+        ReferenceFactory[] factoriesBefore = ReferenceManager.instance().getFactories();
+
+        LocalFormUseCases.preWarmForm(form, new RecordingFormDefCache());
+        assertThat(ReferenceManager.instance().getFactories(), is(factoriesBefore));
+    }
+
+    @Test
+    public void preWarmForm_whenFormIsAlreadyCached_doesNotParseItAgain() {
+        Form form = FormUtils.buildForm("id", "version", TempFiles.createTempDir().getAbsolutePath()).build();
+        RecordingFormDefCache formDefCache = new RecordingFormDefCache();
+        formDefCache.cache.put(form.getFormFilePath(), new FormDef());
+
+        assertThat(LocalFormUseCases.preWarmForm(form, formDefCache), is(true));
+        assertThat(formDefCache.writes, is(empty()));
+        assertThat(formDefCache.reads, is(empty()));
+    }
+
+    @Test
+    public void preWarmForm_whenFormHasExternalSecondaryInstance_skipsIt() {
+        String xform = FormUtils.createXFormBody("id", "version")
+                .replace("<bind ", "<instance id=\"cities\" src=\"jr://file-csv/cities.csv\"/>\n<bind ");
+        Form form = FormUtils.buildForm("id", "version", TempFiles.createTempDir().getAbsolutePath(), xform).build();
+        RecordingFormDefCache formDefCache = new RecordingFormDefCache();
+
+        assertThat(LocalFormUseCases.preWarmForm(form, formDefCache), is(false));
+        assertThat(formDefCache.writes, is(empty()));
+    }
+
+    @Test
+    public void preWarmForm_whenFormFileDoesNotExist_returnsFalse() {
+        Form form = FormUtils.buildForm("id", "version", TempFiles.createTempDir().getAbsolutePath()).build();
+        new File(form.getFormFilePath()).delete();
+        RecordingFormDefCache formDefCache = new RecordingFormDefCache();
+
+        assertThat(LocalFormUseCases.preWarmForm(form, formDefCache), is(false));
+        assertThat(formDefCache.cache.get(form.getFormFilePath()), is(nullValue()));
+    }
+
+    private static class RecordingFormDefCache implements FormDefCache {
+
+        final Map<String, FormDef> cache = new HashMap<>();
+        final List<String> writes = new ArrayList<>();
+        final List<String> reads = new ArrayList<>();
+
+        @Override
+        public void writeCache(FormDef formDef, String formPath) {
+            writes.add(formPath);
+            cache.put(formPath, formDef);
+        }
+
+        @Override
+        public FormDef readCache(File formXml) {
+            reads.add(formXml.getPath());
+            return cache.get(formXml.getPath());
+        }
+
+        @Override
+        public boolean isCached(File formXml) {
+            return cache.containsKey(formXml.getPath());
+        }
+    }
 }
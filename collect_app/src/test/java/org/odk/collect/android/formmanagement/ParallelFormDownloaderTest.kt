@@ -0,0 +1,70 @@
+package org.odk.collect.android.formmanagement
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.instanceOf
+import org.hamcrest.Matchers.lessThanOrEqualTo
+import org.junit.Assert.assertThrows
+import org.junit.Test
+import org.odk.collect.forms.FormSourceException
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Supplier
+
+class ParallelFormDownloaderTest {
+
+    private val serverForms = (1..6).map {
+        ServerFormDetails("form-$it", "http://example.com/form-$it", "form-$it", "1", "hash-$it", true, false, null)
+    }
+
+    @Test
+    fun `returns result for each form`() {
+        val formDownloader = object : FormDownloader {
+            override fun downloadForm(form: ServerFormDetails?, progressReporter: FormDownloader.ProgressReporter?, isCancelled: Supplier<Boolean?>?) {
+                if (form?.formId == "form-2") {
+                    throw FormDownloadException.FormSourceError(FormSourceException.FetchError())
+                }
+            }
+        }
+
+        val result = ParallelFormDownloader(formDownloader, 3).downloadForms(serverForms)
+
+        assertThat(result.interrupted, equalTo(false))
+        assertThat(result.results.size, equalTo(serverForms.size))
+        assertThat(result.results[serverForms[1]], instanceOf(FormDownloadException.FormSourceError::class.java))
+        assertThat(result.results[serverForms[0]], equalTo(null))
+    }
+
+    @Test
+    fun `does not download more forms at once than parallelism`() {
+        val inFlight = AtomicInteger(0)
+        val maxInFlight = AtomicInteger(0)
+        val formDownloader = object : FormDownloader {
+            override fun downloadForm(form: ServerFormDetails?, progressReporter: FormDownloader.ProgressReporter?, isCancelled: Supplier<Boolean?>?) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet()) { a, b -> maxOf(a, b) }
+                Thread.sleep(20)
+                inFlight.decrementAndGet()
+            }
+        }
+
+        ParallelFormDownloader(formDownloader, 2).downloadForms(serverForms)
+
+        assertThat(maxInFlight.get(), lessThanOrEqualTo(2))
+    }
+
+    @Test
+    fun `rethrows unexpected exceptions on the calling thread`() {
+        val formDownloader = object : FormDownloader {
+            override fun downloadForm(form: ServerFormDetails?, progressReporter: FormDownloader.ProgressReporter?, isCancelled: Supplier<Boolean?>?) {
+                if (form?.formId == "form-2") {
+                    throw IllegalStateException("Unexpected")
+                }
+            }
+        }
+
+        val exception = assertThrows(IllegalStateException::class.java) {
+            ParallelFormDownloader(formDownloader, 3).downloadForms(serverForms)
+        }
+
+        assertThat(exception.message, equalTo("Unexpected"))
+    }
+}
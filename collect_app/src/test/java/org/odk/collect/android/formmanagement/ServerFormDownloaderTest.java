@@ -4,7 +4,9 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -21,8 +23,10 @@ import static java.util.stream.Collectors.toList;
 
 import com.google.common.io.Files;
 
+import org.apache.commons.io.FileUtils;
 import org.javarosa.xform.parse.XFormParser;
 import org.junit.Test;
+import org.odk.collect.android.utilities.FileHashIndex;
 import org.odk.collect.forms.Form;
 import org.odk.collect.forms.FormListItem;
 import org.odk.collect.forms.FormSource;
@@ -37,6 +41,7 @@ import org.odk.collect.shared.strings.Md5;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -244,6 +249,38 @@ public class ServerFormDownloaderTest {
         assertThat(new String(read(mediaFile2)), is("contents2"));
     }
 
+    @Test
+    public void whenFormHasMediaFiles_removesStaleEntriesFromMediaFileIndex() throws Exception {
+        File deletedMediaFile = File.createTempFile("deleted", ".csv");
+        FileUtils.writeStringToFile(deletedMediaFile, "deleted contents", Charset.defaultCharset());
+        FileHashIndex mediaFileIndex = ServerFormDownloaderUseCases.getMediaFileIndex(cacheDir);
+        String deletedHash = mediaFileIndex.getHash(deletedMediaFile);
+        deletedMediaFile.delete();
+
+        String xform = createXFormBody("id", "version");
+        ServerFormDetails serverFormDetails = new ServerFormDetails(
+                "Form",
+                "http://downloadUrl",
+                "id",
+                "version",
+                Md5.getMd5Hash(new ByteArrayInputStream(xform.getBytes())),
+                true,
+                false,
+                new ManifestFile("", asList(
+                        new MediaFile("file1", "hash-1", "http://file1")
+                )));
+
+        FormSource formSource = mock(FormSource.class);
+        when(formSource.fetchForm("http://downloadUrl")).thenReturn(new ByteArrayInputStream(xform.getBytes()));
+        when(formSource.fetchMediaFile("http://file1")).thenReturn(new ByteArrayInputStream("contents1".getBytes()));
+
+        ServerFormDownloader downloader = new ServerFormDownloader(formSource, formsRepository, cacheDir, formsDir.getAbsolutePath(), new FormMetadataParser(), clock);
+        downloader.downloadForm(serverFormDetails, null, null);
+
+        assertThat(mediaFileIndex.getHashes(), not(hasItem(deletedHash)));
+        assertThat(mediaFileIndex.getHashes(), hasItem(Md5.getMd5Hash(new ByteArrayInputStream("contents1".getBytes()))));
+    }
+
     @Test
     public void whenFormHasMediaFiles_andIsFormToDownloadIsUpdate_doesNotRedownloadMediaFiles() throws Exception {
         String xform = createXFormBody("id", "version");
@@ -3,11 +3,15 @@ package org.odk.collect.android.formmanagement
 import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.Matchers.contains
 import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.lessThanOrEqualTo
 import org.hamcrest.Matchers.nullValue
 import org.junit.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.doAnswer
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.whenever
+import org.odk.collect.android.utilities.FileHashIndex
 import org.odk.collect.forms.Form
 import org.odk.collect.forms.FormListItem
 import org.odk.collect.forms.FormSource
@@ -22,6 +26,7 @@ import java.io.BufferedWriter
 import java.io.ByteArrayInputStream
 import java.io.File
 import java.io.FileWriter
+import java.util.concurrent.atomic.AtomicInteger
 
 class ServerFormsDetailsFetcherTest {
 
@@ -314,6 +319,56 @@ class ServerFormsDetailsFetcherTest {
         assertThat(form.isNotOnDevice, `is`(false))
     }
 
+    @Test
+    fun whenAFormExists_andHasUpdatedZipMediaFileOnServer_isUpdated() {
+        val zipMediaFile = MediaFile("media.zip", "new-zip-hash", "http://example.com/media.zip")
+        whenever(formSource.fetchManifest(MANIFEST_URL)).thenReturn(ManifestFile("manifest-hash", listOf(zipMediaFile)))
+        whenever(formSource.fetchFormList()).thenReturn(listOf(FORM_WITH_MANIFEST))
+
+        val mediaDir = TempFiles.createTempDir()
+        formsRepository.save(
+            Form.Builder()
+                .formId("form-2")
+                .version("2")
+                .md5Hash("form-2-hash")
+                .formFilePath(FormUtils.createXFormFile("form-2", "2").absolutePath)
+                .formMediaPath(mediaDir.absolutePath)
+                .build()
+        )
+
+        val mediaFileIndex = FileHashIndex(File(TempFiles.createTempDir(), "media.index"))
+        mediaFileIndex.putArchiveHash(File(mediaDir, "media.zip"), "old-zip-hash")
+
+        val serverFormDetails = ServerFormsDetailsFetcher(formsRepository, formSource, mediaFileIndex).fetchFormDetails()
+        assertThat(getFormFromList(serverFormDetails, "form-2").isUpdated, `is`(true))
+    }
+
+    @Test
+    fun whenManyFormsHaveManifests_fetchesManifestsConcurrentlyUpToLimit() {
+        val inFlight = AtomicInteger(0)
+        val maxInFlight = AtomicInteger(0)
+        val formSource = mock<FormSource> {
+            on { fetchManifest(any()) } doAnswer {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet()) { a, b -> maxOf(a, b) }
+                Thread.sleep(20)
+                inFlight.decrementAndGet()
+                ManifestFile(it.getArgument(0), emptyList())
+            }
+        }
+
+        val formList = (1..6).map {
+            FORM_WITH_MANIFEST.copy(formID = "form-$it", manifestURL = "http://example.com/form-$it-manifest")
+        }
+        whenever(formSource.fetchFormList()).thenReturn(formList)
+
+        val serverFormDetails = ServerFormsDetailsFetcher(formsRepository, formSource, null, 2).fetchFormDetails()
+        assertThat(maxInFlight.get(), lessThanOrEqualTo(2))
+        formList.forEachIndexed { index, listItem ->
+            assertThat(serverFormDetails[index].formId, `is`(listItem.formID))
+            assertThat(serverFormDetails[index].manifest!!.hash, `is`(listItem.manifestURL))
+        }
+    }
+
     private fun writeToFile(mediaFile: File, blah: String) {
         val bw = BufferedWriter(FileWriter(mediaFile))
         bw.write(blah)
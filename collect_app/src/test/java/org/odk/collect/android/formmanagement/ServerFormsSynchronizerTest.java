@@ -11,6 +11,7 @@ import org.odk.collect.formstest.InMemFormsRepository;
 import org.odk.collect.formstest.InMemInstancesRepository;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -115,7 +116,7 @@ public class ServerFormsSynchronizerTest {
 
     private static class RecordingFormDownloader implements FormDownloader {
 
-        private final List<String> formsDownloaded = new ArrayList<>();
+        private final List<String> formsDownloaded = Collections.synchronizedList(new ArrayList<>());
 
         @Override
         public void downloadForm(ServerFormDetails form, ProgressReporter progressReporter, Supplier<Boolean> isCancelled) {
@@ -0,0 +1,160 @@
+package org.odk.collect.android.instancemanagement
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.contains
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.lessThanOrEqualTo
+import org.hamcrest.Matchers.nullValue
+import org.hamcrest.Matchers.sameInstance
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.kotlin.mock
+import org.odk.collect.android.support.CollectHelpers
+import org.odk.collect.android.upload.FormUploadAuthRequestedException
+import org.odk.collect.android.upload.FormUploadException
+import org.odk.collect.android.upload.InstanceUploader
+import org.odk.collect.forms.instances.Instance
+import org.odk.collect.formstest.InMemFormsRepository
+import org.odk.collect.formstest.InstanceUtils.buildInstance
+import org.odk.collect.shared.TempFiles.createTempDir
+import org.odk.collect.shared.settings.InMemSettings
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+@RunWith(AndroidJUnit4::class)
+class InstanceSubmitterTest {
+
+    private val instances = (1L..6L).map {
+        buildInstance("1", "1", "instance $it", Instance.STATUS_COMPLETE, null, createTempDir().absolutePath)
+            .dbId(it)
+            .build()
+    }
+
+    private val sleeps = mutableListOf<Long>()
+
+    @Before
+    fun setup() {
+        CollectHelpers.setupDemoProject()
+    }
+
+    @Test
+    fun `returns result for each instance in order`() {
+        val uploader = FakeUploader { instance, _ ->
+            if (instance.dbId == 2L) {
+                throw FormUploadException("Rejected")
+            }
+        }
+
+        val result = createSubmitter(uploader).submitInstances(instances)
+
+        assertThat(result.keys.toList(), equalTo(instances))
+        assertThat(result[instances[1]]!!.message, equalTo("Rejected"))
+        assertThat(result.filterKeys { it != instances[1] }.values.all { it == null }, equalTo(true))
+    }
+
+    @Test
+    fun `does not upload more instances at once than parallelism`() {
+        val inFlight = AtomicInteger(0)
+        val maxInFlight = AtomicInteger(0)
+        val uploader = FakeUploader { _, _ ->
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet()) { a, b -> maxOf(a, b) }
+            Thread.sleep(20)
+            inFlight.decrementAndGet()
+        }
+
+        createSubmitter(uploader, parallelism = 2).submitInstances(instances)
+
+        assertThat(maxInFlight.get(), lessThanOrEqualTo(2))
+        assertThat(uploader.attempts.values.map { it.get() }, equalTo(List(instances.size) { 1 }))
+    }
+
+    @Test
+    fun `retries retryable failures with exponential backoff`() {
+        val uploader = FakeUploader { _, attempt ->
+            if (attempt < 3) {
+                throw FormUploadException("Server error", true)
+            }
+        }
+
+        val result = createSubmitter(uploader).submitInstances(instances.take(1))
+
+        assertThat(result[instances[0]], nullValue())
+        assertThat(uploader.attempts[instances[0].dbId]!!.get(), equalTo(3))
+        assertThat(sleeps, contains(1000L, 2000L))
+    }
+
+    @Test
+    fun `gives up after max attempts`() {
+        val exception = FormUploadException("Server error", true)
+        val uploader = FakeUploader { _, _ -> throw exception }
+
+        val result = createSubmitter(uploader, maxAttempts = 2).submitInstances(instances.take(1))
+
+        assertThat(result[instances[0]], sameInstance(exception))
+        assertThat(uploader.attempts[instances[0].dbId]!!.get(), equalTo(2))
+        assertThat(sleeps, contains(1000L))
+    }
+
+    @Test
+    fun `does not retry failures that are not retryable`() {
+        val uploader = FakeUploader { _, _ -> throw FormUploadException("Bad request") }
+
+        val result = createSubmitter(uploader).submitInstances(instances.take(1))
+
+        assertThat(result[instances[0]]!!.message, equalTo("Bad request"))
+        assertThat(uploader.attempts[instances[0].dbId]!!.get(), equalTo(1))
+        assertThat(sleeps.isEmpty(), equalTo(true))
+    }
+
+    @Test
+    fun `does not retry when server asks for credentials`() {
+        val uploader = FakeUploader { _, _ ->
+            throw FormUploadAuthRequestedException("Auth", mock())
+        }
+
+        createSubmitter(uploader).submitInstances(instances.take(1))
+
+        assertThat(uploader.attempts[instances[0].dbId]!!.get(), equalTo(1))
+        assertThat(sleeps.isEmpty(), equalTo(true))
+    }
+
+    private fun createSubmitter(
+        uploader: InstanceUploader,
+        parallelism: Int = InstanceSubmitter.DEFAULT_PARALLELISM,
+        maxAttempts: Int = InstanceSubmitter.DEFAULT_MAX_ATTEMPTS
+    ): InstanceSubmitter {
+        return InstanceSubmitter(
+            InMemFormsRepository(),
+            InMemSettings(),
+            mock(),
+            parallelism = parallelism,
+            maxAttempts = maxAttempts,
+            uploaderFactory = { uploader },
+            sleep = { synchronized(sleeps) { sleeps.add(it) } }
+        )
+    }
+
+    private class FakeUploader(
+        private val upload: (Instance, Int) -> Unit
+    ) : InstanceUploader() {
+
+        val attempts = ConcurrentHashMap<Long, AtomicInteger>()
+
+        override fun uploadOneSubmission(instance: Instance, destinationUrl: String): String? {
+            val attempt = attempts.computeIfAbsent(instance.dbId) { AtomicInteger(0) }.incrementAndGet()
+            upload(instance, attempt)
+            return null
+        }
+
+        override fun getUrlToSubmitTo(
+            currentInstance: Instance,
+            deviceId: String?,
+            overrideURL: String?,
+            urlFromSettings: String?
+        ): String {
+            return "http://example.com/submission"
+        }
+    }
+}
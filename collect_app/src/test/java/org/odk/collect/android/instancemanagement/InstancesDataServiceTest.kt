@@ -0,0 +1,117 @@
+package org.odk.collect.android.instancemanagement
+
+import android.app.Application
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.containsString
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.not
+import org.javarosa.core.model.data.IntegerData
+import org.javarosa.core.model.data.StringData
+import org.javarosa.form.api.FormEntryController
+import org.javarosa.form.api.FormEntryModel
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.kotlin.mock
+import org.odk.collect.android.formentry.FormEntryUseCases
+import org.odk.collect.android.injection.DaggerUtils
+import org.odk.collect.android.injection.config.AppDependencyComponent
+import org.odk.collect.android.storage.StorageSubdirectory
+import org.odk.collect.android.support.CollectHelpers
+import org.odk.collect.android.utilities.FileUtils
+import org.odk.collect.androidshared.data.AppState
+import org.odk.collect.forms.Form
+import org.odk.collect.forms.instances.Instance
+import org.odk.collect.formstest.FormFixtures
+import org.odk.collect.shared.TempFiles
+import java.io.File
+
+@RunWith(AndroidJUnit4::class)
+class InstancesDataServiceTest {
+
+    private val application = ApplicationProvider.getApplicationContext<Application>()
+    private lateinit var component: AppDependencyComponent
+    private lateinit var instancesDataService: InstancesDataService
+
+    @Before
+    fun setup() {
+        CollectHelpers.setupDemoProject()
+        component = DaggerUtils.getComponent(application)
+
+        instancesDataService = InstancesDataService(
+            AppState(),
+            component.formsRepositoryProvider(),
+            component.instancesRepositoryProvider(),
+            component.entitiesRepositoryProvider(),
+            component.storagePathProvider(),
+            mock(),
+            component.currentProjectProvider()
+        ) {}
+    }
+
+    @Test
+    fun `finalizeAllDrafts() does not carry answers or validation between drafts of the same form`() {
+        val form = createForm("forms/two-question-constraint-calculate.xml")
+        val alice = createDraft(form, "Alice", 30)
+        val bob = createDraft(form, "Bob", 10)
+        val carol = createDraft(form, "Carol", null)
+
+        val result = instancesDataService.finalizeAllDrafts()
+        assertThat(result.successCount, equalTo(2))
+        assertThat(result.failureCount, equalTo(1))
+
+        val instancesRepository = component.instancesRepositoryProvider().get()
+        assertThat(instancesRepository.get(alice.dbId)!!.status, equalTo(Instance.STATUS_COMPLETE))
+        assertThat(instancesRepository.get(bob.dbId)!!.status, equalTo(Instance.STATUS_INVALID))
+        assertThat(instancesRepository.get(carol.dbId)!!.status, equalTo(Instance.STATUS_COMPLETE))
+
+        val aliceXml = File(alice.instanceFilePath).readText()
+        assertThat(aliceXml, containsString("<name>Alice</name>"))
+        assertThat(aliceXml, containsString("<age>30</age>"))
+        assertThat(aliceXml, containsString("<greeting>Hello Alice</greeting>"))
+
+        val carolXml = File(carol.instanceFilePath).readText()
+        assertThat(carolXml, containsString("<name>Carol</name>"))
+        assertThat(carolXml, not(containsString("<age>")))
+        assertThat(carolXml, containsString("<greeting>Hello Carol</greeting>"))
+    }
+
+    private fun createForm(testForm: String): Form {
+        val formFile = TempFiles.createTempFile(".xml").also {
+            FileUtils.copyFileFromResources(testForm, it.absolutePath)
+        }
+
+        return component.formsRepositoryProvider().get().save(
+            FormFixtures.form(formId = "two_question_constraint_calculate", formFilePath = formFile.absolutePath)
+        )
+    }
+
+    private fun createDraft(form: Form, name: String, age: Int?): Instance {
+        val formDef = FormEntryUseCases.loadFormDef(form, TempFiles.createTempDir(), mock())!!
+        val instancesDir = component.storagePathProvider().getOdkDirPath(StorageSubdirectory.INSTANCES)
+        val instanceFile = File(instancesDir, "$name/$name.xml").also { it.parentFile!!.mkdirs() }
+        val formController = FormEntryUseCases.loadBlankForm(
+            form,
+            FormEntryController(FormEntryModel(formDef)),
+            instanceFile
+        )
+
+        formController.stepToNextScreenEvent()
+        formController.saveAnswer(formController.getFormIndex(), StringData(name))
+        formController.stepToNextScreenEvent()
+        formController.saveAnswer(formController.getFormIndex(), age?.let { IntegerData(it) })
+
+        FileUtils.write(instanceFile, formController.getSubmissionXml()!!.payloadBytes)
+        return component.instancesRepositoryProvider().get().save(
+            Instance.Builder()
+                .displayName(name)
+                .formId(form.formId)
+                .formVersion(form.version)
+                .instanceFilePath(instanceFile.absolutePath)
+                .status(Instance.STATUS_INCOMPLETE)
+                .build()
+        )
+    }
+}
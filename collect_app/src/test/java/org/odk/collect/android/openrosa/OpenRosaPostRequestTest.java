@@ -243,6 +243,51 @@ public abstract class OpenRosaPostRequestTest {
         assertThat(response.getResponseCode(), equalTo(500));
     }
 
+    @Test
+    public void whenUploadFailsAfterSomeAttachmentsAreAcknowledged_retryingOnlySendsRemainingAttachments() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(201));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(201));
+
+        URI uri = mockWebServer.url("/blah").uri();
+        File submissionFile = createTempFile("<node>content</node>");
+        File attachment1 = createTempFile("blah blah blah");
+        File attachment2 = createTempFile("blah2 blah2 blah2");
+
+        HttpPostResult response = subject.uploadSubmissionAndFiles(submissionFile, asList(attachment1, attachment2), uri, null, 0);
+        assertThat(response.getResponseCode(), equalTo(500));
+
+        response = subject.uploadSubmissionAndFiles(submissionFile, asList(attachment1, attachment2), uri, null, 0);
+        assertThat(response.getResponseCode(), equalTo(201));
+        assertThat(mockWebServer.getRequestCount(), equalTo(3));
+
+        mockWebServer.takeRequest();
+        mockWebServer.takeRequest();
+        List<String[]> parts = splitMultiPart(mockWebServer.takeRequest());
+
+        assertThat(parts.size(), equalTo(2));
+        assertThat(parts.get(0)[1], containsString("name=\"xml_submission_file\""));
+        assertThat(parts.get(1)[1], containsString("name=\"" + attachment2.getName() + "\""));
+    }
+
+    @Test
+    public void whenUploadSucceeds_uploadingAgainSendsAllAttachments() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(201));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(201));
+
+        URI uri = mockWebServer.url("/blah").uri();
+        File submissionFile = createTempFile("<node>content</node>");
+        File attachment1 = createTempFile("blah blah blah");
+        File attachment2 = createTempFile("blah2 blah2 blah2");
+
+        subject.uploadSubmissionAndFiles(submissionFile, asList(attachment1, attachment2), uri, null, 1024);
+        subject.uploadSubmissionAndFiles(submissionFile, asList(attachment1, attachment2), uri, null, 1024);
+
+        mockWebServer.takeRequest();
+        List<String[]> parts = splitMultiPart(mockWebServer.takeRequest());
+        assertThat(parts.size(), equalTo(3));
+    }
+
     private File createTempFile(String content) throws Exception {
         return createTempFile(content, ".tmp");
     }
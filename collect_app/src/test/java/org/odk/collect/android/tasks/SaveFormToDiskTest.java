@@ -0,0 +1,42 @@
+package org.odk.collect.android.tasks;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+
+import org.javarosa.core.services.transport.payload.ByteArrayPayload;
+import org.javarosa.core.services.transport.payload.IDataPayload;
+import org.junit.Test;
+import org.odk.collect.shared.TempFiles;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class SaveFormToDiskTest {
+
+    @Test
+    public void writeFile_replacesExistingFileWithoutLeavingTemporaryFiles() throws Exception {
+        File dir = TempFiles.createTempDir();
+        File file = new File(dir, "instance.xml");
+        Files.write(file.toPath(), "old contents that are longer".getBytes(StandardCharsets.UTF_8));
+
+        SaveFormToDisk.writeFile(payload("<data/>"), file.getAbsolutePath());
+
+        assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), equalTo("<data/>"));
+        assertThat(dir.list(), arrayContaining("instance.xml"));
+    }
+
+    @Test
+    public void writeFile_createsMissingParentDirectories() throws Exception {
+        File file = new File(TempFiles.createTempDir(), "instance/instance.xml");
+
+        SaveFormToDisk.writeFile(payload("<data/>"), file.getAbsolutePath());
+
+        assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), equalTo("<data/>"));
+    }
+
+    private static ByteArrayPayload payload(String contents) {
+        return new ByteArrayPayload(contents.getBytes(StandardCharsets.UTF_8), null, IDataPayload.PAYLOAD_TYPE_XML);
+    }
+}
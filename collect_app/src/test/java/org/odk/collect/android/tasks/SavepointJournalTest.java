@@ -0,0 +1,114 @@
+package org.odk.collect.android.tasks;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import org.javarosa.core.model.FormDef;
+import org.javarosa.core.model.data.IntegerData;
+import org.javarosa.core.model.data.StringData;
+import org.javarosa.core.model.instance.InstanceInitializationFactory;
+import org.javarosa.core.model.instance.TreeElement;
+import org.javarosa.xform.util.XFormUtils;
+import org.junit.Test;
+import org.odk.collect.android.utilities.FileUtils;
+import org.odk.collect.shared.TempFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class SavepointJournalTest {
+
+    private final File savepointFile = new File(TempFiles.createTempDir(), "instance.xml.save");
+
+    @Test
+    public void append_returnsFalse_whenSavepointHasNotBeenWritten() throws Exception {
+        SavepointJournal journal = new SavepointJournal(savepointFile);
+        assertThat(journal.append(createFormDef()), equalTo(false));
+    }
+
+    @Test
+    public void replay_appliesAnswersAppendedSinceSavepointWasWritten() throws Exception {
+        FormDef formDef = createFormDef();
+        SavepointJournal journal = new SavepointJournal(savepointFile);
+        writeSavepoint("snapshot");
+        journal.onSavepointWritten(formDef);
+
+        getElement(formDef, "name").setValue(new StringData("Alice\nSmith"));
+        assertThat(journal.append(formDef), equalTo(true));
+        getElement(formDef, "age").setValue(new IntegerData(34));
+        assertThat(journal.append(formDef), equalTo(true));
+
+        FormDef restoredFormDef = createFormDef();
+        assertThat(SavepointJournal.replay(savepointFile, restoredFormDef), equalTo(2));
+        assertThat(getElement(restoredFormDef, "name").getValue().getDisplayText(), equalTo("Alice\nSmith"));
+        assertThat(getElement(restoredFormDef, "age").getValue().getValue(), equalTo(34));
+    }
+
+    @Test
+    public void replay_ignoresJournal_whenSavepointHasBeenRewritten() throws Exception {
+        FormDef formDef = createFormDef();
+        SavepointJournal journal = new SavepointJournal(savepointFile);
+        writeSavepoint("snapshot");
+        journal.onSavepointWritten(formDef);
+
+        getElement(formDef, "name").setValue(new StringData("Alice"));
+        journal.append(formDef);
+
+        writeSavepoint("a newer snapshot");
+        assertThat(SavepointJournal.replay(savepointFile, createFormDef()), equalTo(0));
+    }
+
+    @Test
+    public void remove_deletesJournalAndStopsSharingIt() throws Exception {
+        SavepointJournal journal = SavepointJournal.get(savepointFile);
+        assertThat(SavepointJournal.get(savepointFile), sameInstance(journal));
+        writeSavepoint("snapshot");
+        journal.onSavepointWritten(createFormDef());
+
+        SavepointJournal.remove(savepointFile);
+        assertThat(SavepointJournal.getJournalFile(savepointFile).exists(), equalTo(false));
+        assertThat(SavepointJournal.get(savepointFile), not(sameInstance(journal)));
+
+        SavepointJournal.remove(savepointFile);
+    }
+
+    @Test
+    public void removeForInstance_deletesJournalForInstancesSavepoint() throws Exception {
+        File instanceFile = new File(TempFiles.createTempDir(), "instance.xml");
+        SavepointJournal journal = SavepointJournal.get(savepointFile);
+        writeSavepoint("snapshot");
+        journal.onSavepointWritten(createFormDef());
+
+        File otherSavepointFile = new File(savepointFile.getParentFile(), "other.xml.save");
+        SavepointJournal otherJournal = SavepointJournal.get(otherSavepointFile);
+
+        SavepointJournal.removeForInstance(instanceFile);
+        assertThat(SavepointJournal.getJournalFile(savepointFile).exists(), equalTo(false));
+        assertThat(SavepointJournal.get(savepointFile), not(sameInstance(journal)));
+        assertThat(SavepointJournal.get(otherSavepointFile), sameInstance(otherJournal));
+
+        SavepointJournal.remove(savepointFile);
+        SavepointJournal.remove(otherSavepointFile);
+    }
+
+    private void writeSavepoint(String contents) throws IOException {
+        Files.write(savepointFile.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static TreeElement getElement(FormDef formDef, String name) {
+        return formDef.getMainInstance().getRoot().getChild(name, 0);
+    }
+
+    private static FormDef createFormDef() throws IOException {
+        try (InputStream inputStream = FileUtils.getResourceAsStream("forms/two-question-required.xml")) {
+            FormDef formDef = XFormUtils.getFormFromInputStream(inputStream);
+            formDef.initialize(true, new InstanceInitializationFactory());
+            return formDef;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.odk.collect.android.upload
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.junit.Assert.assertThrows
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.kotlin.any
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import org.odk.collect.android.openrosa.CaseInsensitiveEmptyHeaders
+import org.odk.collect.android.openrosa.CaseInsensitiveHeaders
+import org.odk.collect.android.openrosa.HttpHeadResult
+import org.odk.collect.android.openrosa.HttpPostResult
+import org.odk.collect.android.openrosa.OpenRosaHttpInterface
+import org.odk.collect.android.support.CollectHelpers
+import org.odk.collect.android.utilities.WebCredentialsUtils
+import org.odk.collect.forms.instances.Instance
+import org.odk.collect.shared.TempFiles.createTempDir
+import org.odk.collect.shared.settings.InMemSettings
+import java.io.File
+import java.io.IOException
+import java.net.URI
+
+@RunWith(AndroidJUnit4::class)
+class InstanceServerUploaderTest {
+
+    private val httpInterface = mock<OpenRosaHttpInterface>()
+    private val settings = InMemSettings()
+    private val uploader by lazy {
+        InstanceServerUploader(httpInterface, WebCredentialsUtils(settings), settings)
+    }
+
+    @Before
+    fun setup() {
+        CollectHelpers.setupDemoProject()
+        whenever(httpInterface.executeHeadRequest(any(), any()))
+            .thenReturn(HttpHeadResult(204, CaseInsensitiveEmptyHeaders()))
+        whenever(httpInterface.uploadSubmissionAndFiles(any(), any(), any(), any(), any()))
+            .thenReturn(HttpPostResult("", 201, ""))
+    }
+
+    @Test
+    fun `only makes one HEAD request per submission URL`() {
+        uploader.uploadOneSubmission(createInstance(), SUBMISSION_URL)
+        uploader.uploadOneSubmission(createInstance(), SUBMISSION_URL)
+        uploader.uploadOneSubmission(createInstance(), "https://example.com/other")
+
+        verify(httpInterface, times(1)).executeHeadRequest(eq(URI(SUBMISSION_URL)), any())
+        verify(httpInterface, times(1)).executeHeadRequest(eq(URI("https://example.com/other")), any())
+        verify(httpInterface, times(3)).uploadSubmissionAndFiles(any(), any(), any(), any(), any())
+    }
+
+    @Test
+    fun `posts to redirect from cached HEAD result`() {
+        val headers = mock<CaseInsensitiveHeaders>()
+        whenever(headers.containsHeader("Location")).thenReturn(true)
+        whenever(headers.getAnyValue("Location")).thenReturn("https://example.com/redirected?param=1")
+        whenever(httpInterface.executeHeadRequest(any(), any())).thenReturn(HttpHeadResult(204, headers))
+
+        uploader.uploadOneSubmission(createInstance(), SUBMISSION_URL)
+        uploader.uploadOneSubmission(createInstance(), SUBMISSION_URL)
+
+        verify(httpInterface, times(1)).executeHeadRequest(any(), any())
+        verify(httpInterface, times(2)).uploadSubmissionAndFiles(any(), any(), eq(URI("https://example.com/redirected?param=1")), any(), any())
+    }
+
+    @Test
+    fun `does not cache failed HEAD requests`() {
+        whenever(httpInterface.executeHeadRequest(any(), any()))
+            .thenThrow(IOException("Timeout"))
+            .thenReturn(HttpHeadResult(204, CaseInsensitiveEmptyHeaders()))
+
+        assertThrows(FormUploadException::class.java) {
+            uploader.uploadOneSubmission(createInstance(), SUBMISSION_URL)
+        }
+        uploader.uploadOneSubmission(createInstance(), SUBMISSION_URL)
+
+        verify(httpInterface, times(2)).executeHeadRequest(any(), any())
+    }
+
+    @Test
+    fun `network errors are retryable`() {
+        whenever(httpInterface.uploadSubmissionAndFiles(any(), any(), any(), any(), any()))
+            .thenThrow(IOException("Connection reset"))
+
+        val exception = assertThrows(FormUploadException::class.java) {
+            uploader.uploadOneSubmission(createInstance(), SUBMISSION_URL)
+        }
+
+        assertThat(exception.isRetryable, equalTo(true))
+    }
+
+    @Test
+    fun `server errors are retryable`() {
+        whenever(httpInterface.uploadSubmissionAndFiles(any(), any(), any(), any(), any()))
+            .thenReturn(HttpPostResult("", 503, "Service Unavailable"))
+
+        val exception = assertThrows(FormUploadException::class.java) {
+            uploader.uploadOneSubmission(createInstance(), SUBMISSION_URL)
+        }
+
+        assertThat(exception.isRetryable, equalTo(true))
+    }
+
+    @Test
+    fun `rejected submissions are not retryable`() {
+        whenever(httpInterface.uploadSubmissionAndFiles(any(), any(), any(), any(), any()))
+            .thenReturn(HttpPostResult("", 400, "Bad Request"))
+
+        val exception = assertThrows(FormUploadException::class.java) {
+            uploader.uploadOneSubmission(createInstance(), SUBMISSION_URL)
+        }
+
+        assertThat(exception.isRetryable, equalTo(false))
+    }
+
+    private fun createInstance(): Instance {
+        val instanceFile = File(createTempDir(), "instance.xml")
+        instanceFile.writeText("<data/>")
+
+        return Instance.Builder()
+            .displayName("Instance")
+            .formId("1")
+            .formVersion("1")
+            .instanceFilePath(instanceFile.absolutePath)
+            .status(Instance.STATUS_COMPLETE)
+            .build()
+    }
+
+    companion object {
+        private const val SUBMISSION_URL = "https://example.com/submission"
+    }
+}
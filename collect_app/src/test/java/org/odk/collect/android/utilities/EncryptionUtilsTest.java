@@ -0,0 +1,76 @@
+package org.odk.collect.android.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Test;
+import org.odk.collect.shared.TempFiles;
+import org.odk.collect.shared.strings.Md5;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+public class EncryptionUtilsTest {
+
+    private final byte[] key = new byte[EncryptionUtils.SYMMETRIC_KEY_LENGTH / 8];
+    private final byte[] iv = new byte[EncryptionUtils.IV_BYTE_LENGTH];
+
+    public EncryptionUtilsTest() {
+        SecureRandom random = new SecureRandom();
+        random.nextBytes(key);
+        random.nextBytes(iv);
+    }
+
+    @Test
+    public void encryptFile_writesEncryptedFileThatCanBeDecrypted() throws Exception {
+        File file = createFile(1024 * 1024 + 17);
+
+        EncryptionUtils.encryptFile(file, getCipher(Cipher.ENCRYPT_MODE));
+
+        File encryptedFile = new File(file.getParentFile(), file.getName() + ".enc");
+        byte[] decrypted = getCipher(Cipher.DECRYPT_MODE).doFinal(Files.readAllBytes(encryptedFile.toPath()));
+        assertArrayEquals(Files.readAllBytes(file.toPath()), decrypted);
+    }
+
+    @Test
+    public void encryptFile_returnsMd5HashOfUnencryptedFile() throws Exception {
+        File file = createFile(100 * 1024);
+
+        String md5Hash = EncryptionUtils.encryptFile(file, getCipher(Cipher.ENCRYPT_MODE));
+        assertThat(md5Hash, equalTo(Md5.getMd5Hash(file)));
+    }
+
+    private Cipher getCipher(int mode) throws Exception {
+        Cipher cipher = Cipher.getInstance(EncryptionUtils.SYMMETRIC_ALGORITHM);
+        cipher.init(mode, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        return cipher;
+    }
+
+    private static File createFile(int size) throws IOException {
+        File file = TempFiles.createTempFile(TempFiles.createTempDir(), "attachment", ".bin");
+
+        Random random = new Random(size);
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            int written = 0;
+            while (written < size) {
+                random.nextBytes(buffer);
+                int length = Math.min(buffer.length, size - written);
+                outputStream.write(buffer, 0, length);
+                written += length;
+            }
+        }
+
+        return file;
+    }
+}
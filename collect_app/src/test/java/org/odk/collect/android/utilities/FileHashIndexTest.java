@@ -0,0 +1,119 @@
+package org.odk.collect.android.utilities;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.odk.collect.shared.strings.Md5;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+public class FileHashIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void getHash_returnsMd5OfForm() throws IOException {
+        File indexFile = new File(temporaryFolder.newFolder("cache"), "index");
+        File form = writeForm("form.xml", "<h:html/>");
+
+        String hash = new FileHashIndex(indexFile).getHash(form);
+
+        assertThat(hash, equalTo(Md5.getMd5Hash(form)));
+    }
+
+    @Test
+    public void getHash_isPersistedBetweenInstances() throws IOException {
+        File indexFile = new File(temporaryFolder.newFolder("cache"), "index");
+        File form = writeForm("form.xml", "<h:html/>");
+        String hash = new FileHashIndex(indexFile).getHash(form);
+
+        assertThat(indexFile.exists(), equalTo(true));
+        assertThat(new FileHashIndex(indexFile).getHashes(), contains(hash));
+    }
+
+    @Test
+    public void getHash_whenFormChanges_returnsNewHash() throws IOException {
+        File indexFile = new File(temporaryFolder.newFolder("cache"), "index");
+        File form = writeForm("form.xml", "<h:html/>");
+        FileHashIndex index = new FileHashIndex(indexFile);
+        String oldHash = index.getHash(form);
+
+        writeForm("form.xml", "<h:html><h:head/></h:html>");
+
+        String newHash = index.getHash(form);
+        assertThat(newHash, not(equalTo(oldHash)));
+        assertThat(newHash, equalTo(Md5.getMd5Hash(form)));
+    }
+
+    @Test
+    public void removeStaleEntries_returnsHashesOfDeletedForms() throws IOException {
+        File indexFile = new File(temporaryFolder.newFolder("cache"), "index");
+        File form = writeForm("form.xml", "<h:html/>");
+        FileHashIndex index = new FileHashIndex(indexFile);
+        String hash = index.getHash(form);
+
+        form.delete();
+
+        assertThat(index.removeStaleEntries(), contains(hash));
+        assertThat(index.getHashes(), empty());
+    }
+
+    @Test
+    public void removeStaleEntries_doesNotReturnHashesStillUsedByOtherForms() throws IOException {
+        File indexFile = new File(temporaryFolder.newFolder("cache"), "index");
+        File form = writeForm("form.xml", "<h:html/>");
+        File copy = writeForm("copy.xml", "<h:html/>");
+        FileHashIndex index = new FileHashIndex(indexFile);
+        index.getHash(form);
+        index.getHash(copy);
+
+        form.delete();
+
+        assertThat(index.removeStaleEntries(), empty());
+    }
+
+    @Test
+    public void getHashes_returnsHashOfEachFile() throws IOException {
+        File indexFile = new File(temporaryFolder.newFolder("cache"), "index");
+        File form = writeForm("form.xml", "<h:html/>");
+        File media = writeForm("media.csv", "a,b");
+
+        Map<File, String> hashes = new FileHashIndex(indexFile).getHashes(asList(form, media));
+
+        assertThat(hashes.get(form), equalTo(Md5.getMd5Hash(form)));
+        assertThat(hashes.get(media), equalTo(Md5.getMd5Hash(media)));
+        assertThat(new FileHashIndex(indexFile).getHashes(), containsInAnyOrder(hashes.get(form), hashes.get(media)));
+    }
+
+    @Test
+    public void getArchiveHash_returnsHashAfterArchiveIsDeleted() throws IOException {
+        File indexFile = new File(temporaryFolder.newFolder("cache"), "index");
+        File archive = writeForm("media.zip", "zip");
+        new FileHashIndex(indexFile).putArchiveHash(archive, "archive-hash");
+
+        archive.delete();
+
+        FileHashIndex index = new FileHashIndex(indexFile);
+        assertThat(index.removeStaleEntries(), empty());
+        assertThat(index.getArchiveHash(archive), equalTo("archive-hash"));
+    }
+
+    private File writeForm(String name, String contents) throws IOException {
+        File form = new File(temporaryFolder.getRoot(), name);
+        Files.write(form.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        return form;
+    }
+}
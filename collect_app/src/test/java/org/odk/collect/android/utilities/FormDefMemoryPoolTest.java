@@ -0,0 +1,71 @@
+package org.odk.collect.android.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.junit.Test;
+
+public class FormDefMemoryPoolTest {
+
+    @Test
+    public void get_countsHitsAndMisses() {
+        FormDefMemoryPool pool = new FormDefMemoryPool(100);
+        pool.put("a", new byte[10]);
+
+        pool.get("a");
+        pool.get("a");
+        pool.get("b");
+
+        assertThat(pool.getHitCount(), equalTo(2));
+        assertThat(pool.getMissCount(), equalTo(1));
+    }
+
+    @Test
+    public void put_whenOverMaxSize_evictsLeastRecentlyUsed() {
+        FormDefMemoryPool pool = new FormDefMemoryPool(20);
+        pool.put("a", new byte[10]);
+        pool.put("b", new byte[10]);
+        pool.get("a");
+
+        pool.put("c", new byte[10]);
+
+        assertThat(pool.get("b"), nullValue());
+        assertThat(pool.get("a").length, equalTo(10));
+        assertThat(pool.get("c").length, equalTo(10));
+        assertThat(pool.getSizeBytes(), equalTo(20L));
+    }
+
+    @Test
+    public void put_whenLargerThanMaxSize_doesNotAddEntry() {
+        FormDefMemoryPool pool = new FormDefMemoryPool(20);
+
+        pool.put("a", new byte[21]);
+
+        assertThat(pool.get("a"), nullValue());
+        assertThat(pool.getSizeBytes(), equalTo(0L));
+    }
+
+    @Test
+    public void trimMemory_releasesHalfOfPool() {
+        FormDefMemoryPool pool = new FormDefMemoryPool(100);
+        pool.put("a", new byte[10]);
+        pool.put("b", new byte[10]);
+
+        pool.trimMemory(false);
+
+        assertThat(pool.get("a"), nullValue());
+        assertThat(pool.getSizeBytes(), equalTo(10L));
+    }
+
+    @Test
+    public void trimMemory_whenCritical_releasesWholePool() {
+        FormDefMemoryPool pool = new FormDefMemoryPool(100);
+        pool.put("a", new byte[10]);
+        pool.put("b", new byte[10]);
+
+        pool.trimMemory(true);
+
+        assertThat(pool.getSizeBytes(), equalTo(0L));
+    }
+}
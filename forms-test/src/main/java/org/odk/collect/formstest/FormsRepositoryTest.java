@@ -143,6 +143,21 @@ public abstract class FormsRepositoryTest {
         assertThat(formsRepository.get(1L).isDeleted(), is(false));
     }
 
+    @Test
+    public void runInTransaction_savesAllChanges() {
+        FormsRepository formsRepository = buildSubject();
+        formsRepository.save(FormUtils.buildForm("1", null, getFormFilesPath())
+                .build());
+
+        formsRepository.runInTransaction(() -> {
+            formsRepository.save(FormUtils.buildForm("2", null, getFormFilesPath()).build());
+            formsRepository.softDelete(1L);
+        });
+
+        assertThat(formsRepository.getAll().size(), is(2));
+        assertThat(formsRepository.get(1L).isDeleted(), is(true));
+    }
+
     @Test
     public void save_multipleFormsWithTheSameHashIgnoresDuplicatesAndReturnsTheExistingForm() {
         FormsRepository formsRepository = buildSubject();
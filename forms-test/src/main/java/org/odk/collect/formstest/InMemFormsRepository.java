@@ -184,6 +184,11 @@ public class InMemFormsRepository implements FormsRepository {
         }
     }
 
+    @Override
+    public void runInTransaction(Runnable runnable) {
+        runnable.run();
+    }
+
     private void deleteFilesForForm(Form form) {
         // Delete form file
         if (form.getFormFilePath() != null) {
@@ -1,5 +1,6 @@
 package org.odk.collect.formstest;
 
+import org.odk.collect.forms.instances.FormVersion;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.forms.instances.InstancesRepository;
 import org.odk.collect.shared.files.DirectoryUtils;
@@ -7,7 +8,9 @@ import org.odk.collect.shared.files.DirectoryUtils;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -95,6 +98,16 @@ public final class InMemInstancesRepository implements InstancesRepository {
         return getAllByStatus(status).size();
     }
 
+    @Override
+    public Map<String, Integer> getCountsByStatus() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Instance instance : instances) {
+            counts.merge(instance.getStatus(), 1, Integer::sum);
+        }
+
+        return counts;
+    }
+
     @Override
     public List<Instance> getAllByFormId(String formId) {
         List<Instance> result = new ArrayList<>();
@@ -117,6 +130,22 @@ public final class InMemInstancesRepository implements InstancesRepository {
         }).collect(Collectors.toList());
     }
 
+    @Override
+    public Map<FormVersion, Long> getLastStatusChangeDates() {
+        Map<FormVersion, Long> lastStatusChangeDates = new HashMap<>();
+        for (Instance instance : instances) {
+            if (instance.getLastStatusChangeDate() != null) {
+                lastStatusChangeDates.merge(
+                        new FormVersion(instance.getFormId(), instance.getFormVersion()),
+                        instance.getLastStatusChangeDate(),
+                        Math::max
+                );
+            }
+        }
+
+        return lastStatusChangeDates;
+    }
+
     @Override
     public void delete(Long id) {
         Instance instance = get(id);
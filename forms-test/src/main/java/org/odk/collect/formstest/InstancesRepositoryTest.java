@@ -15,11 +15,13 @@
 package org.odk.collect.formstest;
 
 import org.junit.Test;
+import org.odk.collect.forms.instances.FormVersion;
 import org.odk.collect.forms.instances.Instance;
 import org.odk.collect.forms.instances.InstancesRepository;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -119,6 +121,34 @@ public abstract class InstancesRepositoryTest {
         assertThat(instancesRepository.getCountByStatus(Instance.STATUS_INCOMPLETE, Instance.STATUS_SUBMITTED), is(4));
     }
 
+    @Test
+    public void getCountsByStatus_returnsCountForEachStatus() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "display", Instance.STATUS_INCOMPLETE, null, getInstancesDir()).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "display", Instance.STATUS_INCOMPLETE, null, getInstancesDir()).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "display", Instance.STATUS_COMPLETE, null, getInstancesDir()).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "display", Instance.STATUS_SUBMITTED, System.currentTimeMillis(), getInstancesDir()).build());
+
+        Map<String, Integer> counts = instancesRepository.getCountsByStatus();
+        assertThat(counts.size(), is(3));
+        assertThat(counts.get(Instance.STATUS_INCOMPLETE), is(2));
+        assertThat(counts.get(Instance.STATUS_COMPLETE), is(1));
+        assertThat(counts.get(Instance.STATUS_SUBMITTED), is(1));
+    }
+
+    @Test
+    public void getCountsByStatus_reflectsInstancesSavedSinceLastCall() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        Instance instance = instancesRepository.save(InstanceUtils.buildInstance("formid", "1", "display", Instance.STATUS_INCOMPLETE, null, getInstancesDir()).build());
+        assertThat(instancesRepository.getCountsByStatus().get(Instance.STATUS_INCOMPLETE), is(1));
+
+        instancesRepository.save(new Instance.Builder(instance).status(Instance.STATUS_COMPLETE).build());
+        assertThat(instancesRepository.getCountsByStatus().get(Instance.STATUS_INCOMPLETE), is(nullValue()));
+        assertThat(instancesRepository.getCountsByStatus().get(Instance.STATUS_COMPLETE), is(1));
+    }
+
     @Test
     public void getAllByFormId_includesAllVersionsForFormId() {
         InstancesRepository instancesRepository = buildSubject();
@@ -150,6 +180,40 @@ public abstract class InstancesRepositoryTest {
         assertThat(instances.size(), is(3));
     }
 
+    @Test
+    public void getLastStatusChangeDates_returnsMostRecentDateForEachFormVersion() {
+        InstancesRepository instancesRepository = buildSubject();
+
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).lastStatusChangeDate(1L).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).lastStatusChangeDate(3L).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", "2", getInstancesDir()).lastStatusChangeDate(2L).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid", null, getInstancesDir()).lastStatusChangeDate(4L).build());
+        instancesRepository.save(InstanceUtils.buildInstance("formid2", "1", "display", Instance.STATUS_COMPLETE, System.currentTimeMillis(), getInstancesDir())
+                .lastStatusChangeDate(5L)
+                .build());
+
+        Map<FormVersion, Long> lastStatusChangeDates = instancesRepository.getLastStatusChangeDates();
+        assertThat(lastStatusChangeDates.size(), is(4));
+        assertThat(lastStatusChangeDates.get(new FormVersion("formid", "1")), is(3L));
+        assertThat(lastStatusChangeDates.get(new FormVersion("formid", "2")), is(2L));
+        assertThat(lastStatusChangeDates.get(new FormVersion("formid", null)), is(4L));
+        assertThat(lastStatusChangeDates.get(new FormVersion("formid2", "1")), is(5L));
+    }
+
+    @Test
+    public void getLastStatusChangeDates_reflectsInstancesSavedAndDeletedSinceLastCall() {
+        InstancesRepository instancesRepository = buildSubject(() -> 10L);
+
+        Instance instance = instancesRepository.save(InstanceUtils.buildInstance("formid", "1", getInstancesDir()).lastStatusChangeDate(1L).build());
+        assertThat(instancesRepository.getLastStatusChangeDates().get(new FormVersion("formid", "1")), is(1L));
+
+        instancesRepository.save(instance);
+        assertThat(instancesRepository.getLastStatusChangeDates().get(new FormVersion("formid", "1")), is(10L));
+
+        instancesRepository.delete(instance.getDbId());
+        assertThat(instancesRepository.getLastStatusChangeDates().isEmpty(), is(true));
+    }
+
     @Test
     public void deleteAll_deletesAllInstances() {
         InstancesRepository instancesRepository = buildSubject();
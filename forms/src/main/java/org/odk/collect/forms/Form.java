@@ -46,6 +46,7 @@ public final class Form {
     private final String geometryXPath;
     private final boolean deleted;
     private final Long lastDetectedAttachmentsUpdateDate;
+    private final boolean preWarmed;
 
     private Form(Form.Builder builder) {
         dbId = builder.dbId;
@@ -66,6 +67,7 @@ public final class Form {
         geometryXPath = builder.geometryXpath;
         deleted = builder.deleted;
         lastDetectedAttachmentsUpdateDate = builder.lastDetectedAttachmentsUpdateDate;
+        preWarmed = builder.preWarmed;
     }
 
     public static class Builder {
@@ -87,6 +89,7 @@ public final class Form {
         private String geometryXpath;
         private boolean deleted;
         private Long lastDetectedAttachmentsUpdateDate;
+        private boolean preWarmed;
 
         public Builder() {
         }
@@ -110,6 +113,7 @@ public final class Form {
             geometryXpath = form.geometryXPath;
             deleted = form.deleted;
             lastDetectedAttachmentsUpdateDate = form.lastDetectedAttachmentsUpdateDate;
+            preWarmed = form.preWarmed;
         }
 
         public Builder dbId(Long id) {
@@ -202,6 +206,11 @@ public final class Form {
             return this;
         }
 
+        public Builder preWarmed(boolean preWarmed) {
+            this.preWarmed = preWarmed;
+            return this;
+        }
+
         public Form build() {
             return new Form(this);
         }
@@ -282,6 +291,15 @@ public final class Form {
         return lastDetectedAttachmentsUpdateDate;
     }
 
+    /**
+     * Whether the form's definition has been parsed and written to the FormDef cache in the
+     * background so that it can be opened quickly. Media, external data and itemsets are still
+     * prepared when the form is opened.
+     */
+    public boolean isPreWarmed() {
+        return preWarmed;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -293,12 +311,12 @@ public final class Form {
         }
 
         Form form = (Form) o;
-        return deleted == form.deleted && Objects.equals(dbId, form.dbId) && Objects.equals(displayName, form.displayName) && Objects.equals(description, form.description) && Objects.equals(formId, form.formId) && Objects.equals(version, form.version) && Objects.equals(formFilePath, form.formFilePath) && Objects.equals(submissionUri, form.submissionUri) && Objects.equals(base64RSAPublicKey, form.base64RSAPublicKey) && Objects.equals(md5Hash, form.md5Hash) && Objects.equals(date, form.date) && Objects.equals(jrCacheFilePath, form.jrCacheFilePath) && Objects.equals(formMediaPath, form.formMediaPath) && Objects.equals(language, form.language) && Objects.equals(autoSend, form.autoSend) && Objects.equals(autoDelete, form.autoDelete) && Objects.equals(geometryXPath, form.geometryXPath) && Objects.equals(lastDetectedAttachmentsUpdateDate, form.lastDetectedAttachmentsUpdateDate);
+        return deleted == form.deleted && preWarmed == form.preWarmed && Objects.equals(dbId, form.dbId) && Objects.equals(displayName, form.displayName) && Objects.equals(description, form.description) && Objects.equals(formId, form.formId) && Objects.equals(version, form.version) && Objects.equals(formFilePath, form.formFilePath) && Objects.equals(submissionUri, form.submissionUri) && Objects.equals(base64RSAPublicKey, form.base64RSAPublicKey) && Objects.equals(md5Hash, form.md5Hash) && Objects.equals(date, form.date) && Objects.equals(jrCacheFilePath, form.jrCacheFilePath) && Objects.equals(formMediaPath, form.formMediaPath) && Objects.equals(language, form.language) && Objects.equals(autoSend, form.autoSend) && Objects.equals(autoDelete, form.autoDelete) && Objects.equals(geometryXPath, form.geometryXPath) && Objects.equals(lastDetectedAttachmentsUpdateDate, form.lastDetectedAttachmentsUpdateDate);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(dbId, displayName, description, formId, version, formFilePath, submissionUri, base64RSAPublicKey, md5Hash, date, jrCacheFilePath, formMediaPath, language, autoSend, autoDelete, geometryXPath, deleted, lastDetectedAttachmentsUpdateDate);
+        return Objects.hash(dbId, displayName, description, formId, version, formFilePath, submissionUri, base64RSAPublicKey, md5Hash, date, jrCacheFilePath, formMediaPath, language, autoSend, autoDelete, geometryXPath, deleted, lastDetectedAttachmentsUpdateDate, preWarmed);
     }
 
     @Override
@@ -40,4 +40,10 @@ public interface FormsRepository {
     void deleteAll();
 
     void restore(Long id);
+
+    /**
+     * Runs the changes made in {@code runnable} as a single batch so that they are written
+     * together (and in one go) where the underlying storage supports it.
+     */
+    void runInTransaction(Runnable runnable);
 }
@@ -0,0 +1,9 @@
+package org.odk.collect.forms.instances
+
+/**
+ * Identifies the version of a form that an [Instance] was filled in with.
+ */
+data class FormVersion(
+    val formId: String,
+    val version: String?
+)
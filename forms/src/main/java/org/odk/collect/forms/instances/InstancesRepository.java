@@ -3,6 +3,7 @@ package org.odk.collect.forms.instances;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Gives access to {@link Instance} objects representing filled form instances on the device.
@@ -32,10 +33,22 @@ public interface InstancesRepository {
 
     int getCountByStatus(String... status);
 
+    /**
+     * The number of instances (including deleted ones) with each status. Statuses that no
+     * instances have are left out.
+     */
+    Map<String, Integer> getCountsByStatus();
+
     List<Instance> getAllByFormId(String formId);
 
     List<Instance> getAllNotDeletedByFormIdAndVersion(String formId, String version);
 
+    /**
+     * The most recent {@link Instance#getLastStatusChangeDate()} of the instances (including
+     * deleted ones) for each form version that has any.
+     */
+    Map<FormVersion, Long> getLastStatusChangeDates();
+
     void delete(Long id);
 
     void deleteAll();
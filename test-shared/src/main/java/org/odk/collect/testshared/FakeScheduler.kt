@@ -43,6 +43,8 @@ class FakeScheduler : Scheduler {
         }
     }
 
+    override fun deferred(tag: String, spec: TaskSpec, inputData: Map<String, String>) {}
+
     override fun networkDeferred(tag: String, spec: TaskSpec, inputData: Map<String, String>) {}
 
     override fun networkDeferred(